@@ -0,0 +1,97 @@
+package com.microsoft.hackathon.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Color lookups of {@code /color/{name}} ({@code /hexcolor} on Quarkus), against catalogs of {@code catalogSize} colors: the
+ * case-insensitive lookup of the Spring endpoint, and the exact one of the Quarkus endpoint. A quarter of the names
+ * are unknown, and half of the known ones are upper-cased.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ColorLookupBenchmark {
+
+    private static final int LOOKUPS = 64;
+
+    @Param({"100", "10000"})
+    public int catalogSize;
+
+    private Path catalog;
+    private String[] names;
+    private com.microsoft.hackathon.copilotdemo.service.ColorCatalog spring;
+    private com.microsoft.hackathon.quarkus.ColorCatalog quarkus;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ArrayNode colors = objectMapper.createArrayNode();
+        for (int i = 0; i < catalogSize; i++) {
+            ObjectNode color = colors.addObject();
+            color.put("color", "color-" + i);
+            color.putObject("code").put("hex", String.format("#%06X", i * 2654435761L & 0xFFFFFF));
+        }
+        catalog = Files.createTempFile("colors", ".json");
+        objectMapper.writeValue(catalog.toFile(), colors);
+
+        Random random = new Random(Fixtures.SEED);
+        names = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            String name = "color-" + random.nextInt(catalogSize * 4 / 3);
+            names[i] = i % 2 == 0 ? name.toUpperCase(Locale.ROOT) : name;
+        }
+
+        // the catalog never changes, an hourly poll keeps the reloader out of the measurements
+        Duration reloadInterval = Duration.ofHours(1);
+        spring = new com.microsoft.hackathon.copilotdemo.service.ColorCatalog(objectMapper, catalog.toString(),
+            reloadInterval);
+        quarkus = new com.microsoft.hackathon.quarkus.ColorCatalog(objectMapper, Optional.of(catalog.toString()),
+            reloadInterval);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(catalog);
+    }
+
+    @Benchmark
+    public void spring(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(spring.findHexIgnoreCase(name));
+        }
+    }
+
+    @Benchmark
+    public void quarkus(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(quarkus.findHex(name));
+        }
+    }
+}
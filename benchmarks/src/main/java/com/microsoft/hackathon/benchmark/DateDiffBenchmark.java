@@ -0,0 +1,72 @@
+package com.microsoft.hackathon.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Differences in days of {@code /diffdates/batch} ({@code /diffdates} for a single pair), over batches of
+ * {@code pairs} date pairs between 1900 and 2100. One pair in a hundred has an invalid date.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DateDiffBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int pairs;
+
+    private com.microsoft.hackathon.copilotdemo.service.DateDiffEngine spring;
+    private com.microsoft.hackathon.quarkus.DateDiffEngine quarkus;
+    private List<com.microsoft.hackathon.copilotdemo.service.DateDiffEngine.DatePair> springPairs;
+    private List<com.microsoft.hackathon.quarkus.DateDiffEngine.DatePair> quarkusPairs;
+
+    @Setup
+    public void setUp() {
+        spring = new com.microsoft.hackathon.copilotdemo.service.DateDiffEngine();
+        quarkus = new com.microsoft.hackathon.quarkus.DateDiffEngine();
+        springPairs = new ArrayList<>(pairs);
+        quarkusPairs = new ArrayList<>(pairs);
+        Random random = new Random(Fixtures.SEED);
+        long first = LocalDate.of(1900, 1, 1).toEpochDay();
+        long last = LocalDate.of(2100, 12, 31).toEpochDay();
+        for (int i = 0; i < pairs; i++) {
+            String date1 = format(LocalDate.ofEpochDay(first + (long) (random.nextDouble() * (last - first))));
+            String date2 = i % 100 == 99 ? "31-02-2020"
+                : format(LocalDate.ofEpochDay(first + (long) (random.nextDouble() * (last - first))));
+            springPairs.add(new com.microsoft.hackathon.copilotdemo.service.DateDiffEngine.DatePair(date1, date2));
+            quarkusPairs.add(new com.microsoft.hackathon.quarkus.DateDiffEngine.DatePair(date1, date2));
+        }
+    }
+
+    @Benchmark
+    public List<Long> spring() {
+        return spring.daysBetween(springPairs);
+    }
+
+    @Benchmark
+    public List<Long> quarkus() {
+        return quarkus.daysBetween(quarkusPairs);
+    }
+
+    private static String format(LocalDate date) {
+        return com.microsoft.hackathon.copilotdemo.service.DateDiffEngine.FORMAT.format(date);
+    }
+}
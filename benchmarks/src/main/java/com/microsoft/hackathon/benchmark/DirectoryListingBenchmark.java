@@ -0,0 +1,79 @@
+package com.microsoft.hackathon.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listings of {@code /list-files} ({@code /listfiles} on Quarkus) with a limit: a tree of {@code files} files, a
+ * hundred per directory, listed in a single page with their attributes and written as JSON.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DirectoryListingBenchmark {
+
+    // the largest page of both endpoints
+    private static final int LIMIT = 10_000;
+    private static final int DEPTH = 2;
+
+    @Param({"100", "5000"})
+    public int files;
+
+    private final com.microsoft.hackathon.copilotdemo.service.DirectoryLister spring =
+        new com.microsoft.hackathon.copilotdemo.service.DirectoryLister();
+    private final com.microsoft.hackathon.quarkus.DirectoryLister quarkus =
+        new com.microsoft.hackathon.quarkus.DirectoryLister();
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private Path root;
+
+    @Setup
+    public void setUp() throws IOException {
+        root = Fixtures.writeTree(Files.createTempDirectory("listing"), files, 16);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.deleteRecursively(root);
+    }
+
+    @Benchmark
+    public void spring() throws IOException {
+        try (com.microsoft.hackathon.copilotdemo.service.DirectoryLister.Listing listing = spring.open(root, DEPTH, null);
+             JsonGenerator generator = jsonFactory.createGenerator(OutputStream.nullOutputStream())) {
+            generator.writeStartObject();
+            listing.write(generator, LIMIT, true);
+            generator.writeEndObject();
+        }
+    }
+
+    @Benchmark
+    public void quarkus() throws IOException {
+        try (com.microsoft.hackathon.quarkus.DirectoryLister.Listing listing = quarkus.open(root, DEPTH, null);
+             JsonGenerator generator = jsonFactory.createGenerator(OutputStream.nullOutputStream())) {
+            generator.writeStartObject();
+            listing.write(generator, LIMIT, true);
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.microsoft.hackathon.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Generates the input files of the benchmarks. Contents are pseudo-random but seeded, so every run, and both
+ * implementations, read exactly the same bytes.
+ */
+final class Fixtures {
+
+    static final long SEED = 42;
+
+    private static final String[] WORDS = {"the", "quick", "brown", "fox", "jumps", "over", "lazy", "dog", "copilot",
+        "hackathon", "spring", "quarkus", "lorem", "ipsum", "dolor", "sit", "amet", "benchmark", "java", "zip"};
+
+    private Fixtures() {
+    }
+
+    /**
+     * Writes {@code size} bytes of whitespace-separated words to {@code file}, a line break every few words.
+     */
+    static Path writeText(Path file, long size, Random random) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            long written = 0;
+            int wordsOnLine = 0;
+            while (written < size) {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                String separator = ++wordsOnLine % 12 == 0 ? "\n" : " ";
+                int length = (int) Math.min(word.length() + 1, size - written);
+                writer.write((word + separator), 0, length);
+                written += length;
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Creates {@code files} text files of {@code fileSize} bytes under {@code root}, a hundred per sub-directory.
+     */
+    static Path writeTree(Path root, int files, int fileSize) throws IOException {
+        Random random = new Random(SEED);
+        for (int i = 0; i < files; i++) {
+            Path directory = Files.createDirectories(root.resolve("dir-" + i / 100));
+            writeText(directory.resolve("file-" + i + ".txt"), fileSize, random);
+        }
+        return root;
+    }
+
+    static void deleteRecursively(Path root) throws IOException {
+        if (root == null || !Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.microsoft.hackathon.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Archives of {@code /zip-folder} ({@code /zipfolder} on Quarkus) built from scratch, as on a cache miss: a tree of
+ * {@code files} text files of {@code fileSize} bytes, compressed with the default level and discarded. The Spring
+ * zipper compresses entries in parallel, the Quarkus one on the calling thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FolderZipBenchmark {
+
+    @Param({"16", "1024"})
+    public int files;
+
+    @Param({"1024", "131072"})
+    public int fileSize;
+
+    private Path root;
+    private com.microsoft.hackathon.copilotdemo.service.FolderZipper spring;
+    private com.microsoft.hackathon.quarkus.FolderZipper quarkus;
+
+    @Setup
+    public void setUp() throws IOException {
+        root = Fixtures.writeTree(Files.createTempDirectory("zip"), files, fileSize);
+        spring = new com.microsoft.hackathon.copilotdemo.service.FolderZipper(Deflater.DEFAULT_COMPRESSION, 0,
+            4 * 1024 * 1024);
+        quarkus = new com.microsoft.hackathon.quarkus.FolderZipper();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.deleteRecursively(root);
+    }
+
+    @Benchmark
+    public void spring() throws IOException {
+        spring.zip(root.toFile(), OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void quarkus() throws IOException {
+        quarkus.zip(root, OutputStream.nullOutputStream());
+    }
+}
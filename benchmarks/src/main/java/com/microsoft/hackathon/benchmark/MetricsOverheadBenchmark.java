@@ -0,0 +1,127 @@
+package com.microsoft.hackathon.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@code DemoMetrics} instrumentation, on the color lookups of {@code /color/{name}} and {@code /hexcolor}:
+ * every lookup records a hit or a miss, and every operation records an upstream joke call on the histogram timer.
+ * {@code registry} is {@code none} to skip recording, {@code noop} to record into a registry without any backend, and
+ * {@code prometheus} to record into the registry scraped by both applications. The difference with {@code none} is
+ * the overhead of the instrumentation, to be read next to the {@link ColorLookupBenchmark} figures.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsOverheadBenchmark {
+
+    private static final int LOOKUPS = 64;
+    private static final int CATALOG_SIZE = 1000;
+
+    @Param({"none", "noop", "prometheus"})
+    public String registry;
+
+    private Path catalog;
+    private String[] names;
+    private boolean recording;
+    private MeterRegistry meterRegistry;
+    private com.microsoft.hackathon.copilotdemo.service.ColorCatalog springCatalog;
+    private com.microsoft.hackathon.copilotdemo.service.DemoMetrics springMetrics;
+    private com.microsoft.hackathon.quarkus.ColorCatalog quarkusCatalog;
+    private com.microsoft.hackathon.quarkus.DemoMetrics quarkusMetrics;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ArrayNode colors = objectMapper.createArrayNode();
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            ObjectNode color = colors.addObject();
+            color.put("color", "color-" + i);
+            color.putObject("code").put("hex", String.format("#%06X", i * 2654435761L & 0xFFFFFF));
+        }
+        catalog = Files.createTempFile("colors", ".json");
+        objectMapper.writeValue(catalog.toFile(), colors);
+
+        Random random = new Random(Fixtures.SEED);
+        names = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            names[i] = "color-" + random.nextInt(CATALOG_SIZE * 4 / 3);
+        }
+
+        Duration reloadInterval = Duration.ofHours(1);
+        springCatalog = new com.microsoft.hackathon.copilotdemo.service.ColorCatalog(objectMapper, catalog.toString(),
+            reloadInterval);
+        quarkusCatalog = new com.microsoft.hackathon.quarkus.ColorCatalog(objectMapper, Optional.of(catalog.toString()),
+            reloadInterval);
+
+        // a composite registry without any child hands out no-op meters
+        meterRegistry = registry.equals("prometheus") ? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)
+            : new CompositeMeterRegistry();
+        recording = !registry.equals("none");
+        springMetrics = new com.microsoft.hackathon.copilotdemo.service.DemoMetrics(meterRegistry);
+        quarkusMetrics = new com.microsoft.hackathon.quarkus.DemoMetrics(meterRegistry);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        meterRegistry.close();
+        Files.deleteIfExists(catalog);
+    }
+
+    @Benchmark
+    public void spring(Blackhole blackhole) {
+        for (String name : names) {
+            String hex = springCatalog.findHexIgnoreCase(name);
+            if (recording) {
+                springMetrics.recordColorLookup(hex != null);
+            }
+            blackhole.consume(hex);
+        }
+        if (recording) {
+            springMetrics.recordJokeUpstreamCall(names.length, true);
+        }
+    }
+
+    @Benchmark
+    public void quarkus(Blackhole blackhole) {
+        for (String name : names) {
+            String hex = quarkusCatalog.findHex(name);
+            if (recording) {
+                quarkusMetrics.recordColorLookup(hex != null);
+            }
+            blackhole.consume(hex);
+        }
+        if (recording) {
+            quarkusMetrics.recordJokeUpstreamCall(names.length, true);
+        }
+    }
+}
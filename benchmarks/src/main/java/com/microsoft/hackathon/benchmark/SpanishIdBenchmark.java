@@ -0,0 +1,85 @@
+package com.microsoft.hackathon.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validations of {@code /validate-spanish-phone} and {@code /validate-spanish-dni} ({@code /validatephone} and
+ * {@code /validatedni} on Quarkus), over {@code values} phones and DNIs, a third of them invalid.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpanishIdBenchmark {
+
+    private static final String DNI_LETTERS = "TRWAGMYFPDXBNJZSQVHLCKE";
+
+    @Param({"16", "1024"})
+    public int values;
+
+    private final com.microsoft.hackathon.copilotdemo.service.SpanishIdValidator spring =
+        new com.microsoft.hackathon.copilotdemo.service.SpanishIdValidator();
+    private final com.microsoft.hackathon.quarkus.SpanishIdValidator quarkus =
+        new com.microsoft.hackathon.quarkus.SpanishIdValidator();
+    private String[] phones;
+    private String[] dnis;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(Fixtures.SEED);
+        phones = new String[values];
+        dnis = new String[values];
+        for (int i = 0; i < values; i++) {
+            int number = random.nextInt(100_000_000);
+            String phone = String.format("+34%c%08d", "679".charAt(random.nextInt(3)), number);
+            String dni = String.format("%08d%c", number, DNI_LETTERS.charAt(number % 23));
+            // a digit short, and the control letter of the next number
+            phones[i] = i % 3 == 0 ? phone.substring(0, 11) : phone;
+            dnis[i] = i % 3 == 0 ? dni.substring(0, 8) + DNI_LETTERS.charAt((number + 1) % 23) : dni;
+        }
+    }
+
+    @Benchmark
+    public void springPhone(Blackhole blackhole) {
+        for (String phone : phones) {
+            blackhole.consume(spring.isValidPhone(phone));
+        }
+    }
+
+    @Benchmark
+    public void quarkusPhone(Blackhole blackhole) {
+        for (String phone : phones) {
+            blackhole.consume(quarkus.isValidPhone(phone));
+        }
+    }
+
+    @Benchmark
+    public void springDni(Blackhole blackhole) {
+        for (String dni : dnis) {
+            blackhole.consume(spring.isValidDni(dni));
+        }
+    }
+
+    @Benchmark
+    public void quarkusDni(Blackhole blackhole) {
+        for (String dni : dnis) {
+            blackhole.consume(quarkus.isValidDni(dni));
+        }
+    }
+}
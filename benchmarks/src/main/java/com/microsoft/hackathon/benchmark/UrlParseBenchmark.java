@@ -0,0 +1,69 @@
+package com.microsoft.hackathon.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of {@code /parse-url} ({@code /parseurl} on Quarkus): a URL with {@code parameters} query parameters,
+ * some of them percent-encoded, parsed and written as JSON.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UrlParseBenchmark {
+
+    @Param({"0", "4", "32"})
+    public int parameters;
+
+    private final com.microsoft.hackathon.copilotdemo.service.UrlParser spring =
+        new com.microsoft.hackathon.copilotdemo.service.UrlParser();
+    private final com.microsoft.hackathon.quarkus.UrlParser quarkus =
+        new com.microsoft.hackathon.quarkus.UrlParser();
+    private String url;
+    private JsonGenerator generator;
+
+    @Setup
+    public void setUp() throws IOException {
+        StringBuilder builder = new StringBuilder("https://user@www.example.com:8443/api/v1/items/42");
+        for (int i = 0; i < parameters; i++) {
+            builder.append(i == 0 ? '?' : '&').append("name").append(i % 8).append('=')
+                .append(i % 2 == 0 ? "value" + i : "caf%C3%A9+" + i);
+        }
+        url = builder.append("#section").toString();
+        generator = new JsonFactory().createGenerator(OutputStream.nullOutputStream());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        generator.close();
+    }
+
+    @Benchmark
+    public void spring() throws IOException {
+        spring.parse(url).writeJson(generator);
+    }
+
+    @Benchmark
+    public void quarkus() throws IOException {
+        quarkus.parse(url).writeJson(generator);
+    }
+}
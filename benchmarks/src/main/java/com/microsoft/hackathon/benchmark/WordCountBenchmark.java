@@ -0,0 +1,67 @@
+package com.microsoft.hackathon.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Word counting of {@code /count-word} ({@code /countword} on Quarkus) in a text file of {@code fileSize} bytes, with
+ * the default chunk size and parallelism of both applications. Both count whitespace-separated tokens, the only mode
+ * of the Quarkus endpoint. The file is read from the page cache after the first iteration, so this measures the scan,
+ * not the disk.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WordCountBenchmark {
+
+    private static final String WORD = "copilot";
+    private static final long CHUNK_SIZE = 16 * 1024 * 1024;
+
+    @Param({"1048576", "67108864"})
+    public long fileSize;
+
+    private Path file;
+    private com.microsoft.hackathon.copilotdemo.service.WordCounter spring;
+    private com.microsoft.hackathon.quarkus.WordCounter quarkus;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Fixtures.writeText(Files.createTempFile("words", ".txt"), fileSize, new Random(Fixtures.SEED));
+        spring = new com.microsoft.hackathon.copilotdemo.service.WordCounter(CHUNK_SIZE, 0);
+        quarkus = new com.microsoft.hackathon.quarkus.WordCounter(CHUNK_SIZE, 0);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long spring() throws IOException {
+        return spring.count(file, WORD, com.microsoft.hackathon.copilotdemo.service.WordCounter.MatchMode.TOKEN);
+    }
+
+    @Benchmark
+    public long quarkus() throws IOException {
+        return quarkus.count(file, WORD, com.microsoft.hackathon.quarkus.WordCounter.MatchMode.TOKEN);
+    }
+}
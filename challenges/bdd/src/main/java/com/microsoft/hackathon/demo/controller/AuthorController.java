@@ -2,12 +2,15 @@ package com.microsoft.hackathon.demo.controller;
 
 // add imports
 import com.microsoft.hackathon.demo.model.Author;
+import com.microsoft.hackathon.demo.model.KeysetPage;
 import com.microsoft.hackathon.demo.repository.AuthorRepository;
+import com.microsoft.hackathon.demo.repository.AuthorRepository.AuthorSummary;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import java.util.List;
+import java.util.Set;
 
 
 @RestController
@@ -21,6 +24,27 @@ public class AuthorController {
         return authorRepository.findAll();
     }
 
+    // Keyset pagination, like BookController.getBookPage, sorted by id or name. Only the id and name of the authors
+    // are read.
+    @GetMapping(params = "limit")
+    public KeysetPage<AuthorSummary> getAuthorPage(@RequestParam int limit,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String cursor) {
+        KeysetCursor after = KeysetCursor.of(cursor, sort, direction, limit, Set.of("id", "name"));
+        List<AuthorSummary> rows;
+        if (after.sort().equals("id")) {
+            rows = after.descending()
+                    ? authorRepository.findPageByIdDesc(after.afterId(), after.pageable())
+                    : authorRepository.findPageById(after.afterId(), after.pageable());
+        } else {
+            rows = after.descending()
+                    ? authorRepository.findPageByNameDesc(after.afterKey(), after.afterId(), after.pageable())
+                    : authorRepository.findPageByName(after.afterKey(), after.afterId(), after.pageable());
+        }
+        return after.page(rows, AuthorSummary::getName, AuthorSummary::getId);
+    }
+
     @GetMapping("/{id}")
     public Author getAuthorById(@PathVariable Long id) {
         return authorRepository.findById(id)
@@ -2,17 +2,32 @@ package com.microsoft.hackathon.demo.controller;
 
 // add imports
 import com.microsoft.hackathon.demo.model.Book;
+import com.microsoft.hackathon.demo.model.KeysetPage;
 import com.microsoft.hackathon.demo.model.Rating;
+import com.microsoft.hackathon.demo.model.RatingStats;
 import com.microsoft.hackathon.demo.repository.BookRepository;
+import com.microsoft.hackathon.demo.repository.BookRepository.BookSummary;
 import com.microsoft.hackathon.demo.repository.RatingRepository;
+import com.microsoft.hackathon.demo.repository.RatingRepository.RatingView;
 import com.microsoft.hackathon.demo.service.BookService;
+import com.microsoft.hackathon.demo.service.RatingService;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityNotFoundException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Set;
 
 
 @RestController
@@ -28,14 +43,63 @@ public class BookController {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
     public List<Book> getAllBooks() {
-        return bookRepository.findAll();
+        return bookService.getAllBooks();
+    }
+
+    // Keyset pagination: limit books (at most 1000) sorted by id or title, asc or desc, after the cursor returned
+    // with the previous page. Only the id and title of the books are read.
+    @GetMapping(params = "limit")
+    public KeysetPage<BookSummary> getBookPage(@RequestParam int limit,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String cursor) {
+        KeysetCursor after = KeysetCursor.of(cursor, sort, direction, limit, Set.of("id", "title"));
+        List<BookSummary> rows;
+        if (after.sort().equals("id")) {
+            rows = after.descending()
+                    ? bookRepository.findPageByIdDesc(after.afterId(), after.pageable())
+                    : bookRepository.findPageById(after.afterId(), after.pageable());
+        } else {
+            rows = after.descending()
+                    ? bookRepository.findPageByTitleDesc(after.afterKey(), after.afterId(), after.pageable())
+                    : bookRepository.findPageByTitle(after.afterKey(), after.afterId(), after.pageable());
+        }
+        return after.page(rows, BookSummary::getTitle, BookSummary::getId);
+    }
+
+    // Every book by ascending id, as a JSON array of their id and title written while the books are read, instead of
+    // loading them all first.
+    @GetMapping(params = "stream=true", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamAllBooks() {
+        return out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                bookService.forEachBook(book -> {
+                    try {
+                        json.writeStartObject();
+                        json.writeNumberField("id", book.getId());
+                        json.writeStringField("title", book.getTitle());
+                        json.writeEndObject();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+            }
+        };
     }
 
     @GetMapping("/{id}")
     public Book getBookById(@PathVariable Long id) {
-        return bookRepository.findById(id)
+        return bookRepository.findWithAuthorsById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
@@ -58,55 +122,63 @@ public class BookController {
         if (!bookRepository.existsById(id)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND);
         }
-        bookRepository.deleteById(id);
+        bookService.deleteBook(id);
     }
 
     @GetMapping("/{bookId}/ratings")
     public List<Rating> getAllRatingsForBook(@PathVariable Long bookId) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        return book.getRatings();
+        if (!bookRepository.existsById(bookId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return ratingRepository.findByBookIdOrderById(bookId);
+    }
+
+    // Keyset pagination of the ratings of a book, like getBookPage, sorted by id or score. Only the id and score of
+    // the ratings are read.
+    @GetMapping(path = "/{bookId}/ratings", params = "limit")
+    public KeysetPage<RatingView> getRatingPageForBook(@PathVariable Long bookId, @RequestParam int limit,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(required = false) String cursor) {
+        KeysetCursor after = KeysetCursor.of(cursor, sort, direction, limit, Set.of("id", "score"));
+        if (!bookRepository.existsById(bookId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        List<RatingView> rows;
+        if (after.sort().equals("id")) {
+            rows = after.descending()
+                    ? ratingRepository.findPageByBookIdAndIdDesc(bookId, after.afterId(), after.pageable())
+                    : ratingRepository.findPageByBookIdAndId(bookId, after.afterId(), after.pageable());
+        } else {
+            rows = after.descending()
+                    ? ratingRepository.findPageByBookIdAndScoreDesc(bookId, after.afterIntKey(), after.afterId(),
+                            after.pageable())
+                    : ratingRepository.findPageByBookIdAndScore(bookId, after.afterIntKey(), after.afterId(),
+                            after.pageable());
+        }
+        return after.page(rows, RatingView::getScore, RatingView::getId);
     }
 
     @GetMapping("/{bookId}/ratings/{id}")
     public Rating getRatingByIdForBook(@PathVariable Long bookId, @PathVariable Long id) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        return book.getRatings().stream()
-                .filter(rating -> rating.getId().equals(id))
-                .findFirst()
+        return ratingRepository.findByIdAndBookId(id, bookId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
     }
 
+    // ratings are changed through RatingService, which keeps the rating summary of the book up to date
     @PostMapping("/{bookId}/ratings")
     public Rating createRatingForBook(@PathVariable Long bookId, @RequestBody Rating rating) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        rating.setBook(book);
-        return ratingRepository.save(rating);
+        return ratingService.createRating(bookId, rating);
     }
 
     @PutMapping("/{bookId}/ratings/{id}")
     public Rating updateRatingForBook(@PathVariable Long bookId, @PathVariable Long id, @RequestBody Rating rating) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        Rating existingRating = book.getRatings().stream()
-                .filter(r -> r.getId().equals(id))
-                .findFirst()
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        existingRating.setScore(rating.getScore());
-        return ratingRepository.save(existingRating);
+        return ratingService.updateRating(bookId, id, rating.getScore());
     }
 
     @DeleteMapping("/{bookId}/ratings/{id}")
     public void deleteRatingForBook(@PathVariable Long bookId, @PathVariable Long id) {
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        Rating existingRating = book.getRatings().stream()
-                .filter(r -> r.getId().equals(id))
-                .findFirst()
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        ratingRepository.delete(existingRating);
+        ratingService.deleteRating(bookId, id);
     }
 
     @GetMapping("/{id}/ratings/average")
@@ -114,4 +186,15 @@ public class BookController {
         double averageRating = bookService.getAverageRating(id);
         return ResponseEntity.ok(averageRating);
     }
+
+    @GetMapping("/{id}/ratings/stats")
+    public RatingStats getRatingStats(@PathVariable Long id) {
+        return bookService.getRatingStats(id);
+    }
+
+    // unknown books and ratings, as reported by the services
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<Void> handleEntityNotFound() {
+        return ResponseEntity.notFound().build();
+    }
 }
\ No newline at end of file
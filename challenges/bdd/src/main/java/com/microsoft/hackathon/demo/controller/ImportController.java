@@ -0,0 +1,55 @@
+package com.microsoft.hackathon.demo.controller;
+
+// add imports
+import com.microsoft.hackathon.demo.service.BookImporter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+
+// Bulk import of books, with their authors and ratings, from a request body read as it is received: see BookImporter.
+// The books are committed chunkSize at a time, books.import.chunk-size (500) by default.
+@RestController
+@RequestMapping("/books/import")
+public class ImportController {
+
+    @Autowired
+    private BookImporter bookImporter;
+
+    @PostMapping(consumes = "application/x-ndjson")
+    public BookImporter.Report importNdjson(InputStream body,
+            @RequestParam(defaultValue = "${books.import.chunk-size:500}") int chunkSize) throws IOException {
+        return importBooks(body, BookImporter.Format.NDJSON, chunkSize);
+    }
+
+    @PostMapping(consumes = "text/csv")
+    public BookImporter.Report importCsv(InputStream body,
+            @RequestParam(defaultValue = "${books.import.chunk-size:500}") int chunkSize) throws IOException {
+        return importBooks(body, BookImporter.Format.CSV, chunkSize);
+    }
+
+    // a malformed line, reported with what was imported before it
+    @ExceptionHandler(BookImporter.ImportException.class)
+    public ResponseEntity<Map<String, Object>> handleImportException(BookImporter.ImportException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage(), "imported", e.getImported()));
+    }
+
+    private BookImporter.Report importBooks(InputStream body, BookImporter.Format format, int chunkSize)
+            throws IOException {
+        if (chunkSize < 1 || chunkSize > BookImporter.MAX_CHUNK_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "chunkSize must be between 1 and " + BookImporter.MAX_CHUNK_SIZE);
+        }
+        BufferedReader input = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        return bookImporter.importBooks(input, format, chunkSize);
+    }
+}
@@ -0,0 +1,126 @@
+package com.microsoft.hackathon.demo.controller;
+
+// add imports
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import com.microsoft.hackathon.demo.model.KeysetPage;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+
+// Position of a keyset page in the rows sorted by a key and then by id: the key and id of the last row of the previous
+// page, none for the first page. Cursors are opaque to clients, and only valid for the sort and direction they were
+// read with; anything else is a bad request.
+final class KeysetCursor {
+
+    static final int MAX_LIMIT = 1000;
+
+    private final String sort;
+    private final boolean descending;
+    private final int limit;
+    // null for the first page
+    private final String key;
+    private final Long id;
+
+    private KeysetCursor(String sort, boolean descending, int limit, String key, Long id) {
+        this.sort = sort;
+        this.descending = descending;
+        this.limit = limit;
+        this.key = key;
+        this.id = id;
+    }
+
+    static KeysetCursor of(String cursor, String sort, String direction, int limit, Set<String> sorts) {
+        if (!sorts.contains(sort)) {
+            throw badRequest("sort must be one of " + sorts);
+        }
+        if (!direction.equals("asc") && !direction.equals("desc")) {
+            throw badRequest("direction must be asc or desc");
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw badRequest("limit must be between 1 and " + MAX_LIMIT);
+        }
+        boolean descending = direction.equals("desc");
+        if (cursor == null) {
+            return new KeysetCursor(sort, descending, limit, null, null);
+        }
+        // sort, direction, id and key, the key last as it may contain anything
+        String[] fields;
+        try {
+            fields = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 4);
+        } catch (IllegalArgumentException e) {
+            throw badRequest("invalid cursor");
+        }
+        if (fields.length != 4 || !fields[0].equals(sort) || !fields[1].equals(direction)) {
+            throw badRequest("invalid cursor for sort " + sort + " " + direction);
+        }
+        try {
+            return new KeysetCursor(sort, descending, limit, fields[3], Long.parseLong(fields[2]));
+        } catch (NumberFormatException e) {
+            throw badRequest("invalid cursor");
+        }
+    }
+
+    String sort() {
+        return sort;
+    }
+
+    boolean descending() {
+        return descending;
+    }
+
+    // one row more than the page, telling whether there is a next page
+    Pageable pageable() {
+        return PageRequest.ofSize(limit + 1);
+    }
+
+    // id of the last row, or for the first page an id before every row
+    long afterId() {
+        if (id != null) {
+            return id;
+        }
+        return descending ? Long.MAX_VALUE : Long.MIN_VALUE;
+    }
+
+    // key of the last row, null for the first page
+    String afterKey() {
+        return key;
+    }
+
+    // numeric key of the last row, or for the first page a key before every row
+    int afterIntKey() {
+        if (key == null) {
+            return descending ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+        }
+        try {
+            return Integer.parseInt(key);
+        } catch (NumberFormatException e) {
+            throw badRequest("invalid cursor");
+        }
+    }
+
+    // the page of the rows read with pageable(), with the cursor after its last row if more rows were read
+    <T> KeysetPage<T> page(List<T> rows, Function<T, Object> keyOf, Function<T, Long> idOf) {
+        if (rows.size() <= limit) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        T last = items.get(limit - 1);
+        // null keys are sorted as the empty string
+        Object lastKey = keyOf.apply(last);
+        String next = sort + ":" + (descending ? "desc" : "asc") + ":" + idOf.apply(last) + ":"
+                + (lastKey == null ? "" : lastKey);
+        return new KeysetPage<>(List.copyOf(items),
+                Base64.getUrlEncoder().withoutPadding().encodeToString(next.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static ResponseStatusException badRequest(String reason) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, reason);
+    }
+}
@@ -1,5 +1,22 @@
 package com.microsoft.hackathon.demo.controller;
 
+// add imports
+import com.microsoft.hackathon.demo.service.RatingSummaryReconciler;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+
+@RestController
+@RequestMapping("/ratings")
 public class RatingController {
-    
+
+    @Autowired
+    private RatingSummaryReconciler ratingSummaryReconciler;
+
+    // rebuilds the rating summaries now, instead of waiting for the scheduled reconciliation
+    @PostMapping("/summaries/reconcile")
+    public RatingSummaryReconciler.Report reconcileSummaries() {
+        return ratingSummaryReconciler.reconcile();
+    }
 }
@@ -10,8 +10,10 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @Entity
 public class Author {
 
+    // ids are allocated from a sequence, 50 at a time, so that inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "author_seq")
+    @SequenceGenerator(name = "author_seq", sequenceName = "author_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -10,8 +10,10 @@ import jakarta.persistence.*;
 @Entity
 public class Book {
     
+    // ids are allocated from a sequence, 50 at a time, so that inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id;
 
     private String title;
@@ -0,0 +1,16 @@
+package com.microsoft.hackathon.demo.model;
+
+import java.util.List;
+import java.util.Objects;
+
+// A book read by the bulk import, with the names of its authors and the scores of its ratings, none when missing.
+public record ImportedBook(String title, List<String> authors, List<Integer> ratings) {
+
+    public ImportedBook {
+        authors = authors == null ? List.of() : authors;
+        ratings = ratings == null ? List.of() : ratings;
+        if (authors.stream().anyMatch(Objects::isNull) || ratings.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("authors and ratings can't be null");
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.microsoft.hackathon.demo.model;
+
+import java.util.List;
+
+// A page of rows read after the last row of the previous page, and the cursor to pass to read the next page, null on
+// the last page.
+public record KeysetPage<T>(List<T> items, String nextCursor) {
+}
@@ -7,14 +7,19 @@ import jakarta.persistence.*;
 
 
 @Entity
+// the ratings of a book are aggregated from this index alone, without reading the table
+@Table(indexes = @Index(name = "idx_rating_book_score", columnList = "book_id, score"))
 public class Rating {
+    // ids are allocated from a sequence, 50 at a time, so that inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rating_seq")
+    @SequenceGenerator(name = "rating_seq", sequenceName = "rating_seq", allocationSize = 50)
     private Long id;
 
     private int score;
 
-    @ManyToOne
+    // read only when asked for: ratings are listed by book, and never serialized with it
+    @ManyToOne(fetch = FetchType.LAZY)
     @JsonIgnore
     private Book book;
 
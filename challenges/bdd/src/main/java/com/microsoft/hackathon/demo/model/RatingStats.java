@@ -0,0 +1,10 @@
+package com.microsoft.hackathon.demo.model;
+
+import java.util.Map;
+
+// Statistics of the ratings of a book: how many there are, the average and population variance of their scores, their
+// lowest and highest score (0.0, 0.0, null and null without ratings), and the number of ratings for every score
+// given, by ascending score.
+public record RatingStats(long count, double average, double variance, Integer min, Integer max,
+        Map<Integer, Long> histogram) {
+}
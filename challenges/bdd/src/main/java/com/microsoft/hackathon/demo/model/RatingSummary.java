@@ -0,0 +1,146 @@
+package com.microsoft.hackathon.demo.model;
+
+// add required imports
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import jakarta.persistence.*;
+
+import org.hibernate.annotations.SortNatural;
+
+
+// Ratings of a book, kept up to date with every rating change so that they are read without scanning the ratings:
+// their count, the sum of their scores and of the squares of their scores, and the number of ratings per score.
+@Entity
+public class RatingSummary {
+
+    @Id
+    private Long bookId;
+
+    private long ratingCount;
+
+    private long scoreSum;
+
+    private long scoreSquareSum;
+
+    @ElementCollection
+    @CollectionTable(name = "rating_summary_histogram", joinColumns = @JoinColumn(name = "book_id"))
+    @MapKeyColumn(name = "score")
+    @Column(name = "ratings")
+    @SortNatural
+    private SortedMap<Integer, Long> histogram;
+
+    // constructors, getters, and setters
+
+    // constructor
+    public RatingSummary() {
+        this.histogram = new TreeMap<>();
+    }
+
+    // constructor
+    public RatingSummary(Long bookId) {
+        this.bookId = bookId;
+        this.histogram = new TreeMap<>();
+    }
+
+    // summary of a book built from the number of its ratings for every score
+    public static RatingSummary of(Long bookId, Map<Integer, Long> histogram) {
+        RatingSummary summary = new RatingSummary(bookId);
+        histogram.forEach(summary::add);
+        return summary;
+    }
+
+    // getters
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public long getRatingCount() {
+        return ratingCount;
+    }
+
+    public long getScoreSum() {
+        return scoreSum;
+    }
+
+    public long getScoreSquareSum() {
+        return scoreSquareSum;
+    }
+
+    public Map<Integer, Long> getHistogram() {
+        return histogram;
+    }
+
+    // average score, 0.0 without ratings
+    public double getAverage() {
+        return ratingCount == 0 ? 0.0 : (double) scoreSum / ratingCount;
+    }
+
+    // population variance of the scores, 0.0 without ratings
+    public double getVariance() {
+        if (ratingCount == 0) {
+            return 0.0;
+        }
+        // n * sum(x^2) - sum(x)^2 is computed exactly on longs, as long as the scores are small
+        return (double) (ratingCount * scoreSquareSum - scoreSum * scoreSum) / ((double) ratingCount * ratingCount);
+    }
+
+    public RatingStats toStats() {
+        Integer min = histogram.isEmpty() ? null : histogram.firstKey();
+        Integer max = histogram.isEmpty() ? null : histogram.lastKey();
+        return new RatingStats(ratingCount, getAverage(), getVariance(), min, max, new TreeMap<>(histogram));
+    }
+
+    // add a rating
+    public void add(int score) {
+        add(score, 1);
+    }
+
+    // remove a rating, that must have been added before
+    public void remove(int score) {
+        add(score, -1);
+    }
+
+    // replace the counts with the ones of other, returning whether they differed
+    public boolean reconcileWith(RatingSummary other) {
+        if (hasSameCounts(other)) {
+            return false;
+        }
+        this.ratingCount = other.ratingCount;
+        this.scoreSum = other.scoreSum;
+        this.scoreSquareSum = other.scoreSquareSum;
+        this.histogram.clear();
+        this.histogram.putAll(other.histogram);
+        return true;
+    }
+
+    // whether other counts the same ratings
+    public boolean hasSameCounts(RatingSummary other) {
+        return ratingCount == other.ratingCount && scoreSum == other.scoreSum
+                && scoreSquareSum == other.scoreSquareSum && Objects.equals(histogram, other.histogram);
+    }
+
+    private void add(int score, long ratings) {
+        ratingCount += ratings;
+        scoreSum += score * ratings;
+        scoreSquareSum += (long) score * score * ratings;
+        long bucket = histogram.getOrDefault(score, 0L) + ratings;
+        if (bucket == 0) {
+            histogram.remove(score);
+        } else {
+            histogram.put(score, bucket);
+        }
+    }
+
+    // toString method
+    @Override
+    public String toString() {
+        return "RatingSummary{" +
+                "bookId=" + bookId +
+                ", ratingCount=" + ratingCount +
+                ", scoreSum=" + scoreSum +
+                ", histogram=" + histogram +
+                '}';
+    }
+}
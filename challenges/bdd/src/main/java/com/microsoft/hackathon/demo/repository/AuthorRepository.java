@@ -1,10 +1,44 @@
 package com.microsoft.hackathon.demo.repository;
 
 // add imports
+import java.util.Collection;
+import java.util.List;
 import com.microsoft.hackathon.demo.model.Author;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AuthorRepository extends JpaRepository<Author, Long> {
-}
\ No newline at end of file
+
+    // the authors with any of these names
+    List<Author> findByNameIn(Collection<String> names);
+
+    // Keyset pagination, like in BookRepository, by id or by name.
+
+    @Query("select a.id as id, a.name as name from Author a where a.id > :afterId order by a.id")
+    List<AuthorSummary> findPageById(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("select a.id as id, a.name as name from Author a where a.id < :afterId order by a.id desc")
+    List<AuthorSummary> findPageByIdDesc(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("select a.id as id, a.name as name from Author a "
+            + "where :afterName is null or (coalesce(a.name, ''), a.id) > (:afterName, :afterId) "
+            + "order by coalesce(a.name, ''), a.id")
+    List<AuthorSummary> findPageByName(@Param("afterName") String afterName, @Param("afterId") long afterId,
+            Pageable pageable);
+
+    @Query("select a.id as id, a.name as name from Author a "
+            + "where :afterName is null or (coalesce(a.name, ''), a.id) < (:afterName, :afterId) "
+            + "order by coalesce(a.name, '') desc, a.id desc")
+    List<AuthorSummary> findPageByNameDesc(@Param("afterName") String afterName, @Param("afterId") long afterId,
+            Pageable pageable);
+
+    interface AuthorSummary {
+        Long getId();
+
+        String getName();
+    }
+}
@@ -1,11 +1,74 @@
 package com.microsoft.hackathon.demo.repository;
 
 // add imports
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 import com.microsoft.hackathon.demo.model.Book;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
-}
\ No newline at end of file
+
+    // Books are serialized with their authors and ratings. The authors are fetched with the books, in a join; the
+    // ratings, which can't be fetched in the same join, are fetched by findAllWithRatings when listing every book, and
+    // read in batches of hibernate.default_batch_fetch_size books otherwise.
+
+    @Override
+    @EntityGraph(attributePaths = "authors")
+    List<Book> findAll();
+
+    @Query("select distinct b from Book b left join fetch b.ratings")
+    List<Book> findAllWithRatings();
+
+    @EntityGraph(attributePaths = "authors")
+    Optional<Book> findWithAuthorsById(Long id);
+
+    // the book, locked until the end of the transaction: changes to the ratings of a book are made under this lock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Book> findLockedById(Long id);
+
+    // Keyset pagination: the books after the last one of the previous page, as many as the page size of the pageable.
+    // Titles are sorted with null as the empty string, and ties are broken by id. For the first page, pass the lowest
+    // id (highest when descending), and a null title.
+
+    @Query("select b.id as id, b.title as title from Book b where b.id > :afterId order by b.id")
+    List<BookSummary> findPageById(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("select b.id as id, b.title as title from Book b where b.id < :afterId order by b.id desc")
+    List<BookSummary> findPageByIdDesc(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("select b.id as id, b.title as title from Book b "
+            + "where :afterTitle is null or (coalesce(b.title, ''), b.id) > (:afterTitle, :afterId) "
+            + "order by coalesce(b.title, ''), b.id")
+    List<BookSummary> findPageByTitle(@Param("afterTitle") String afterTitle, @Param("afterId") long afterId,
+            Pageable pageable);
+
+    @Query("select b.id as id, b.title as title from Book b "
+            + "where :afterTitle is null or (coalesce(b.title, ''), b.id) < (:afterTitle, :afterId) "
+            + "order by coalesce(b.title, '') desc, b.id desc")
+    List<BookSummary> findPageByTitleDesc(@Param("afterTitle") String afterTitle, @Param("afterId") long afterId,
+            Pageable pageable);
+
+    // every book, read one fetch at a time rather than all at once: the stream must be closed, within a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select b from Book b order by b.id")
+    Stream<Book> streamAllBy();
+
+    interface BookSummary {
+        Long getId();
+
+        String getTitle();
+    }
+}
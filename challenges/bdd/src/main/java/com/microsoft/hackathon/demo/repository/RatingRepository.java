@@ -1,10 +1,85 @@
 package com.microsoft.hackathon.demo.repository;
 
 // add imports
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 import com.microsoft.hackathon.demo.model.Rating;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface RatingRepository extends JpaRepository<Rating, Long> {
+
+    // the ratings of a book, or one of them, read by book id without loading the book
+    List<Rating> findByBookIdOrderById(Long bookId);
+
+    Optional<Rating> findByIdAndBookId(Long id, Long bookId);
+
+    // average score of the ratings of a book, null when the book has no rating
+    @Query("select avg(r.score) from Rating r where r.book.id = :bookId")
+    Double findAverageScoreByBookId(@Param("bookId") Long bookId);
+
+    // number of ratings of a book for every score it was given, by ascending score
+    @Query("select r.score as score, count(r) as ratings from Rating r where r.book.id = :bookId "
+            + "group by r.score order by r.score")
+    List<ScoreCount> countScoresByBookId(@Param("bookId") Long bookId);
+
+    // same as countScoresByBookId, as a map from score to number of ratings
+    default Map<Integer, Long> findHistogramByBookId(Long bookId) {
+        Map<Integer, Long> histogram = new TreeMap<>();
+        for (ScoreCount scoreCount : countScoresByBookId(bookId)) {
+            histogram.put(scoreCount.getScore(), scoreCount.getRatings());
+        }
+        return histogram;
+    }
+
+    // number of ratings of every book for every score it was given, by book then ascending score
+    @Query("select r.book.id as bookId, r.score as score, count(r) as ratings from Rating r "
+            + "group by r.book.id, r.score order by r.book.id, r.score")
+    List<BookScoreCount> countScoresByBook();
+
+    // Keyset pagination of the ratings of a book, like in BookRepository, by id or by score. Ratings are read without
+    // their book.
+
+    @Query("select r.id as id, r.score as score from Rating r where r.book.id = :bookId and r.id > :afterId "
+            + "order by r.id")
+    List<RatingView> findPageByBookIdAndId(@Param("bookId") Long bookId, @Param("afterId") long afterId,
+            Pageable pageable);
+
+    @Query("select r.id as id, r.score as score from Rating r where r.book.id = :bookId and r.id < :afterId "
+            + "order by r.id desc")
+    List<RatingView> findPageByBookIdAndIdDesc(@Param("bookId") Long bookId, @Param("afterId") long afterId,
+            Pageable pageable);
+
+    @Query("select r.id as id, r.score as score from Rating r "
+            + "where r.book.id = :bookId and (r.score, r.id) > (:afterScore, :afterId) order by r.score, r.id")
+    List<RatingView> findPageByBookIdAndScore(@Param("bookId") Long bookId, @Param("afterScore") int afterScore,
+            @Param("afterId") long afterId, Pageable pageable);
+
+    @Query("select r.id as id, r.score as score from Rating r "
+            + "where r.book.id = :bookId and (r.score, r.id) < (:afterScore, :afterId) "
+            + "order by r.score desc, r.id desc")
+    List<RatingView> findPageByBookIdAndScoreDesc(@Param("bookId") Long bookId, @Param("afterScore") int afterScore,
+            @Param("afterId") long afterId, Pageable pageable);
+
+    interface RatingView {
+        Long getId();
+
+        int getScore();
+    }
+
+    interface ScoreCount {
+        int getScore();
+
+        long getRatings();
+    }
+
+    interface BookScoreCount extends ScoreCount {
+        Long getBookId();
+    }
 }
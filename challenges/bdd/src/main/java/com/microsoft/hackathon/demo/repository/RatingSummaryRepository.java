@@ -0,0 +1,22 @@
+package com.microsoft.hackathon.demo.repository;
+
+// add imports
+import java.util.List;
+import java.util.Optional;
+import com.microsoft.hackathon.demo.model.RatingSummary;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RatingSummaryRepository extends JpaRepository<RatingSummary, Long> {
+
+    // every summary with its histogram, in a single query
+    @Query("select distinct s from RatingSummary s left join fetch s.histogram")
+    List<RatingSummary> findAllWithHistogram();
+
+    // the summary of a book with its histogram, in a single query
+    @EntityGraph(attributePaths = "histogram")
+    Optional<RatingSummary> findWithHistogramByBookId(Long bookId);
+}
@@ -0,0 +1,266 @@
+package com.microsoft.hackathon.demo.service;
+
+// add imports
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.hackathon.demo.model.Author;
+import com.microsoft.hackathon.demo.model.Book;
+import com.microsoft.hackathon.demo.model.ImportedBook;
+import com.microsoft.hackathon.demo.model.Rating;
+import com.microsoft.hackathon.demo.model.RatingSummary;
+import com.microsoft.hackathon.demo.repository.AuthorRepository;
+
+import jakarta.persistence.EntityManager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+
+// Imports books, with their authors and ratings, from NDJSON or CSV read one line at a time. Books are persisted
+// chunkSize at a time, each chunk in its own transaction, and the persistence context is cleared once a chunk is
+// committed, so that memory use depends on the chunk size and not on the size of the input. Inserts are sent in JDBC
+// batches of hibernate.jdbc.batch_size statements.
+//
+// Authors are matched by name with the ones stored, and created when there is none. The rating summary of every book
+// is created with it.
+@Service
+public class BookImporter {
+
+    public static final int MAX_CHUNK_SIZE = 10_000;
+
+    private static final Logger log = LoggerFactory.getLogger(BookImporter.class);
+
+    // progress is logged at most this often
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    @Autowired
+    AuthorRepository authorRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public BookImporter(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public enum Format {
+        // one JSON object per line: {"title": "Dune", "authors": ["Frank Herbert"], "ratings": [5, 4]}
+        NDJSON,
+        // a title,authors,ratings header, then one book per line, its authors and ratings separated by ';':
+        // "Good Omens","Terry Pratchett;Neil Gaiman",5;4
+        CSV
+    }
+
+    // Imports every book of the input. A malformed line stops the import with an ImportException: the books of the
+    // chunks committed before it stay imported, the ones of its own chunk are not.
+    public Report importBooks(BufferedReader input, Format format, int chunkSize) throws IOException {
+        if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("chunk size must be between 1 and " + MAX_CHUNK_SIZE);
+        }
+        Progress progress = new Progress();
+        List<ImportedBook> chunk = new ArrayList<>(chunkSize);
+        CsvColumns columns = null;
+        long lineNumber = 0;
+        String line;
+        while ((line = input.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                if (format == Format.NDJSON) {
+                    chunk.add(objectMapper.readValue(line, ImportedBook.class));
+                } else if (columns == null) {
+                    columns = CsvColumns.of(parseCsv(line));
+                } else {
+                    chunk.add(columns.book(parseCsv(line)));
+                }
+            } catch (JsonProcessingException e) {
+                throw new ImportException(lineNumber, e.getOriginalMessage(), progress.report());
+            } catch (IllegalArgumentException e) {
+                throw new ImportException(lineNumber, e.getMessage(), progress.report());
+            }
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, progress);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, progress);
+        }
+        Report report = progress.report();
+        log.info("Imported {} books, {} authors and {} ratings in {} ms, {} books/s", report.books(),
+                report.authors(), report.ratings(), report.elapsedMillis(), Math.round(report.booksPerSecond()));
+        return report;
+    }
+
+    private void importChunk(List<ImportedBook> chunk, Progress progress) {
+        transactionTemplate.executeWithoutResult(status -> persist(chunk, progress));
+        progress.books += chunk.size();
+        if (System.nanoTime() - progress.lastLogged >= PROGRESS_INTERVAL_NANOS) {
+            progress.lastLogged = System.nanoTime();
+            Report report = progress.report();
+            log.info("Imported {} books so far, {} books/s", report.books(), Math.round(report.booksPerSecond()));
+        }
+    }
+
+    private void persist(List<ImportedBook> chunk, Progress progress) {
+        // the authors of the chunk already stored, in a single query
+        Set<String> names = new HashSet<>();
+        chunk.forEach(imported -> names.addAll(imported.authors()));
+        Map<String, Author> authors = new HashMap<>();
+        if (!names.isEmpty()) {
+            authorRepository.findByNameIn(names).forEach(author -> authors.putIfAbsent(author.getName(), author));
+        }
+        for (ImportedBook imported : chunk) {
+            Book book = new Book(imported.title(), new ArrayList<>());
+            for (String name : imported.authors()) {
+                book.addAuthor(authors.computeIfAbsent(name, newName -> {
+                    Author author = new Author(newName);
+                    entityManager.persist(author);
+                    progress.authors++;
+                    return author;
+                }));
+            }
+            entityManager.persist(book);
+            RatingSummary summary = new RatingSummary(book.getId());
+            for (int score : imported.ratings()) {
+                entityManager.persist(new Rating(score, book));
+                summary.add(score);
+            }
+            entityManager.persist(summary);
+            progress.ratings += imported.ratings().size();
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // the fields of a CSV line, quoted or not, a quote being escaped by doubling it; fields can't span lines
+    static List<String> parseCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // positions of the columns of a CSV input, read from its header, in any order
+    private record CsvColumns(int title, int authors, int ratings) {
+
+        static CsvColumns of(List<String> header) {
+            List<String> names = header.stream().map(name -> name.trim().toLowerCase()).toList();
+            if (!names.contains("title")) {
+                throw new IllegalArgumentException("the header must have a title column, and can have authors "
+                        + "and ratings columns");
+            }
+            return new CsvColumns(names.indexOf("title"), names.indexOf("authors"), names.indexOf("ratings"));
+        }
+
+        ImportedBook book(List<String> fields) {
+            List<Integer> scores = new ArrayList<>();
+            for (String score : list(fields, ratings)) {
+                try {
+                    scores.add(Integer.parseInt(score));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("invalid score \"" + score + "\"");
+                }
+            }
+            return new ImportedBook(title < fields.size() ? fields.get(title) : null, list(fields, authors), scores);
+        }
+
+        // the non blank values of a column separated by ';', none when the column is missing
+        private static List<String> list(List<String> fields, int column) {
+            if (column < 0 || column >= fields.size()) {
+                return List.of();
+            }
+            List<String> values = new ArrayList<>();
+            for (String value : fields.get(column).split(";")) {
+                if (!value.isBlank()) {
+                    values.add(value.trim());
+                }
+            }
+            return values;
+        }
+    }
+
+    // counts of what was committed so far
+    private static class Progress {
+        final long started = System.nanoTime();
+        long lastLogged = started;
+        long books;
+        long authors;
+        long ratings;
+
+        Report report() {
+            long elapsedNanos = System.nanoTime() - started;
+            double booksPerSecond = elapsedNanos == 0 ? 0.0 : books * 1e9 / elapsedNanos;
+            return new Report(books, authors, ratings, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), booksPerSecond);
+        }
+    }
+
+    // books, authors and ratings created, how long the import took, and its throughput
+    public record Report(long books, long authors, long ratings, long elapsedMillis, double booksPerSecond) {
+    }
+
+    // a malformed line, and what was imported before it
+    public static class ImportException extends RuntimeException {
+
+        private final long line;
+        private final Report imported;
+
+        public ImportException(long line, String reason, Report imported) {
+            super("line " + line + ": " + reason);
+            this.line = line;
+            this.imported = imported;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public Report getImported() {
+            return imported;
+        }
+    }
+}
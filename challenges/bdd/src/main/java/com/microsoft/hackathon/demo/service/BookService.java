@@ -2,35 +2,87 @@ package com.microsoft.hackathon.demo.service;
 
 // add imports
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import com.microsoft.hackathon.demo.model.Book;
-import com.microsoft.hackathon.demo.model.Rating;
+import com.microsoft.hackathon.demo.model.RatingStats;
+import com.microsoft.hackathon.demo.model.RatingSummary;
 import com.microsoft.hackathon.demo.repository.BookRepository;
+import com.microsoft.hackathon.demo.repository.RatingRepository;
+import com.microsoft.hackathon.demo.repository.RatingSummaryRepository;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
 @Service
 public class BookService {
-    
+
     @Autowired
     BookRepository bookRepository;
 
+    @Autowired
+    RatingRepository ratingRepository;
+
+    @Autowired
+    RatingSummaryRepository ratingSummaryRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    // every book with its authors and ratings, in two queries whatever the number of books: the second one fills the
+    // ratings of the books read by the first one
+    @Transactional(readOnly = true)
+    public List<Book> getAllBooks() {
+        List<Book> books = bookRepository.findAll();
+        bookRepository.findAllWithRatings();
+        return books;
+    }
+
+    // read from the rating summary of the book, whatever its number of ratings
     public double getAverageRating(Long bookId) {
-        Book book = bookRepository.findById(bookId).orElseThrow(() -> new EntityNotFoundException());
+        return summaryOf(bookId).getAverage();
+    }
 
-        List<Rating> ratings = book.getRatings();
-        if (ratings.isEmpty()) {
-            return 0.0;
-        }
+    @Transactional(readOnly = true)
+    public RatingStats getRatingStats(Long bookId) {
+        return ratingSummaryRepository.findWithHistogramByBookId(bookId)
+                .orElseGet(() -> summaryOf(bookId))
+                .toStats();
+    }
 
-        double sum = 0.0;
-        for (Rating rating : ratings) {
-            sum += rating.getScore();
+    // Every book by ascending id, read one fetch at a time in a read-only transaction. Books are detached once
+    // consumed, so that the persistence context does not grow with every book read.
+    @Transactional(readOnly = true)
+    public void forEachBook(Consumer<Book> consumer) {
+        try (Stream<Book> books = bookRepository.streamAllBy()) {
+            books.forEach(book -> {
+                consumer.accept(book);
+                entityManager.detach(book);
+            });
         }
+    }
 
-        return sum / ratings.size();
+    // the summary goes with the book
+    @Transactional
+    public void deleteBook(Long id) {
+        ratingSummaryRepository.findById(id).ifPresent(ratingSummaryRepository::delete);
+        bookRepository.deleteById(id);
+    }
+
+    // the stored summary of the book, or one built from its ratings when none was stored yet
+    private RatingSummary summaryOf(Long bookId) {
+        RatingSummary summary = ratingSummaryRepository.findById(bookId).orElse(null);
+        if (summary != null) {
+            return summary;
+        }
+        if (!bookRepository.existsById(bookId)) {
+            throw new EntityNotFoundException();
+        }
+        return RatingSummary.of(bookId, ratingRepository.findHistogramByBookId(bookId));
     }
 }
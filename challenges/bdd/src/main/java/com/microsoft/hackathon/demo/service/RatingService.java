@@ -0,0 +1,78 @@
+package com.microsoft.hackathon.demo.service;
+
+// add imports
+import com.microsoft.hackathon.demo.model.Book;
+import com.microsoft.hackathon.demo.model.Rating;
+import com.microsoft.hackathon.demo.model.RatingSummary;
+import com.microsoft.hackathon.demo.repository.BookRepository;
+import com.microsoft.hackathon.demo.repository.RatingRepository;
+import com.microsoft.hackathon.demo.repository.RatingSummaryRepository;
+
+import jakarta.persistence.EntityNotFoundException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+
+// Changes to the ratings of a book, made in the same transaction as the matching change to its rating summary. The
+// book is locked first, so that the changes to the ratings of a book, and to its summary, are made one at a time.
+@Service
+public class RatingService {
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    RatingRepository ratingRepository;
+
+    @Autowired
+    RatingSummaryRepository ratingSummaryRepository;
+
+    @Transactional
+    public Rating createRating(Long bookId, Rating rating) {
+        Book book = lockBook(bookId);
+        RatingSummary summary = summaryOf(bookId);
+        // always a new rating, whatever id the request carried
+        rating.setId(null);
+        rating.setBook(book);
+        Rating saved = ratingRepository.save(rating);
+        summary.add(saved.getScore());
+        return saved;
+    }
+
+    @Transactional
+    public Rating updateRating(Long bookId, Long id, int score) {
+        lockBook(bookId);
+        Rating rating = findRating(bookId, id);
+        RatingSummary summary = summaryOf(bookId);
+        summary.remove(rating.getScore());
+        summary.add(score);
+        rating.setScore(score);
+        return rating;
+    }
+
+    @Transactional
+    public void deleteRating(Long bookId, Long id) {
+        lockBook(bookId);
+        Rating rating = findRating(bookId, id);
+        summaryOf(bookId).remove(rating.getScore());
+        ratingRepository.delete(rating);
+    }
+
+    private Book lockBook(Long bookId) {
+        return bookRepository.findLockedById(bookId).orElseThrow(() -> new EntityNotFoundException());
+    }
+
+    private Rating findRating(Long bookId, Long id) {
+        return ratingRepository.findByIdAndBookId(id, bookId)
+                .orElseThrow(() -> new EntityNotFoundException());
+    }
+
+    // the summary of a locked book, built from its ratings when none was stored yet
+    private RatingSummary summaryOf(Long bookId) {
+        return ratingSummaryRepository.findById(bookId)
+                .orElseGet(() -> ratingSummaryRepository.save(
+                        RatingSummary.of(bookId, ratingRepository.findHistogramByBookId(bookId))));
+    }
+}
@@ -0,0 +1,110 @@
+package com.microsoft.hackathon.demo.service;
+
+// add imports
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import com.microsoft.hackathon.demo.model.RatingSummary;
+import com.microsoft.hackathon.demo.repository.BookRepository;
+import com.microsoft.hackathon.demo.repository.RatingRepository;
+import com.microsoft.hackathon.demo.repository.RatingSummaryRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+
+// Rebuilds the rating summaries from the ratings, every ratings.summary.reconcile-interval (an hour by default), and
+// reports the books whose summary had drifted, such as books rated before summaries existed, or ratings changed
+// without going through RatingService.
+@Component
+public class RatingSummaryReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingSummaryReconciler.class);
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    RatingRepository ratingRepository;
+
+    @Autowired
+    RatingSummaryRepository ratingSummaryRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public RatingSummaryReconciler(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Books are first compared without locking, from one grouped query over the ratings and one over the summaries.
+    // Only the books that differ are then locked and rebuilt one by one, each in its own transaction, so that the
+    // ratings changed in the meantime are not mistaken for drift.
+    @Scheduled(fixedDelayString = "${ratings.summary.reconcile-interval:PT1H}",
+            initialDelayString = "${ratings.summary.reconcile-interval:PT1H}")
+    public Report reconcile() {
+        Map<Long, Map<Integer, Long>> histograms = new HashMap<>();
+        for (RatingRepository.BookScoreCount scoreCount : ratingRepository.countScoresByBook()) {
+            histograms.computeIfAbsent(scoreCount.getBookId(), bookId -> new TreeMap<>())
+                    .put(scoreCount.getScore(), scoreCount.getRatings());
+        }
+        Map<Long, RatingSummary> stored = new HashMap<>();
+        for (RatingSummary summary : ratingSummaryRepository.findAllWithHistogram()) {
+            stored.put(summary.getBookId(), summary);
+        }
+
+        Set<Long> bookIds = new TreeSet<>(histograms.keySet());
+        bookIds.addAll(stored.keySet());
+        List<Long> drifted = new ArrayList<>();
+        for (Long bookId : bookIds) {
+            RatingSummary expected = RatingSummary.of(bookId, histograms.getOrDefault(bookId, Map.of()));
+            if (!expected.hasSameCounts(stored.getOrDefault(bookId, new RatingSummary(bookId)))
+                    && Boolean.TRUE.equals(transactionTemplate.execute(status -> rebuild(bookId)))) {
+                drifted.add(bookId);
+            }
+        }
+        if (drifted.isEmpty()) {
+            log.info("Rating summaries of {} books checked, none had drifted", bookIds.size());
+        } else {
+            log.warn("Rating summaries of {} books checked, {} had drifted and were rebuilt: {}",
+                    bookIds.size(), drifted.size(), drifted);
+        }
+        return new Report(bookIds.size(), drifted);
+    }
+
+    // rebuilds the summary of a book from its ratings under the lock of the book, returning whether it had drifted
+    private boolean rebuild(Long bookId) {
+        boolean bookExists = bookRepository.findLockedById(bookId).isPresent();
+        RatingSummary summary = ratingSummaryRepository.findById(bookId).orElse(null);
+        if (!bookExists) {
+            if (summary == null) {
+                return false;
+            }
+            log.warn("Rating summary of deleted book {} removed: {}", bookId, summary);
+            ratingSummaryRepository.delete(summary);
+            return true;
+        }
+        RatingSummary expected = RatingSummary.of(bookId, ratingRepository.findHistogramByBookId(bookId));
+        if (summary == null) {
+            summary = ratingSummaryRepository.save(new RatingSummary(bookId));
+        }
+        String before = summary.toString();
+        if (!summary.reconcileWith(expected)) {
+            return false;
+        }
+        log.warn("Rating summary of book {} drifted: was {}, rebuilt as {}", bookId, before, summary);
+        return true;
+    }
+
+    // number of books whose summary was checked, and the ones that had drifted, by ascending id
+    public record Report(int booksChecked, List<Long> driftedBookIds) {
+    }
+}
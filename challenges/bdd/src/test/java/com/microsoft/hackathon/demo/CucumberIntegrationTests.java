@@ -12,7 +12,9 @@ import io.cucumber.junit.Cucumber;
 @RunWith(Cucumber.class)
 @CucumberOptions(features = "src/test/resources/features")
 @CucumberContextConfiguration
-@SpringBootTest(classes = DemoApplication.class, webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+// statistics are collected for the SQL statement counts of SqlStatementSteps
+@SpringBootTest(classes = DemoApplication.class, webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 public class CucumberIntegrationTests {
     
 }
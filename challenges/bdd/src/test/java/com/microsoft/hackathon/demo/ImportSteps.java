@@ -0,0 +1,106 @@
+package com.microsoft.hackathon.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import jakarta.persistence.EntityManagerFactory;
+
+public class ImportSteps {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private ResponseEntity<String> response;
+    // statements run by the last import
+    private long statements;
+
+    @When("I import as {word}, {int} books at a time")
+    public void iImportAs(String format, int chunkSize, String body) {
+        importBooks(format, chunkSize, body);
+    }
+
+    @When("I import {int} generated books rated {int} and {int} as CSV, {int} books at a time")
+    public void iImportGeneratedBooks(int books, int score, int otherScore, int chunkSize) {
+        StringBuilder body = new StringBuilder("title,authors,ratings\n");
+        for (int i = 0; i < books; i++) {
+            body.append("Import generated ").append(i).append(",Import Generator,")
+                    .append(score).append(';').append(otherScore).append('\n');
+        }
+        importBooks("CSV", chunkSize, body.toString());
+    }
+
+    @Then("{long} books, {long} authors and {long} ratings are imported")
+    public void booksAuthorsAndRatingsAreImported(long books, long authors, long ratings) throws IOException {
+        assertEquals(200, response.getStatusCode().value(), response.getBody());
+        JsonNode report = objectMapper.readTree(response.getBody());
+        assertEquals(books, report.get("books").asLong());
+        assertEquals(authors, report.get("authors").asLong());
+        assertEquals(ratings, report.get("ratings").asLong());
+        assertTrue(report.get("booksPerSecond").asDouble() > 0);
+    }
+
+    @Then("{string} is listed with the authors {string} and an average rating of {double}")
+    public void isListedWithTheAuthorsAndAnAverageRatingOf(String title, String authors, double average)
+            throws IOException {
+        JsonNode book = null;
+        for (JsonNode listed : objectMapper.readTree(restTemplate.getForObject("/books", String.class))) {
+            if (listed.get("title").asText().equals(title)) {
+                book = listed;
+            }
+        }
+        assertTrue(book != null, title + " is not listed");
+        List<String> names = new ArrayList<>();
+        book.get("authors").forEach(author -> names.add(author.get("name").asText()));
+        assertEquals(authors, String.join(", ", names));
+        Double answer = restTemplate.getForObject("/books/" + book.get("id").asLong() + "/ratings/average",
+                Double.class);
+        assertEquals(average, answer, 1e-9);
+    }
+
+    @Then("fewer than {long} SQL statements were run")
+    public void fewerThanSqlStatementsWereRun(long limit) {
+        assertTrue(statements < limit, statements + " statements were run");
+    }
+
+    @Then("the import is rejected at line {long}, after {long} books were imported")
+    public void theImportIsRejectedAtLine(long line, long books) throws IOException {
+        assertEquals(400, response.getStatusCode().value());
+        JsonNode error = objectMapper.readTree(response.getBody());
+        assertTrue(error.get("error").asText().startsWith("line " + line + ": "), error.get("error").asText());
+        assertEquals(books, error.get("imported").get("books").asLong());
+    }
+
+    private void importBooks(String format, int chunkSize, String body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(format.equals("CSV") ? new MediaType("text", "csv") : MediaType.APPLICATION_NDJSON);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        response = restTemplate.postForEntity("/books/import?chunkSize=" + chunkSize,
+                new HttpEntity<>(body, headers), String.class);
+        statements = statistics.getPrepareStatementCount();
+    }
+}
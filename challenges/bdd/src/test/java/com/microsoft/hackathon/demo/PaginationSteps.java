@@ -0,0 +1,174 @@
+package com.microsoft.hackathon.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.cucumber.java.ParameterType;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+public class PaginationSteps {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private long bookId;
+    // the rows read, across all pages
+    private final List<JsonNode> rows = new ArrayList<>();
+    private int pages;
+    // the path of the rows read, to list them all without paging
+    private String listing;
+    private ResponseEntity<String> response;
+
+    // lists are written as 3, 5 and 1, or "Dune" and "Emma"
+    @ParameterType(".+")
+    public List<String> listOfStrings(String list) {
+        List<String> items = new ArrayList<>();
+        for (String item : list.split(", | and ")) {
+            items.add(item.trim().replaceAll("^\"|\"$", ""));
+        }
+        return items;
+    }
+
+    @Given("a book with ratings of {listOfStrings}")
+    public void aBookWithRatingsOf(List<String> scores) throws IOException {
+        bookId = post("/books", Map.of("title", "Paged ratings")).get("id").asLong();
+        for (String score : scores) {
+            post("/books/" + bookId + "/ratings", Map.of("score", Integer.parseInt(score)));
+        }
+    }
+
+    @Given("books titled {listOfStrings}")
+    public void booksTitled(List<String> titles) throws IOException {
+        for (String title : titles) {
+            post("/books", Map.of("title", title));
+        }
+    }
+
+    @Given("authors named {listOfStrings}")
+    public void authorsNamed(List<String> names) throws IOException {
+        for (String name : names) {
+            post("/authors", Map.of("name", name));
+        }
+    }
+
+    @When("I page through the ratings of the book by {word} {word}, {int} at a time")
+    public void iPageThroughTheRatingsOfTheBook(String sort, String direction, int limit) throws IOException {
+        pageThrough("/books/" + bookId + "/ratings", sort, direction, limit);
+    }
+
+    @When("I page through the books by {word} {word}, {int} at a time")
+    public void iPageThroughTheBooks(String sort, String direction, int limit) throws IOException {
+        pageThrough("/books", sort, direction, limit);
+    }
+
+    @When("I page through the authors by {word} {word}, {int} at a time")
+    public void iPageThroughTheAuthors(String sort, String direction, int limit) throws IOException {
+        pageThrough("/authors", sort, direction, limit);
+    }
+
+    @When("I stream the books")
+    public void iStreamTheBooks() throws IOException {
+        listing = "/books";
+        ResponseEntity<String> streamed = restTemplate.getForEntity("/books?stream=true", String.class);
+        assertEquals(200, streamed.getStatusCode().value());
+        objectMapper.readTree(streamed.getBody()).forEach(rows::add);
+    }
+
+    @When("I request the books page {string}")
+    public void iRequestTheBooksPage(String query) {
+        response = restTemplate.getForEntity("/books?" + query, String.class);
+    }
+
+    @Then("{int} pages are read")
+    public void pagesAreRead(int count) {
+        assertEquals(count, pages);
+    }
+
+    @Then("the scores read are {listOfStrings}")
+    public void theScoresReadAre(List<String> scores) {
+        assertEquals(scores, rows.stream().map(row -> row.get("score").asText()).toList());
+    }
+
+    @Then("every book is read once")
+    public void everyBookIsReadOnce() throws IOException {
+        everyRowIsReadOnce();
+    }
+
+    @Then("every author is read once")
+    public void everyAuthorIsReadOnce() throws IOException {
+        everyRowIsReadOnce();
+    }
+
+    @Then("every book is read once, by ascending id")
+    public void everyBookIsReadOnceByAscendingId() throws IOException {
+        everyRowIsReadOnce();
+        List<Long> ids = ids(rows);
+        assertEquals(ids.stream().sorted().toList(), ids);
+    }
+
+    @Then("{listOfStrings} are read in that order")
+    public void areReadInThatOrder(List<String> names) {
+        List<String> read = rows.stream()
+                .map(row -> row.has("title") ? row.get("title").asText() : row.get("name").asText())
+                .filter(names::contains)
+                .toList();
+        assertEquals(names, read);
+    }
+
+    @Then("the page request is rejected as a bad request")
+    public void thePageRequestIsRejectedAsABadRequest() {
+        assertEquals(400, response.getStatusCode().value());
+    }
+
+    // reads every page, following the cursors until the last page
+    private void pageThrough(String path, String sort, String direction, int limit) throws IOException {
+        listing = path;
+        String cursor = null;
+        do {
+            String url = path + "?limit=" + limit + "&sort=" + sort + "&direction=" + direction
+                    + (cursor == null ? "" : "&cursor=" + cursor);
+            ResponseEntity<String> page = restTemplate.getForEntity(url, String.class);
+            assertEquals(200, page.getStatusCode().value());
+            JsonNode body = objectMapper.readTree(page.getBody());
+            body.get("items").forEach(rows::add);
+            pages++;
+            cursor = body.get("nextCursor").isNull() ? null : body.get("nextCursor").asText();
+        } while (cursor != null);
+    }
+
+    // the ids read are the ids listed without paging, each once
+    private void everyRowIsReadOnce() throws IOException {
+        List<Long> ids = ids(rows);
+        assertEquals(ids.size(), new HashSet<>(ids).size(), "rows read more than once: " + ids);
+        List<JsonNode> all = new ArrayList<>();
+        objectMapper.readTree(restTemplate.getForObject(listing, String.class)).forEach(all::add);
+        assertEquals(new HashSet<>(ids(all)), new HashSet<>(ids));
+    }
+
+    private static List<Long> ids(List<JsonNode> rows) {
+        return rows.stream().map(row -> row.get("id").asLong()).toList();
+    }
+
+    private JsonNode post(String path, Object request) throws IOException {
+        ResponseEntity<String> created = restTemplate.postForEntity(path, request, String.class);
+        assertEquals(200, created.getStatusCode().value());
+        return objectMapper.readTree(created.getBody());
+    }
+}
@@ -0,0 +1,177 @@
+package com.microsoft.hackathon.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.cucumber.datatable.DataTable;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+public class RatingStatsSteps {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long bookId;
+    // the ratings of the book, as created by the scenario
+    private final List<JsonNode> ratings = new ArrayList<>();
+    private ResponseEntity<String> response;
+    private JsonNode reconciliation;
+
+    // the scores are listed as "5, 4 and 1", or "nothing" for a book without ratings
+    @Given("^a book titled \"([^\"]*)\" rated (.+)$")
+    public void aBookTitledRated(String title, String scores) throws IOException {
+        JsonNode book = post("/books", Map.of("title", title));
+        bookId = book.get("id").asLong();
+        if (scores.equals("nothing")) {
+            return;
+        }
+        for (String score : scores.split(",| and ")) {
+            ratings.add(post("/books/" + bookId + "/ratings", Map.of("score", Integer.parseInt(score.trim()))));
+        }
+    }
+
+    @Given("a rating of {int} was added to the book without going through the application")
+    public void aRatingWasAddedToTheBookWithoutGoingThroughTheApplication(int score) {
+        jdbcTemplate.update("insert into rating (id, score, book_id) values (next value for rating_seq, ?, ?)",
+                score, bookId);
+    }
+
+    @When("the rating of {int} is changed to {int}")
+    public void theRatingOfIsChangedTo(int score, int newScore) {
+        ResponseEntity<String> updated = restTemplate.exchange("/books/" + bookId + "/ratings/" + ratingId(score),
+                HttpMethod.PUT, new HttpEntity<>(Map.of("score", newScore)), String.class);
+        assertEquals(200, updated.getStatusCode().value());
+    }
+
+    @When("the rating of {int} is deleted")
+    public void theRatingOfIsDeleted(int score) {
+        ResponseEntity<String> deleted = restTemplate.exchange("/books/" + bookId + "/ratings/" + ratingId(score),
+                HttpMethod.DELETE, null, String.class);
+        assertEquals(200, deleted.getStatusCode().value());
+    }
+
+    @When("the rating summaries are reconciled")
+    public void theRatingSummariesAreReconciled() throws IOException {
+        reconciliation = post("/ratings/summaries/reconcile", Map.of());
+    }
+
+    @Then("the book is reported as drifted")
+    public void theBookIsReportedAsDrifted() {
+        List<Long> drifted = new ArrayList<>();
+        reconciliation.get("driftedBookIds").forEach(id -> drifted.add(id.asLong()));
+        assertEquals(List.of(bookId), drifted);
+    }
+
+    @Then("no book is reported as drifted")
+    public void noBookIsReportedAsDrifted() {
+        assertEquals(0, reconciliation.get("driftedBookIds").size());
+    }
+
+    @When("I request the rating statistics of the book")
+    public void iRequestTheRatingStatisticsOfTheBook() {
+        iRequestTheRatingStatisticsOfBook(bookId);
+    }
+
+    @When("I request the rating statistics of book {long}")
+    public void iRequestTheRatingStatisticsOfBook(long id) {
+        response = restTemplate.getForEntity("/books/" + id + "/ratings/stats", String.class);
+    }
+
+    @Then("the response status is {int}")
+    public void theResponseStatusIs(int status) {
+        assertEquals(status, response.getStatusCode().value());
+    }
+
+    @Then("the rating count is {long}")
+    public void theRatingCountIs(long count) throws IOException {
+        assertEquals(count, body().get("count").asLong());
+    }
+
+    @Then("the average rating is {double}")
+    public void theAverageRatingIs(double average) throws IOException {
+        assertEquals(average, body().get("average").asDouble(), 1e-9);
+    }
+
+    @Then("the score variance is {double}")
+    public void theScoreVarianceIs(double variance) throws IOException {
+        assertEquals(variance, body().get("variance").asDouble(), 1e-9);
+    }
+
+    @Then("the lowest score is {int} and the highest score is {int}")
+    public void theLowestScoreIsAndTheHighestScoreIs(int min, int max) throws IOException {
+        assertEquals(min, body().get("min").asInt());
+        assertEquals(max, body().get("max").asInt());
+    }
+
+    @Then("there is no lowest or highest score")
+    public void thereIsNoLowestOrHighestScore() throws IOException {
+        assertTrue(body().get("min").isNull());
+        assertTrue(body().get("max").isNull());
+    }
+
+    @Then("the score histogram is")
+    public void theScoreHistogramIs(DataTable table) throws IOException {
+        List<Map<String, String>> rows = table.asMaps();
+        Iterator<Map.Entry<String, JsonNode>> histogram = body().get("histogram").fields();
+        for (Map<String, String> row : rows) {
+            assertTrue(histogram.hasNext(), "missing score " + row.get("score"));
+            Map.Entry<String, JsonNode> bucket = histogram.next();
+            assertEquals(row.get("score"), bucket.getKey());
+            assertEquals(Long.parseLong(row.get("ratings")), bucket.getValue().asLong());
+        }
+        assertTrue(!histogram.hasNext(), "unexpected scores in " + body().get("histogram"));
+    }
+
+    @Then("the score histogram is empty")
+    public void theScoreHistogramIsEmpty() throws IOException {
+        assertEquals(0, body().get("histogram").size());
+    }
+
+    @Then("the average rating endpoint answers {double}")
+    public void theAverageRatingEndpointAnswers(double average) {
+        Double answer = restTemplate.getForObject("/books/" + bookId + "/ratings/average", Double.class);
+        assertEquals(average, answer, 1e-9);
+    }
+
+    private JsonNode post(String path, Object request) throws IOException {
+        ResponseEntity<String> created = restTemplate.postForEntity(path, request, String.class);
+        assertEquals(200, created.getStatusCode().value());
+        return objectMapper.readTree(created.getBody());
+    }
+
+    private long ratingId(int score) {
+        return ratings.stream()
+                .filter(rating -> rating.get("score").asInt() == score)
+                .findFirst()
+                .orElseThrow()
+                .get("id").asLong();
+    }
+
+    private JsonNode body() throws IOException {
+        return objectMapper.readTree(response.getBody());
+    }
+}
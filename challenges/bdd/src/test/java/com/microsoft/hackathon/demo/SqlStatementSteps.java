@@ -0,0 +1,93 @@
+package com.microsoft.hackathon.demo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.cucumber.java.en.And;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import jakarta.persistence.EntityManagerFactory;
+
+public class SqlStatementSteps {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private long bookId;
+    private long ratingId;
+    // statements run by the last request
+    private long statements;
+
+    @Given("a book with {int} authors and {int} ratings")
+    public void aBookWithAuthorsAndRatings(int authors, int ratings) throws IOException {
+        List<Map<String, Object>> authorIds = new ArrayList<>();
+        for (int i = 0; i < authors; i++) {
+            authorIds.add(Map.of("id", post("/authors", Map.of("name", "Author " + i)).get("id").asLong()));
+        }
+        JsonNode book = post("/books", Map.of("title", "Counted", "authors", authorIds));
+        assertEquals(authors, book.get("authors").size());
+        bookId = book.get("id").asLong();
+        for (int i = 0; i < ratings; i++) {
+            ratingId = post("/books/" + bookId + "/ratings", Map.of("score", i + 1)).get("id").asLong();
+        }
+    }
+
+    @And("{int} more books with {int} authors and {int} ratings are created")
+    public void moreBooksWithAuthorsAndRatingsAreCreated(int books, int authors, int ratings) throws IOException {
+        for (int i = 0; i < books; i++) {
+            aBookWithAuthorsAndRatings(authors, ratings);
+        }
+    }
+
+    @When("I request {string}")
+    public void iRequest(String path) {
+        statements = countStatements(path);
+    }
+
+    @Then("{long} SQL statements are run")
+    public void sqlStatementsAreRun(long expected) {
+        assertEquals(expected, statements);
+    }
+
+    @Then("requesting {string} again runs as many SQL statements")
+    public void requestingAgainRunsAsManySqlStatements(String path) {
+        assertEquals(statements, countStatements(path));
+    }
+
+    // the statements prepared while answering the request, {book} and {rating} standing for the ids created
+    private long countStatements(String path) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        ResponseEntity<String> response = restTemplate.getForEntity(
+                path.replace("{book}", String.valueOf(bookId)).replace("{rating}", String.valueOf(ratingId)),
+                String.class);
+        assertEquals(200, response.getStatusCode().value());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private JsonNode post(String path, Object request) throws IOException {
+        ResponseEntity<String> created = restTemplate.postForEntity(path, request, String.class);
+        assertEquals(200, created.getStatusCode().value());
+        return objectMapper.readTree(created.getBody());
+    }
+}
@@ -0,0 +1,125 @@
+package com.microsoft.hackathon.demo.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.microsoft.hackathon.demo.DemoApplication;
+import com.microsoft.hackathon.demo.model.Book;
+import com.microsoft.hackathon.demo.model.Rating;
+import com.microsoft.hackathon.demo.model.RatingStats;
+import com.microsoft.hackathon.demo.repository.BookRepository;
+import com.microsoft.hackathon.demo.repository.RatingRepository;
+import com.microsoft.hackathon.demo.service.BookService;
+import com.microsoft.hackathon.demo.service.RatingSummaryReconciler;
+
+/**
+ * Average rating of a book with {@code ratings} ratings, on an in-memory H2 database seeded with that book and
+ * another one rated as many times: loading the book and summing its ratings in Java, as
+ * {@code BookService.getAverageRating} first did, the aggregate query of {@code RatingRepository}, and the rating
+ * summary that {@code BookService} now reads. Run with {@code -prof gc} to compare allocations too.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args=RatingAggregation
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RatingAggregationBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int ratings;
+
+    private ConfigurableApplicationContext context;
+    private BookRepository bookRepository;
+    private RatingRepository ratingRepository;
+    private BookService bookService;
+    private TransactionTemplate readOnly;
+    private long bookId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(DemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.main.banner-mode=off", "logging.level.root=WARN")
+                .run();
+        bookRepository = context.getBean(BookRepository.class);
+        ratingRepository = context.getBean(RatingRepository.class);
+        bookService = context.getBean(BookService.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        bookId = bookRepository.save(new Book("Rated", new ArrayList<>())).getId();
+        long otherBookId = bookRepository.save(new Book("Also rated", new ArrayList<>())).getId();
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>(2 * ratings);
+        for (int i = 0; i < ratings; i++) {
+            rows.add(new Object[]{1 + random.nextInt(5), bookId});
+            rows.add(new Object[]{1 + random.nextInt(5), otherBookId});
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate(
+                "insert into rating (id, score, book_id) values (next value for rating_seq, ?, ?)", rows);
+        // the ratings were inserted behind the back of RatingService, their summaries are built by reconciliation
+        context.getBean(RatingSummaryReconciler.class).reconcile();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public double loadAndSum() {
+        // a new transaction, hence a new persistence context: the book and its ratings are loaded every time
+        return readOnly.execute(status -> {
+            Book book = bookRepository.findById(bookId).orElseThrow();
+            List<Rating> bookRatings = book.getRatings();
+            if (bookRatings.isEmpty()) {
+                return 0.0;
+            }
+            double sum = 0.0;
+            for (Rating rating : bookRatings) {
+                sum += rating.getScore();
+            }
+            return sum / bookRatings.size();
+        });
+    }
+
+    @Benchmark
+    public Double aggregateQuery() {
+        return ratingRepository.findAverageScoreByBookId(bookId);
+    }
+
+    @Benchmark
+    public double summary() {
+        return bookService.getAverageRating(bookId);
+    }
+
+    @Benchmark
+    public RatingStats summaryStats() {
+        return bookService.getRatingStats(bookId);
+    }
+}
@@ -0,0 +1,42 @@
+Feature: Bulk import
+  As a librarian, I want to import a whole catalog of books, with their authors and ratings, in a single request, so
+  that loading it does not take one request per book and per rating.
+
+  Scenario: Importing books as NDJSON
+    When I import as NDJSON, 2 books at a time
+      """
+      {"title": "Import Dune", "authors": ["Import Herbert"], "ratings": [5, 4]}
+      {"title": "Import Good Omens", "authors": ["Import Pratchett", "Import Gaiman"], "ratings": [5]}
+
+      {"title": "Import Dune Messiah", "authors": ["Import Herbert"]}
+      """
+    Then 3 books, 3 authors and 3 ratings are imported
+    And "Import Dune" is listed with the authors "Import Herbert" and an average rating of 4.5
+    And "Import Good Omens" is listed with the authors "Import Pratchett, Import Gaiman" and an average rating of 5.0
+    And "Import Dune Messiah" is listed with the authors "Import Herbert" and an average rating of 0.0
+
+  Scenario: Importing books as CSV
+    When I import as CSV, 500 books at a time
+      """
+      ratings,title,authors
+      3;4,"Import Emma, a novel",Import Austen
+      ,"Import ""Persuasion""",Import Austen;Import Nobody
+      """
+    Then 2 books, 2 authors and 2 ratings are imported
+    And "Import Emma, a novel" is listed with the authors "Import Austen" and an average rating of 3.5
+    And "Import \"Persuasion\"" is listed with the authors "Import Austen, Import Nobody" and an average rating of 0.0
+
+  Scenario: Importing many books in batches
+    When I import 1000 generated books rated 5 and 3 as CSV, 250 books at a time
+    Then 1000 books, 1 authors and 2000 ratings are imported
+    And fewer than 150 SQL statements were run
+
+  Scenario: Importing a malformed line
+    When I import as NDJSON, 1 books at a time
+      """
+      {"title": "Import Kept", "ratings": [4]}
+      {"title": "Import Rejected", "ratings": ["four"]}
+      {"title": "Import Never read"}
+      """
+    Then the import is rejected at line 2, after 1 books were imported
+    And "Import Kept" is listed with the authors "" and an average rating of 4.0
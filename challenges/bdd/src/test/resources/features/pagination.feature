@@ -0,0 +1,45 @@
+Feature: Pagination
+  As a user, I want to read long lists of books, authors and ratings a page at a time, so that I only wait for what
+  I look at. Pages are read after the cursor returned with the previous page, in the order asked for, and list the
+  id and title of books, the id and name of authors, and the id and score of ratings.
+
+  Scenario: Paging through the ratings of a book by descending score
+    Given a book with ratings of 3, 5, 1, 5 and 2
+    When I page through the ratings of the book by score desc, 2 at a time
+    Then 3 pages are read
+    And the scores read are 5, 5, 3, 2 and 1
+
+  Scenario: Paging through the books by title
+    Given books titled "Paging Zeta", "Paging Alpha" and "Paging Mid"
+    When I page through the books by title asc, 2 at a time
+    Then every book is read once
+    And "Paging Alpha", "Paging Mid" and "Paging Zeta" are read in that order
+
+  Scenario: Paging through the books by descending id
+    Given books titled "Paging One", "Paging Two" and "Paging Three"
+    When I page through the books by id desc, 2 at a time
+    Then every book is read once
+    And "Paging Three", "Paging Two" and "Paging One" are read in that order
+
+  Scenario: Paging through the authors by name
+    Given authors named "Paging Herbert", "Paging Asimov" and "Paging Le Guin"
+    When I page through the authors by name asc, 2 at a time
+    Then every author is read once
+    And "Paging Asimov", "Paging Herbert" and "Paging Le Guin" are read in that order
+
+  Scenario: Streaming every book
+    Given books titled "Streamed One" and "Streamed Two"
+    When I stream the books
+    Then every book is read once, by ascending id
+
+  Scenario Outline: Invalid page requests
+    When I request the books page "<query>"
+    Then the page request is rejected as a bad request
+
+    Examples:
+      | query                       |
+      | limit=0                     |
+      | limit=1001                  |
+      | limit=10&sort=isbn          |
+      | limit=10&direction=up       |
+      | limit=10&cursor=not-a-cursor |
@@ -0,0 +1,54 @@
+Feature: Rating statistics
+  As a user, I want to see how a book was rated, so that I can tell at a glance whether it is worth reading.
+  The statistics of a book are its number of ratings, their average, lowest and highest score, and how many
+  ratings every score got.
+
+  Scenario: Statistics of a rated book
+    Given a book titled "Dune" rated 5, 4, 4 and 1
+    When I request the rating statistics of the book
+    Then the response status is 200
+    And the rating count is 4
+    And the average rating is 3.5
+    And the score variance is 2.25
+    And the lowest score is 1 and the highest score is 5
+    And the score histogram is
+      | score | ratings |
+      | 1     | 1       |
+      | 4     | 2       |
+      | 5     | 1       |
+    And the average rating endpoint answers 3.5
+
+  Scenario: Statistics of a book without ratings
+    Given a book titled "Untitled draft" rated nothing
+    When I request the rating statistics of the book
+    Then the response status is 200
+    And the rating count is 0
+    And the average rating is 0.0
+    And there is no lowest or highest score
+    And the score histogram is empty
+
+  Scenario: Statistics follow the changes to the ratings
+    Given a book titled "Hyperion" rated 2, 3 and 5
+    When the rating of 2 is changed to 4
+    And the rating of 5 is deleted
+    And I request the rating statistics of the book
+    Then the rating count is 2
+    And the average rating is 3.5
+    And the score variance is 0.25
+    And the lowest score is 3 and the highest score is 4
+    And the average rating endpoint answers 3.5
+
+  Scenario: Reconciliation rebuilds the summaries that drifted
+    Given a book titled "Foundation" rated 3 and 5
+    And a rating of 1 was added to the book without going through the application
+    When the rating summaries are reconciled
+    Then the book is reported as drifted
+    When I request the rating statistics of the book
+    Then the rating count is 3
+    And the average rating is 3.0
+    When the rating summaries are reconciled
+    Then no book is reported as drifted
+
+  Scenario: Statistics of an unknown book
+    When I request the rating statistics of book 999999
+    Then the response status is 404
@@ -0,0 +1,23 @@
+Feature: SQL statements per request
+  As a maintainer, I want every request to run a fixed number of SQL statements, so that listing more books, authors
+  or ratings does not mean running one more query per row.
+
+  Scenario Outline: Statements run by a request
+    Given a book with 2 authors and 3 ratings
+    When I request "<path>"
+    Then <statements> SQL statements are run
+
+    Examples:
+      | path                           | statements |
+      | /books                         | 2          |
+      | /books/{book}                  | 2          |
+      | /books/{book}/ratings          | 2          |
+      | /books/{book}/ratings/{rating} | 1          |
+      | /books/{book}/ratings/stats    | 1          |
+      | /authors                       | 1          |
+
+  Scenario: Listing the books does not run more statements for more books
+    Given a book with 2 authors and 3 ratings
+    When I request "/books"
+    And 10 more books with 2 authors and 3 ratings are created
+    Then requesting "/books" again runs as many SQL statements
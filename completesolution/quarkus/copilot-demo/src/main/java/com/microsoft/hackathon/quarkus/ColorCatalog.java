@@ -0,0 +1,144 @@
+package com.microsoft.hackathon.quarkus;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.quarkus.runtime.Startup;
+
+/*
+* Immutable, in-memory index of the colors catalog, built once at startup.
+*
+* The catalog is read from the classpath colors.json, or from the file configured with colors.catalog.path.
+* It is kept as an exact hash index, so lookups never allocate.
+* An external catalog file is polled every colors.catalog.reload-interval and swapped in when it changes;
+* a file that fails to parse is logged and the previous snapshot keeps being served.
+*/
+@Startup
+@Singleton
+public class ColorCatalog {
+
+    private static final Logger LOG = Logger.getLogger(ColorCatalog.class);
+    private static final String CLASSPATH_CATALOG = "colors.json";
+
+    private final ObjectMapper mapper;
+    private final Path externalCatalog;
+    private final ScheduledExecutorService reloader;
+
+    private volatile Map<String, String> colors;
+    private volatile FileTime loadedModifiedTime;
+
+    public ColorCatalog(ObjectMapper mapper,
+                        @ConfigProperty(name = "colors.catalog.path") Optional<String> catalogPath,
+                        @ConfigProperty(name = "colors.catalog.reload-interval", defaultValue = "5s") Duration reloadInterval) {
+        this.mapper = mapper;
+        this.externalCatalog = catalogPath.filter(path -> !path.isBlank()).map(Paths::get).orElse(null);
+
+        if (externalCatalog == null) {
+            this.colors = loadClasspathCatalog();
+            this.reloader = null;
+        } else {
+            this.loadedModifiedTime = lastModified(externalCatalog);
+            this.colors = loadExternalCatalog(externalCatalog);
+            this.reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "color-catalog-reloader");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMillis = reloadInterval.toMillis();
+            reloader.scheduleWithFixedDelay(this::reloadIfChanged, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        LOG.infof("Loaded %d colors from %s", colors.size(), externalCatalog != null ? externalCatalog : "classpath");
+    }
+
+    // returns the hexadecimal code of the color with exactly the given name, or null if there is none
+    public String findHex(String name) {
+        return colors.get(name);
+    }
+
+    public int size() {
+        return colors.size();
+    }
+
+    void reloadIfChanged() {
+        try {
+            FileTime modifiedTime = lastModified(externalCatalog);
+            if (modifiedTime.equals(loadedModifiedTime)) {
+                return;
+            }
+            Map<String, String> reloaded = loadExternalCatalog(externalCatalog);
+            colors = reloaded;
+            loadedModifiedTime = modifiedTime;
+            LOG.infof("Reloaded %d colors from %s", reloaded.size(), externalCatalog);
+        } catch (RuntimeException e) {
+            LOG.warnf(e, "Error reloading colors catalog %s, keeping the previous one", externalCatalog);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+        }
+    }
+
+    private Map<String, String> loadClasspathCatalog() {
+        try (InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream(CLASSPATH_CATALOG)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("Colors catalog not found on classpath: " + CLASSPATH_CATALOG);
+            }
+            return index(mapper.readTree(inputStream));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading colors file", e);
+        }
+    }
+
+    private Map<String, String> loadExternalCatalog(Path path) {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            return index(mapper.readTree(inputStream));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading colors file: " + path, e);
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading colors file: " + path, e);
+        }
+    }
+
+    // snapshot of the catalog, the first hexadecimal code of every color name
+    private static Map<String, String> index(JsonNode colors) {
+        Map<String, String> exact = new HashMap<>();
+        for (JsonNode color : colors) {
+            JsonNode name = color.get("color");
+            JsonNode hex = color.path("code").get("hex");
+            if (name != null && hex != null) {
+                exact.putIfAbsent(name.asText(), hex.asText());
+            }
+        }
+        return Map.copyOf(exact);
+    }
+}
@@ -1,33 +1,41 @@
 package com.microsoft.hackathon.quarkus;
 
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
-import jakarta.ws.rs.client.Client;
-import jakarta.ws.rs.client.ClientBuilder;
-import jakarta.ws.rs.client.WebTarget;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletionStage;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
-import io.quarkus.fs.util.ZipUtils;
 
 
 
@@ -46,6 +54,42 @@ import io.quarkus.fs.util.ZipUtils;
 @Path("/")
 public class DemoResource {
 
+    private static final int MAX_LIST_LIMIT = 10_000;
+    private static final int MAX_DIFF_DATES_BATCH = 100_000;
+
+    @Inject
+    ColorCatalog colorCatalog;
+
+    @Inject
+    WordCounter wordCounter;
+
+    @Inject
+    ZipArchiveCache zipArchiveCache;
+
+    @Inject
+    FolderZipper folderZipper;
+
+    @Inject
+    JokeClient jokeClient;
+
+    @Inject
+    DirectoryLister directoryLister;
+
+    @Inject
+    SpanishIdValidator spanishIdValidator;
+
+    @Inject
+    UrlParser urlParser;
+
+    @Inject
+    DateDiffEngine dateDiffEngine;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    DemoMetrics metrics;
+
     @GET
     @Path("/hello")
     @Produces(MediaType.TEXT_PLAIN)
@@ -67,17 +111,31 @@ public class DemoResource {
         Objects.requireNonNull(date2, "date2 must not be null");
 
         try {
-            SimpleDateFormat dateFormat = new SimpleDateFormat("dd-MM-yyyy");
-            Date date1Obj = dateFormat.parse(date1);
-            Date date2Obj = dateFormat.parse(date2);
-            long diffMillis = Math.abs(date1Obj.getTime() - date2Obj.getTime());
-            long diffDays = diffMillis / (24 * 60 * 60 * 1000);
-            return String.valueOf(diffDays);
-        } catch (Exception e) {
+            return String.valueOf(dateDiffEngine.daysBetween(date1, date2));
+        } catch (IllegalArgumentException e) {
             return "invalid date format";
         }
     }
 
+    // Batch variant of /diffdates for reporting jobs: takes a JSON array of {"date1": ..., "date2": ...} pairs (at most 100000) and returns the difference in days of each pair, in order, or null for the pairs with an invalid date.
+
+    @POST
+    @Path("/diffdates/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public String diffdatesBatch(String body) throws JsonProcessingException {
+        DateDiffEngine.DatePair[] pairs;
+        try {
+            pairs = objectMapper.readValue(body, DateDiffEngine.DatePair[].class);
+        } catch (JsonProcessingException e) {
+            throw new WebApplicationException("Invalid date pairs", Response.Status.BAD_REQUEST);
+        }
+        if (pairs.length > MAX_DIFF_DATES_BATCH) {
+            throw new WebApplicationException("Too many date pairs: " + pairs.length, Response.Status.BAD_REQUEST);
+        }
+        return objectMapper.writeValueAsString(dateDiffEngine.daysBetween(Arrays.asList(pairs)));
+    }
+
     // Validate the format of a spanish phone number (+34 prefix, then 9 digits, starting with 6, 7 or 9). The operation should receive a phone number as parameter and return true if the format is correct, false otherwise. 
 
     @GET
@@ -85,26 +143,18 @@ public class DemoResource {
     @Produces(MediaType.TEXT_PLAIN)
     public boolean validatephone(@QueryParam("phone") String phone) {
         Objects.requireNonNull(phone, "phone must not be null");
-        if (!phone.matches("\\+34[679]\\d{8}")) {
-            return false;
-        }
-
-        return true;
+        return spanishIdValidator.isValidPhone(phone);
     }
 
     // Validate the format of a spanish DNI (8 digits and 1 letter). The operation should receive a DNI as parameter and return true if the format is correct, false otherwise. 
+    // The letter must be the control letter of the number.
 
     @GET
     @Path("/validatedni")
     @Produces(MediaType.TEXT_PLAIN)
     public boolean validatedni(@QueryParam("dni") String dni) {
         Objects.requireNonNull(dni, "dni must not be null");
-
-        if (!dni.matches("\\d{8}[A-Z]")) {
-            return false;
-        }
-
-        return true;
+        return spanishIdValidator.isValidDni(dni);
     }
 
     // Based on existing colors.json file under resources, given the name of the color as path parameter, return the hexadecimal code. If the color is not found, return 404
@@ -114,18 +164,10 @@ public class DemoResource {
     @Produces(MediaType.TEXT_PLAIN)
     public Response color(@QueryParam("name") String name) {
         Objects.requireNonNull(name, "name must not be null");
-        ObjectMapper mapper = new ObjectMapper();
-        try {
-            InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("colors.json");
-            JsonNode root = mapper.readTree(inputStream);
-            for (JsonNode color : root) {
-                if (color.get("color").asText().equals(name)) {
-                    ObjectNode code = (ObjectNode) color.get("code");
-                    return Response.ok(code.get("hex").asText()).build();
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+        String hex = colorCatalog.findHex(name);
+        metrics.recordColorLookup(hex != null);
+        if (hex != null) {
+            return Response.ok(hex).build();
         }
         // return http 404
         return Response.status(Response.Status.NOT_FOUND).build();
@@ -137,46 +179,62 @@ public class DemoResource {
     @GET
     @Path("/chucknorris")
     @Produces(MediaType.TEXT_PLAIN)
-    public String chucknorris() {
-        // create a new instance of the Resteasy client
-        Client client = ClientBuilder.newClient();
-        // create a new target
-        WebTarget target = client.target("https://api.chucknorris.io/jokes/random");
-        // send the request and get the response
-        Response response = target.request(MediaType.APPLICATION_JSON).get();
-        // parse the response
-        ObjectMapper mapper = new ObjectMapper();
-        try {
-            JsonNode root = mapper.readTree(response.readEntity(String.class));
-            return root.get("value").asText();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return "error";
-    }    
+    public CompletionStage<String> chucknorris() {
+        // the shared, non-blocking client usually answers straight from its prefetch buffer
+        return jokeClient.joke()
+            .onItem().ifNull().continueWith("error")
+            .onFailure().transform(e -> new WebApplicationException(e, Response.Status.BAD_GATEWAY))
+            .subscribeAsCompletionStage();
+    }
 
     // Given a url as query parameter, parse it and return the protocol, host, port, path and query parameters. The response should be in Json format.
 
+    // The url is split by UrlParser, without resolving its host, and written with a streaming JSON generator.
+
     @GET
     @Path("/parseurl")
     @Produces(MediaType.APPLICATION_JSON)
     public Response parseurl(@QueryParam("url") String url) {
         Objects.requireNonNull(url, "url must not be null");
-        ObjectMapper mapper = new ObjectMapper();
+        UrlParser.ParsedUrl parsedUrl = urlParser.parse(url);
+        if (parsedUrl == null) {
+            throw new WebApplicationException("invalid url", Response.Status.BAD_REQUEST);
+        }
+        StreamingOutput stream = output -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+            parsedUrl.writeJson(generator);
+            // flushed rather than closed, the response stream belongs to the container
+            generator.flush();
+        };
+        return Response.ok(stream, MediaType.APPLICATION_JSON).build();
+    }
+
+    // Batch variant of /parseurl for log processing: takes a JSON array of urls and streams back an array with the components of each of them, in order, or null for the invalid ones.
+
+    @POST
+    @Path("/parseurl/batch")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response parseurlBatch(InputStream body) throws IOException {
+        JsonParser urls = objectMapper.getFactory().createParser(body);
+        boolean isArray;
         try {
-            URL urlNode = new URL(url);
-            JsonNode root = mapper.createObjectNode();
-            ((ObjectNode) root).put("protocol", urlNode.getProtocol());
-            ((ObjectNode) root).put("host", urlNode.getHost());
-            ((ObjectNode) root).put("port", urlNode.getPort());
-            ((ObjectNode) root).put("path", urlNode.getPath());
-            ((ObjectNode) root).put("query", urlNode.getQuery());
-            return Response.ok(root).build();
-        } catch (IOException e) {
-            e.printStackTrace();
+            isArray = urls.nextToken() == JsonToken.START_ARRAY;
+        } catch (JsonProcessingException e) {
+            isArray = false;
         }
-        // return http 500
-        return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
+        if (!isArray) {
+            urls.close();
+            throw new WebApplicationException("expected a JSON array of urls", Response.Status.BAD_REQUEST);
+        }
+        StreamingOutput stream = output -> {
+            try (urls) {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+                urlParser.parseAll(urls, generator);
+                generator.flush();
+            }
+        };
+        return Response.ok(stream, MediaType.APPLICATION_JSON).build();
     }
 
     // List files and folders under a given path. The path should be a query parameter. The response should be in Json format.
@@ -184,11 +242,16 @@ public class DemoResource {
     @GET
     @Path("/listfiles")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response listfiles(@QueryParam("path") String path) {
+    public Response listfiles(@QueryParam("path") String path, @QueryParam("limit") Integer limit,
+                              @QueryParam("cursor") String cursor, @QueryParam("depth") @DefaultValue("1") int depth,
+                              @QueryParam("attributes") boolean attributes) throws IOException {
         Objects.requireNonNull(path, "path must not be null");
         if (path.contains("..") || path.contains("/") || path.contains("\\")) {
             throw new IllegalArgumentException("Invalid path");
         }
+        if (limit != null) {
+            return listfilesPage(Paths.get(path), limit, cursor, depth, attributes);
+        }
         ObjectMapper mapper = new ObjectMapper();
         try {
             List<JsonNode> fileList = new ArrayList<>();
@@ -200,6 +263,7 @@ public class DemoResource {
                         fileList.add(fileNode);
                     });
 
+            metrics.recordListing(fileList.size());
             return Response.ok(fileList).build();
         } catch (Exception e) {
             e.printStackTrace();
@@ -208,6 +272,36 @@ public class DemoResource {
         return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
     }
 
+    // Paginated listing, selected by the limit query parameter: entries are streamed as they are read, at most limit
+    // per page, followed by the cursor of the next page (null on the last one). depth lists subdirectories
+    // recursively and attributes=true adds the size and modification time of every entry.
+    private Response listfilesPage(java.nio.file.Path directory, int limit, String cursor, int depth, boolean attributes) throws IOException {
+        if (limit < 1 || limit > MAX_LIST_LIMIT) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        if (!Files.isDirectory(directory)) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+        DirectoryLister.Listing listing;
+        try {
+            listing = directoryLister.open(directory, depth, cursor);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        StreamingOutput stream = output -> {
+            try (listing) {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+                generator.writeStartObject();
+                generator.writeStringField("path", directory.toString());
+                metrics.recordListing(listing.write(generator, limit, attributes));
+                generator.writeEndObject();
+                // flushed rather than closed, the response stream belongs to the container
+                generator.flush();
+            }
+        };
+        return Response.ok(stream, MediaType.APPLICATION_JSON).build();
+    }
+
     // Given the path of a file and count the number of occurrence of a provided word. The path and the word should be query parameters. The response should be in Json format.
 
     @GET
@@ -220,16 +314,10 @@ public class DemoResource {
             throw new IllegalArgumentException("Invalid path");
         }
         java.nio.file.Path filePath = Paths.get(path);
-        String content;
-        int count = 0;
+        long count;
         try {
-            content = Files.readString(filePath);
-            String[] words = content.split("\\s+");
-            for (String w : words) {
-                if (w.equals(word)) {
-                    count++;
-                }
-            }
+            count = wordCounter.count(filePath, word, WordCounter.MatchMode.TOKEN);
+            metrics.recordWordCountScan(Files.size(filePath));
         } catch (IOException e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
         }
@@ -245,7 +333,7 @@ public class DemoResource {
     @GET
     @Path("/zipfolder")
     @Produces(MediaType.APPLICATION_OCTET_STREAM)
-    public Response zipFolder(@QueryParam("path") String path) {
+    public Response zipFolder(@QueryParam("path") String path, @Context Request request) throws IOException {
         Objects.requireNonNull(path, "path must not be null");
         if (path.contains("..") || path.contains("/") || path.contains("\\")) {
             throw new IllegalArgumentException("Invalid path");
@@ -258,21 +346,30 @@ public class DemoResource {
         if (!folder.isDirectory()) {
             return Response.status(Response.Status.BAD_REQUEST).build();
         }
-        try {
-            // create a zip file from the folder
-            java.nio.file.Path zipPath = folderPath.getParent().resolve(folderPath.getFileName() + ".zip");
-            ZipUtils.zip(folderPath, zipPath);
-            // return the zip file
-            InputStream inputStream = new FileInputStream(zipPath.toFile());
-            Response.ResponseBuilder response = Response.ok(inputStream);
-            response.type("application/zip");
-            response.header("Content-Disposition", "attachment; filename=\"" + folderPath.getFileName() + ".zip\"");
-            // remove the zip file
-            Files.delete(zipPath);
-            return response.build();
-        } catch (IOException e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
+        // archives are cached by a fingerprint of the folder tree, which is also their ETag
+        EntityTag etag = new EntityTag(zipArchiveCache.fingerprint(folderPath));
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.tag(etag).build();
+        }
+        Response.ResponseBuilder response;
+        FileChannel cached = zipArchiveCache.open(etag.getValue());
+        if (cached != null) {
+            response = Response.ok((StreamingOutput) output -> ZipArchiveCache.transfer(cached, output));
+            response.header("Content-Length", cached.size());
+        } else {
+            // stream the zip into the response while it is built, and into the cache
+            StreamingOutput stream = output -> zipArchiveCache.writeThrough(etag.getValue(), output,
+                out -> {
+                    FolderZipper.Sizes sizes = folderZipper.zip(folderPath, out);
+                    metrics.recordZip(sizes.uncompressed(), sizes.compressed());
+                });
+            response = Response.ok(stream);
         }
+        response.tag(etag);
+        response.type("application/zip");
+        response.header("Content-Disposition", "attachment; filename=\"" + folderPath.getFileName() + ".zip\"");
+        return response.build();
     }
 
 }
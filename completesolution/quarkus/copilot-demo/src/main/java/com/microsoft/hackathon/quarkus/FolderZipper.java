@@ -0,0 +1,80 @@
+package com.microsoft.hackathon.quarkus;
+
+import jakarta.inject.Singleton;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/*
+* Writes the regular files of a folder tree as a zip archive, with their paths relative to the folder.
+*
+* Files are read one buffer at a time and compressed straight into the output, so memory stays constant whatever the
+* size of the folder.
+*/
+@Singleton
+public class FolderZipper {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    // Sizes of an archive: the total size of the files it holds, and its own size.
+    public record Sizes(long uncompressed, long compressed) {
+    }
+
+    // Writes the archive of folder to out, leaving out open, and returns the sizes of the files and of the archive.
+    public Sizes zip(Path folder, OutputStream out) throws IOException {
+        CountingOutputStream counted = new CountingOutputStream(out);
+        ZipOutputStream zipOut = new ZipOutputStream(new BufferedOutputStream(counted, BUFFER_SIZE));
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long uncompressed = 0;
+        try (Stream<Path> files = Files.walk(folder)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!Files.isRegularFile(file)) {
+                    continue;
+                }
+                zipOut.putNextEntry(new ZipEntry(folder.relativize(file).toString().replace(File.separatorChar, '/')));
+                try (InputStream inputStream = Files.newInputStream(file)) {
+                    int length;
+                    while ((length = inputStream.read(buffer)) >= 0) {
+                        zipOut.write(buffer, 0, length);
+                        uncompressed += length;
+                    }
+                }
+                zipOut.closeEntry();
+            }
+        }
+        // finish() writes the central directory without closing the output
+        zipOut.finish();
+        zipOut.flush();
+        return new Sizes(uncompressed, counted.count);
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            count += length;
+        }
+    }
+}
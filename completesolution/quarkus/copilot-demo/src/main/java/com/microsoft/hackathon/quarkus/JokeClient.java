@@ -0,0 +1,139 @@
+package com.microsoft.hackathon.quarkus;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.runtime.Startup;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.ext.web.client.WebClient;
+
+/*
+* Non-blocking client of the jokes API (joke.upstream.url), shared by every request.
+*
+* Requests go through a single Vert.x WebClient with a bounded, keep-alive connection pool, so connections and TLS
+* sessions are reused, with joke.connect-timeout and joke.read-timeout applied to every call.
+* Up to joke.prefetch-size jokes are fetched ahead of time and kept in memory; serving one triggers a background
+* refill, so /chucknorris is answered from memory while the buffer is not empty. A failed refill is retried after
+* joke.retry-delay.
+*/
+@Startup
+@Singleton
+public class JokeClient {
+
+    private static final Logger LOG = Logger.getLogger(JokeClient.class);
+
+    private final WebClient webClient;
+    private final DemoMetrics metrics;
+    private final String upstreamUrl;
+    private final Duration readTimeout;
+    private final Duration retryDelay;
+    private final int prefetchSize;
+    private final BlockingQueue<String> prefetched;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicBoolean retryScheduled = new AtomicBoolean();
+    private volatile boolean closed;
+
+    public JokeClient(Vertx vertx, DemoMetrics metrics,
+                      @ConfigProperty(name = "joke.upstream.url", defaultValue = "https://api.chucknorris.io/jokes/random") String upstreamUrl,
+                      @ConfigProperty(name = "joke.connect-timeout", defaultValue = "2s") Duration connectTimeout,
+                      @ConfigProperty(name = "joke.read-timeout", defaultValue = "5s") Duration readTimeout,
+                      @ConfigProperty(name = "joke.max-connections", defaultValue = "50") int maxConnections,
+                      @ConfigProperty(name = "joke.prefetch-size", defaultValue = "16") int prefetchSize,
+                      @ConfigProperty(name = "joke.retry-delay", defaultValue = "5s") Duration retryDelay) {
+        this.metrics = metrics;
+        this.upstreamUrl = upstreamUrl;
+        this.readTimeout = readTimeout;
+        this.retryDelay = retryDelay;
+        this.prefetchSize = prefetchSize;
+        this.prefetched = new ArrayBlockingQueue<>(Math.max(1, prefetchSize));
+        this.webClient = WebClient.create(vertx, new WebClientOptions()
+            .setMaxPoolSize(maxConnections)
+            .setConnectTimeout((int) connectTimeout.toMillis())
+            .setKeepAlive(true)
+            .setIdleTimeout(30));
+    }
+
+    @PostConstruct
+    void startPrefetching() {
+        refill();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        closed = true;
+        webClient.close();
+    }
+
+    // Returns a joke, from the prefetch buffer when it has one, from the upstream otherwise.
+    public Uni<String> joke() {
+        String joke = prefetched.poll();
+        refill();
+        return joke != null ? Uni.createFrom().item(joke) : fetch();
+    }
+
+    // Fetches a joke from the upstream. Emits null when the upstream answer has no joke in it.
+    // Every call is timed, from subscription to its answer or failure.
+    public Uni<String> fetch() {
+        return Uni.createFrom().deferred(() -> {
+            long start = System.nanoTime();
+            return webClient.getAbs(upstreamUrl)
+                .putHeader("Accept", "application/json")
+                .timeout(readTimeout.toMillis())
+                .send()
+                .map(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new IllegalStateException("Jokes API answered " + response.statusCode());
+                    }
+                    JsonObject root = response.bodyAsJsonObject();
+                    return root == null ? null : root.getString("value");
+                })
+                .onItemOrFailure().invoke((joke, failure) ->
+                    metrics.recordJokeUpstreamCall(System.nanoTime() - start, failure == null));
+        });
+    }
+
+    // Starts as many fetches as there are free slots in the buffer, counting the fetches already running.
+    private void refill() {
+        while (!closed) {
+            int running = inFlight.get();
+            if (prefetched.size() + running >= prefetchSize) {
+                return;
+            }
+            if (!inFlight.compareAndSet(running, running + 1)) {
+                continue;
+            }
+            fetch()
+                .onTermination().invoke(() -> inFlight.decrementAndGet())
+                .subscribe().with(joke -> {
+                    if (joke != null) {
+                        prefetched.offer(joke);
+                    }
+                }, this::refillFailed);
+        }
+    }
+
+    private void refillFailed(Throwable error) {
+        LOG.debugf(error, "Could not prefetch a joke from %s", upstreamUrl);
+        if (retryScheduled.compareAndSet(false, true)) {
+            Uni.createFrom().voidItem()
+                .onItem().delayIt().by(retryDelay)
+                .subscribe().with(ignored -> {
+                    retryScheduled.set(false);
+                    refill();
+                });
+        }
+    }
+}
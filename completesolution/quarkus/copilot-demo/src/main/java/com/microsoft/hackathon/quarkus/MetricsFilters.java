@@ -0,0 +1,31 @@
+package com.microsoft.hackathon.quarkus;
+
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+
+/*
+* Meter filters applied by the Micrometer extension to every registry.
+*/
+@Singleton
+public class MetricsFilters {
+
+    // Publishes the http.server.requests timers as histograms, so that latency percentiles can be aggregated across
+    // instances, like management.metrics.distribution.percentiles-histogram in the Spring Boot application.
+    @Produces
+    @Singleton
+    public MeterFilter httpServerHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (!id.getName().equals("http.server.requests")) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder().percentilesHistogram(true).build().merge(config);
+            }
+        };
+    }
+}
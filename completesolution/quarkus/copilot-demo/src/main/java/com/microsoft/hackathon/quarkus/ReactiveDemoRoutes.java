@@ -0,0 +1,351 @@
+package com.microsoft.hackathon.quarkus;
+
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Singleton;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jboss.logging.Logger;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.mutiny.core.Vertx;
+import io.vertx.mutiny.core.buffer.Buffer;
+import io.vertx.mutiny.ext.web.Router;
+import io.vertx.mutiny.ext.web.RoutingContext;
+
+/*
+* Non-blocking variant of the file, zip and upstream operations of DemoResource, under /reactive.
+*
+* The routes are plain Vert.x Web handlers, so they run on the event loop and never block it: a slow client only costs
+* a connection and some buffers, not a worker thread. Files are read and directories walked with the Vert.x
+* asynchronous file system API, exposed as Mutiny Uni and Multi, and responses are streamed with back-pressure: a file
+* is only read as fast as the client takes the response. The only CPU-heavy step, compressing zip archives, is handed
+* to worker threads one chunk at a time.
+*/
+@Singleton
+public class ReactiveDemoRoutes {
+
+    private static final Logger LOG = Logger.getLogger(ReactiveDemoRoutes.class);
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Vertx vertx;
+    private final JokeClient jokeClient;
+    private final DemoMetrics metrics;
+
+    public ReactiveDemoRoutes(Vertx vertx, JokeClient jokeClient, DemoMetrics metrics) {
+        this.vertx = vertx;
+        this.jokeClient = jokeClient;
+        this.metrics = metrics;
+    }
+
+    void registerRoutes(@Observes Router router) {
+        router.get("/reactive/chucknorris").handler(this::chucknorris);
+        router.get("/reactive/countword").handler(this::countWord);
+        router.get("/reactive/listfiles").handler(this::listfiles);
+        router.get("/reactive/zipfolder").handler(this::zipFolder);
+    }
+
+    // Same as /chucknorris.
+    void chucknorris(RoutingContext context) {
+        jokeClient.joke()
+            .onItem().ifNull().continueWith("error")
+            .subscribe().with(
+                joke -> context.response().putHeader("Content-Type", "text/plain").endAndForget(joke),
+                e -> fail(context, 502, e));
+    }
+
+    // Same as /countword: the number of whitespace-separated tokens of the file equal to the word, counted chunk by
+    // chunk while the file is read.
+    void countWord(RoutingContext context) {
+        String path = safePath(context, "path");
+        String word = context.request().getParam("word");
+        if (path == null || word == null) {
+            context.response().setStatusCode(400).endAndForget();
+            return;
+        }
+        vertx.fileSystem().exists(path)
+            .onItem().transformToUni(exists -> {
+                if (!exists) {
+                    return Uni.createFrom().<Long>nullItem();
+                }
+                TokenCounter counter = new TokenCounter(word.getBytes(StandardCharsets.UTF_8));
+                return read(path)
+                    .onItem().invoke(counter::accept)
+                    .collect().last()
+                    .onItem().transform(last -> {
+                        metrics.recordWordCountScan(counter.scanned());
+                        return counter.finish();
+                    });
+            })
+            .subscribe().with(
+                count -> {
+                    if (count == null) {
+                        context.response().setStatusCode(404).endAndForget();
+                    } else {
+                        context.response().putHeader("Content-Type", "application/json")
+                            .endAndForget(new JsonObject().put("count", count).encode());
+                    }
+                },
+                e -> fail(context, 500, e));
+    }
+
+    // Same as /listfiles without limit: the folder and everything under it, each with its path and whether it is a
+    // directory.
+    void listfiles(RoutingContext context) {
+        String path = safePath(context, "path");
+        if (path == null) {
+            context.response().setStatusCode(400).endAndForget();
+            return;
+        }
+        vertx.fileSystem().exists(path)
+            .onItem().transformToUni(exists -> !exists ? Uni.createFrom().<JsonArray>nullItem()
+                : walk(path)
+                    .onItem().transform(entry -> new JsonObject()
+                        .put("path", entry.path)
+                        .put("isDirectory", entry.directory))
+                    .collect().in(JsonArray::new, JsonArray::add))
+            .subscribe().with(
+                files -> {
+                    if (files == null) {
+                        context.response().setStatusCode(404).endAndForget();
+                    } else {
+                        metrics.recordListing(files.size());
+                        context.response().putHeader("Content-Type", "application/json").endAndForget(files.encode());
+                    }
+                },
+                e -> fail(context, 500, e));
+    }
+
+    // Same as /zipfolder, without the archive cache: the zip is built while the files are read, and sent while it
+    // is built, never faster than the client takes it.
+    void zipFolder(RoutingContext context) {
+        String path = safePath(context, "path");
+        if (path == null) {
+            context.response().setStatusCode(400).endAndForget();
+            return;
+        }
+        vertx.fileSystem().props(path)
+            .subscribe().with(
+                props -> {
+                    if (!props.isDirectory()) {
+                        context.response().setStatusCode(400).endAndForget();
+                        return;
+                    }
+                    context.response()
+                        .putHeader("Content-Type", "application/zip")
+                        .putHeader("Content-Disposition",
+                            "attachment; filename=\"" + Paths.get(path).getFileName() + ".zip\"")
+                        .setChunked(true)
+                        .send(zip(path))
+                        .subscribe().with(done -> { }, e -> LOG.warnf(e, "Could not send the archive of %s", path));
+                },
+                e -> context.response().setStatusCode(404).endAndForget());
+    }
+
+    // The chunks of the archive of the folder: a local header, then the compressed content of every regular file, then
+    // the central directory. Every step of the sink runs on a worker thread, one at a time, and its chunk is sent back
+    // on the event loop: the next file chunk is only read once the previous one is compressed.
+    private Multi<Buffer> zip(String folder) {
+        ZipSink sink = new ZipSink();
+        Path root = Paths.get(folder);
+        Multi<Buffer> entries = walk(folder)
+            .select().where(entry -> entry.regularFile)
+            .onItem().transformToMultiAndConcatenate(entry -> Multi.createBy().concatenating().streams(
+                Multi.createFrom().uni(deflate(() -> sink.startEntry(
+                    root.relativize(Paths.get(entry.path)).toString().replace('\\', '/')))),
+                read(entry.path).onItem().transformToUniAndConcatenate(chunk -> deflate(() -> sink.write(chunk))),
+                Multi.createFrom().uni(deflate(sink::closeEntry))));
+        Multi<Buffer> end = Multi.createFrom().uni(deflate(() -> {
+            Buffer last = sink.finish();
+            metrics.recordZip(sink.bytesIn, sink.bytesOut);
+            return last;
+        }));
+        return Multi.createBy().concatenating().streams(entries, end)
+            .select().where(buffer -> buffer.length() > 0);
+    }
+
+    // A step of a ZipSink, run on a worker thread. Steps are not ordered with the ones of other requests: the steps of
+    // an archive are already run one after the other.
+    private Uni<Buffer> deflate(Supplier<Buffer> step) {
+        return vertx.executeBlocking(Uni.createFrom().item(step), false);
+    }
+
+    // The chunks of a file, closing it once read, or when the subscriber cancels.
+    private Multi<Buffer> read(String path) {
+        return vertx.fileSystem().open(path, new OpenOptions().setRead(true))
+            .onItem().transformToMulti(file -> file.setReadBufferSize(READ_BUFFER_SIZE).toMulti()
+                .onTermination().call((failure, cancelled) -> file.close()));
+    }
+
+    // The path, then every file and directory under it, depth first.
+    private Multi<Entry> walk(String path) {
+        return vertx.fileSystem().lprops(path)
+            .onItem().transformToMulti(props -> {
+                Entry entry = new Entry(path, props.isDirectory(), props.isRegularFile());
+                if (!props.isDirectory()) {
+                    return Multi.createFrom().item(entry);
+                }
+                // readDir answers canonical paths, children are named under path instead, as Files.walk does
+                Path parent = Paths.get(path);
+                Multi<Entry> children = vertx.fileSystem().readDir(path)
+                    .onItem().transformToMulti(files -> Multi.createFrom().iterable(files.stream()
+                        .map(file -> parent.resolve(Paths.get(file).getFileName()).toString())
+                        .sorted()
+                        .toList()))
+                    .onItem().transformToMultiAndConcatenate(this::walk);
+                return Multi.createBy().concatenating().streams(Multi.createFrom().item(entry), children);
+            });
+    }
+
+    // The parameter, or null when it is missing or not a plain file name in the working directory.
+    private static String safePath(RoutingContext context, String name) {
+        String path = context.request().getParam(name);
+        if (path == null || path.isEmpty() || path.contains("..") || path.contains("/") || path.contains("\\")) {
+            return null;
+        }
+        return path;
+    }
+
+    private static void fail(RoutingContext context, int status, Throwable e) {
+        LOG.warnf(e, "Error handling %s", context.request().path());
+        if (!context.response().headWritten()) {
+            context.response().setStatusCode(status).endAndForget();
+        } else {
+            context.response().reset();
+        }
+    }
+
+    private record Entry(String path, boolean directory, boolean regularFile) {
+    }
+
+    // Counts the whitespace-separated tokens equal to a pattern, like WordCounter in TOKEN mode, over the chunks of a
+    // file, so that a token may straddle two chunks.
+    static final class TokenCounter {
+
+        private final byte[] pattern;
+        private long count;
+        private long scanned;
+        // bytes of the current token matched so far, -1 outside of a token or once it cannot match anymore
+        private int matched = -1;
+        private boolean inToken;
+
+        TokenCounter(byte[] pattern) {
+            this.pattern = pattern;
+        }
+
+        void accept(Buffer chunk) {
+            io.vertx.core.buffer.Buffer bytes = chunk.getDelegate();
+            scanned += bytes.length();
+            for (int i = 0, length = bytes.length(); i < length; i++) {
+                byte b = bytes.getByte(i);
+                if (WordCounter.isWhitespace(b)) {
+                    endToken();
+                } else {
+                    if (!inToken) {
+                        inToken = true;
+                        matched = 0;
+                    }
+                    if (matched >= 0) {
+                        matched = matched < pattern.length && pattern[matched] == b ? matched + 1 : -1;
+                    }
+                }
+            }
+        }
+
+        long finish() {
+            endToken();
+            return count;
+        }
+
+        // Bytes accepted so far.
+        long scanned() {
+            return scanned;
+        }
+
+        private void endToken() {
+            if (inToken && pattern.length > 0 && matched == pattern.length) {
+                count++;
+            }
+            inToken = false;
+            matched = -1;
+        }
+    }
+
+    // A ZipOutputStream writing into memory, drained into a Buffer after every step, so that the archive can be
+    // produced chunk by chunk. Its steps are never run concurrently, but each may run on another worker thread. bytesIn
+    // and bytesOut count the bytes of the files and of the archive.
+    private static final class ZipSink extends OutputStream {
+
+        private final ZipOutputStream zip = new ZipOutputStream(this);
+        private io.vertx.core.buffer.Buffer pending = io.vertx.core.buffer.Buffer.buffer();
+        private long bytesIn;
+        private long bytesOut;
+
+        Buffer startEntry(String name) {
+            try {
+                zip.putNextEntry(new ZipEntry(name));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return drain();
+        }
+
+        Buffer write(Buffer chunk) {
+            try {
+                zip.write(chunk.getBytes());
+                bytesIn += chunk.length();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return drain();
+        }
+
+        Buffer closeEntry() {
+            try {
+                zip.closeEntry();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return drain();
+        }
+
+        Buffer finish() {
+            try {
+                zip.finish();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return drain();
+        }
+
+        @Override
+        public void write(int b) {
+            pending.appendByte((byte) b);
+            bytesOut++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            pending.appendBytes(bytes, offset, length);
+            bytesOut += length;
+        }
+
+        private Buffer drain() {
+            Buffer drained = Buffer.newInstance(pending);
+            pending = io.vertx.core.buffer.Buffer.buffer();
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.microsoft.hackathon.quarkus;
+
+import jakarta.inject.Singleton;
+
+/*
+* Validates spanish phone numbers and DNIs by scanning their characters, without regular expressions or allocations.
+*
+* A phone number is +34 followed by 9 digits, the first one being 6, 7 or 9.
+* A DNI is 8 digits followed by its control letter: the letter of the number modulo 23 in DNI_CONTROL_LETTERS.
+*/
+@Singleton
+public class SpanishIdValidator {
+
+    static final String DNI_CONTROL_LETTERS = "TRWAGMYFPDXBNJZSQVHLCKE";
+
+    private static final int PHONE_LENGTH = 12;
+    private static final int DNI_DIGITS = 8;
+
+    public boolean isValidPhone(CharSequence phone) {
+        if (phone == null || phone.length() != PHONE_LENGTH
+            || phone.charAt(0) != '+' || phone.charAt(1) != '3' || phone.charAt(2) != '4') {
+            return false;
+        }
+        char first = phone.charAt(3);
+        if (first != '6' && first != '7' && first != '9') {
+            return false;
+        }
+        for (int i = 4; i < PHONE_LENGTH; i++) {
+            if (!isDigit(phone.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isValidDni(CharSequence dni) {
+        if (dni == null || dni.length() != DNI_DIGITS + 1) {
+            return false;
+        }
+        int number = 0;
+        for (int i = 0; i < DNI_DIGITS; i++) {
+            char c = dni.charAt(i);
+            if (!isDigit(c)) {
+                return false;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return dni.charAt(DNI_DIGITS) == DNI_CONTROL_LETTERS.charAt(number % 23);
+    }
+
+    // Character.isDigit would also accept non-ASCII digits
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
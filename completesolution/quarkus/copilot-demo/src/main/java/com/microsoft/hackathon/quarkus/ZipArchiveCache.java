@@ -0,0 +1,272 @@
+package com.microsoft.hackathon.quarkus;
+
+import jakarta.inject.Singleton;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.quarkus.runtime.configuration.MemorySize;
+
+/*
+* Disk cache of the archives generated by /zipfolder, addressed by a fingerprint of the zipped folder.
+*
+* The fingerprint is a SHA-256 of the folder path and of the relative path, size and modification time of every file
+* in the tree; it is cheap to compute and doubles as the ETag of the archive. Archives are kept in zip.cache.directory
+* and evicted least recently used first once they take more than zip.cache.max-size. A miss is streamed to the client
+* and to the cache file at the same time.
+*/
+@Singleton
+public class ZipArchiveCache {
+
+    private static final Logger LOG = Logger.getLogger(ZipArchiveCache.class);
+    private static final String ARCHIVE_SUFFIX = ".zip";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxBytes;
+    // fingerprint -> archive size, in access order
+    private final LinkedHashMap<String, Long> archives = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public ZipArchiveCache(@ConfigProperty(name = "zip.cache.directory") Optional<String> directory,
+                           @ConfigProperty(name = "zip.cache.max-size", defaultValue = "512M") MemorySize maxSize) {
+        this.directory = directory.filter(path -> !path.isBlank()).map(Paths::get)
+            .orElseGet(() -> Paths.get(System.getProperty("java.io.tmpdir"), "copilot-demo-zip-cache"));
+        this.maxBytes = maxSize.asLongValue();
+        try {
+            Files.createDirectories(this.directory);
+            loadExistingArchives();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot initialize the zip cache in " + this.directory, e);
+        }
+    }
+
+    // Writes an archive: streams it into out and into the cache.
+    @FunctionalInterface
+    public interface ArchiveWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    // Fingerprint of the archive of the folder: its path and the relative path, size and mtime of every file.
+    public String fingerprint(Path folder) throws IOException {
+        List<String> files = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(folder)) {
+            for (Path file : (Iterable<Path>) walk::iterator) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attributes.isRegularFile()) {
+                    files.add(folder.relativize(file) + "\0" + attributes.size() + "\0" + attributes.lastModifiedTime().toMillis());
+                }
+            }
+        }
+        Collections.sort(files);
+
+        MessageDigest digest = sha256();
+        digest.update((folder.toAbsolutePath().normalize() + "\n").getBytes(StandardCharsets.UTF_8));
+        for (String file : files) {
+            digest.update((file + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // Opens the cached archive with the given fingerprint, or returns null when it is not cached. The archive stays
+    // readable through the returned channel even if it is evicted meanwhile.
+    public synchronized FileChannel open(String fingerprint) throws IOException {
+        if (archives.get(fingerprint) == null) {
+            return null;
+        }
+        try {
+            return FileChannel.open(archivePath(fingerprint), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            // removed behind our back
+            totalBytes -= archives.remove(fingerprint);
+            return null;
+        }
+    }
+
+    // Copies a cached archive to out with FileChannel.transferTo, then closes the channel.
+    public static void transfer(FileChannel archive, OutputStream out) throws IOException {
+        try (archive) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long size = archive.size();
+            long position = 0;
+            while (position < size) {
+                position += archive.transferTo(position, size - position, target);
+            }
+        }
+        out.flush();
+    }
+
+    // Writes an archive to out with writer while saving it in the cache under fingerprint.
+    // The archive is only cached if it is written completely.
+    public void writeThrough(String fingerprint, OutputStream out, ArchiveWriter writer) throws IOException {
+        Path temp = Files.createTempFile(directory, fingerprint, TEMP_SUFFIX);
+        TeeOutputStream tee;
+        try (OutputStream file = Files.newOutputStream(temp)) {
+            tee = new TeeOutputStream(out, file);
+            writer.write(tee);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        if (tee.copyFailed) {
+            Files.deleteIfExists(temp);
+            return;
+        }
+        try {
+            // under the lock, so that an eviction of the same fingerprint cannot delete the new archive
+            synchronized (this) {
+                Path archive = archivePath(fingerprint);
+                Files.move(temp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                add(fingerprint, Files.size(archive));
+            }
+        } catch (IOException e) {
+            // the client already has its archive, only the cache entry is lost
+            LOG.warnf(e, "Could not cache zip archive %s", fingerprint);
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    synchronized boolean contains(String fingerprint) {
+        return archives.containsKey(fingerprint);
+    }
+
+    private synchronized void add(String fingerprint, long size) throws IOException {
+        if (size > maxBytes) {
+            // would evict everything else and still not fit
+            Files.deleteIfExists(archivePath(fingerprint));
+            return;
+        }
+        Long previous = archives.put(fingerprint, size);
+        totalBytes += size - (previous == null ? 0 : previous);
+        Iterator<Map.Entry<String, Long>> eldest = archives.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.getValue();
+            try {
+                Files.deleteIfExists(archivePath(entry.getKey()));
+            } catch (IOException e) {
+                LOG.warnf(e, "Could not delete evicted zip archive %s", entry.getKey());
+            }
+        }
+    }
+
+    private void loadExistingArchives() throws IOException {
+        List<Path> existing = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    // left over by an interrupted write
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(ARCHIVE_SUFFIX)) {
+                    existing.add(file);
+                }
+            }
+        }
+        existing.sort(Comparator.comparing(ZipArchiveCache::lastModified));
+        for (Path file : existing) {
+            String name = file.getFileName().toString();
+            add(name.substring(0, name.length() - ARCHIVE_SUFFIX.length()), Files.size(file));
+        }
+    }
+
+    private Path archivePath(String fingerprint) {
+        return directory.resolve(fingerprint + ARCHIVE_SUFFIX);
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Copies everything written to the client into the cache file. A failure to write the cache file only stops the
+    // copy, the client keeps receiving its archive.
+    private static final class TeeOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final OutputStream copy;
+        private boolean copyFailed;
+
+        TeeOutputStream(OutputStream out, OutputStream copy) {
+            this.out = out;
+            this.copy = copy;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (!copyFailed) {
+                try {
+                    copy.write(b);
+                } catch (IOException e) {
+                    copyFailed(e);
+                }
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            if (!copyFailed) {
+                try {
+                    copy.write(bytes, offset, length);
+                } catch (IOException e) {
+                    copyFailed(e);
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        private void copyFailed(IOException e) {
+            LOG.warn("Could not write zip archive to the cache", e);
+            copyFailed = true;
+        }
+    }
+}
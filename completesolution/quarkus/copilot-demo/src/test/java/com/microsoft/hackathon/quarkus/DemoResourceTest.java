@@ -1,12 +1,35 @@
 package com.microsoft.hackathon.quarkus;
 
+import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.response.Response;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @QuarkusTest
+@QuarkusTestResource(JokeUpstreamStub.class)
 public class DemoResourceTest {
 
     @Test
@@ -69,6 +92,17 @@ public class DemoResourceTest {
              .statusCode(500);
     }
 
+    @Test
+    public void testDiffDatesBatchEndpoint() {
+        given()
+          .contentType("application/json")
+          .body("[{\"date1\":\"01-01-2021\",\"date2\":\"01-02-2021\"},{\"date1\":\"01-01201\",\"date2\":\"01-02-2021\"}]")
+          .when().post("/diffdates/batch")
+          .then()
+             .statusCode(200)
+             .body(is("[31,null]"));
+    }
+
     @Test
     public void testValidatePhoneEndpoint() {
         given()
@@ -135,6 +169,15 @@ public class DemoResourceTest {
              .body(is("false"));
     }
 
+    @Test
+    public void testValidateDNIEndpointWrongControlLetter () {
+        given()
+          .when().get("/validatedni?dni=12345678A")
+          .then()
+             .statusCode(200)
+             .body(is("false"));
+    }
+
     @Test
     public void testValidateDNIEndpointNoDNI () {
         given()
@@ -168,12 +211,29 @@ public class DemoResourceTest {
              .statusCode(500);
     }
 
+    @Test
+    public void testMetricsEndpoint () {
+        given().when().get("/hexcolor?name=red").then().statusCode(200);
+        given().when().get("/hexcolor?name=notacolor").then().statusCode(404);
+
+        given()
+          .when().get("/q/metrics")
+          .then()
+             .statusCode(200)
+             .body(containsString("demo_color_lookups_total{result=\"hit\"}"))
+             .body(containsString("demo_color_lookups_total{result=\"miss\"}"))
+             .body(containsString("http_server_requests_seconds_bucket"))
+             .body(containsString("uri=\"/hexcolor\""))
+             .body(not(containsString("notacolor")));
+    }
+
     @Test
     public void testChuckNorrisEndpoint () {
         given()
           .when().get("/chucknorris")
           .then()
-             .statusCode(200);
+             .statusCode(200)
+             .body(is(JokeUpstreamStub.JOKE));
     }
 
     @Test
@@ -197,4 +257,203 @@ public class DemoResourceTest {
              .statusCode(500);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testParseUrlEndpointInvalidUrl () {
+        given()
+          .when().get("/parseurl?url=invalid-url")
+          .then()
+             .statusCode(400);
+    }
+
+    @Test
+    public void testParseUrlBatchEndpoint () {
+        given()
+          .contentType("application/json")
+          .body("[\"http://example.com:8080/path?query=a%26b&query=c\", \"invalid-url\"]")
+          .when().post("/parseurl/batch")
+          .then()
+             .statusCode(200)
+             .body("[0].port", is(8080))
+             .body("[0].parameters.query", is(List.of("a&b", "c")))
+             .body("[1]", nullValue());
+    }
+
+    @Test
+    public void testCountWordEndpoint () {
+        given()
+          .when().get("/countword?path=pom.xml&word=<modelVersion>4.0.0</modelVersion>")
+          .then()
+             .statusCode(200)
+             .body("count", is(1));
+    }
+
+    @Test
+    public void testListFilesPagedEndpoint () {
+        String cursor = given()
+          .when().get("/listfiles?path=src&limit=1&attributes=true")
+          .then()
+             .statusCode(200)
+             .body("path", is("src"))
+             .body("entries.size()", is(1))
+             .body("entries[0].type", is("directory"))
+             .body("entries[0].modified", notNullValue())
+             .extract().path("nextCursor");
+        assertNotNull(cursor);
+
+        given()
+          .when().get("/listfiles?path=src&limit=10&cursor=" + cursor)
+          .then()
+             .statusCode(200)
+             .body("entries.size()", is(1))
+             .body("nextCursor", nullValue());
+
+        given()
+          .when().get("/listfiles?path=src&limit=10&cursor=garbage!")
+          .then()
+             .statusCode(400);
+    }
+
+    @Test
+    public void testZipFolderEndpoint () throws IOException {
+        byte[] archive = given()
+          .when().get("/zipfolder?path=src")
+          .then()
+             .statusCode(200)
+             .contentType("application/zip")
+             .extract().asByteArray();
+
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zipIn.getNextEntry()) != null) {
+                entries.add(entry.getName());
+            }
+        }
+        assertTrue(entries.contains("main/resources/colors.json"));
+    }
+
+    @Test
+    public void testZipFolderEndpointCached () {
+        Response first = given()
+          .when().get("/zipfolder?path=src");
+        String etag = first.getHeader("ETag");
+        assertNotNull(etag);
+
+        byte[] cached = given()
+          .when().get("/zipfolder?path=src")
+          .then()
+             .statusCode(200)
+             .header("ETag", etag)
+             .header("Content-Length", String.valueOf(first.asByteArray().length))
+             .extract().asByteArray();
+        assertArrayEquals(first.asByteArray(), cached);
+
+        given()
+          .header("If-None-Match", etag)
+          .when().get("/zipfolder?path=src")
+          .then()
+             .statusCode(304)
+             .header("ETag", etag);
+    }
+
+    @Test
+    public void testZipFolderEndpointNotFound () {
+        given()
+          .when().get("/zipfolder?path=missing")
+          .then()
+             .statusCode(404);
+    }
+
+    @Test
+    public void testReactiveChuckNorrisEndpoint () {
+        given()
+          .when().get("/reactive/chucknorris")
+          .then()
+             .statusCode(200)
+             .body(is(JokeUpstreamStub.JOKE));
+    }
+
+    @Test
+    public void testReactiveCountWordEndpoint () {
+        given()
+          .when().get("/reactive/countword?path=pom.xml&word=<artifactId>quarkus-resteasy</artifactId>")
+          .then()
+             .statusCode(200)
+             .body("count", is(1));
+
+        given()
+          .when().get("/reactive/countword?path=missing&word=x")
+          .then()
+             .statusCode(404);
+
+        given()
+          .when().get("/reactive/countword?path=../pom.xml&word=x")
+          .then()
+             .statusCode(400);
+    }
+
+    @Test
+    public void testReactiveListFilesEndpoint () {
+        given()
+          .when().get("/reactive/listfiles?path=src")
+          .then()
+             .statusCode(200)
+             .body("[0].path", is("src"))
+             .body("[0].isDirectory", is(true))
+             .body("find { it.path == 'src/main/resources/colors.json' }.isDirectory", is(false));
+    }
+
+    @Test
+    public void testReactiveZipFolderEndpoint () throws IOException {
+        byte[] archive = given()
+          .when().get("/reactive/zipfolder?path=src")
+          .then()
+             .statusCode(200)
+             .contentType("application/zip")
+             .extract().asByteArray();
+
+        byte[] colors = null;
+        try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zipIn.getNextEntry()) != null) {
+                if (entry.getName().equals("main/resources/colors.json")) {
+                    colors = zipIn.readAllBytes();
+                }
+            }
+        }
+        assertArrayEquals(Files.readAllBytes(Paths.get("src/main/resources/colors.json")), colors);
+
+        given()
+          .when().get("/reactive/zipfolder?path=missing")
+          .then()
+             .statusCode(404);
+    }
+
+    @Test
+    public void testReactiveZipFolderEndpointWithManyChunks() throws IOException {
+        // a file of many read chunks, each compressed on a worker thread, in a folder reachable by a safe path
+        Path folder = Files.createDirectories(Paths.get("reactive-zip-test"));
+        byte[] content = new byte[1024 * 1024];
+        new Random(42).nextBytes(content);
+        try {
+            Files.write(folder.resolve("random.bin"), content);
+            byte[] archive = given()
+              .when().get("/reactive/zipfolder?path=reactive-zip-test")
+              .then()
+                 .statusCode(200)
+                 .extract().asByteArray();
+
+            try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(archive))) {
+                ZipEntry entry = zipIn.getNextEntry();
+                assertNotNull(entry);
+                assertEquals("random.bin", entry.getName());
+                assertArrayEquals(content, zipIn.readAllBytes());
+                assertNull(zipIn.getNextEntry());
+            }
+        } finally {
+            Files.deleteIfExists(folder.resolve("random.bin"));
+            Files.deleteIfExists(folder);
+        }
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.microsoft.hackathon.quarkus;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+
+// Local stand-in for the jokes API, so that the tests do not depend on the network.
+public class JokeUpstreamStub implements QuarkusTestResourceLifecycleManager {
+
+    static final String JOKE = "Chuck Norris can unit test an entire application with a single assert.";
+
+    private HttpServer server;
+
+    @Override
+    public Map<String, String> start() {
+        try {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        server.createContext("/jokes/random", exchange -> {
+            byte[] body = ("{\"value\":\"" + JOKE + "\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        return Map.of("joke.upstream.url", "http://localhost:" + server.getAddress().getPort() + "/jokes/random");
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+}
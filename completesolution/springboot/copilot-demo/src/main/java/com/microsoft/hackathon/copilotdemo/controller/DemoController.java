@@ -1,39 +1,44 @@
 package com.microsoft.hackathon.copilotdemo.controller;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.List;
 import java.util.Scanner;
-import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.hackathon.copilotdemo.service.ColorCatalog;
+import com.microsoft.hackathon.copilotdemo.service.DateDiffEngine;
+import com.microsoft.hackathon.copilotdemo.service.JokeClient;
+import com.microsoft.hackathon.copilotdemo.service.SpanishIdValidator;
+import com.microsoft.hackathon.copilotdemo.service.UrlParser;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import reactor.core.publisher.Mono;
 
 
 /* 
@@ -46,6 +51,26 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 @RestController
 public class DemoController {
 
+    private static final int ZIP_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_DIFF_DATES_BATCH = 100_000;
+
+    private final ColorCatalog colorCatalog;
+    private final JokeClient jokeClient;
+    private final DateDiffEngine dateDiffEngine;
+    private final SpanishIdValidator spanishIdValidator;
+    private final UrlParser urlParser;
+    private final ObjectMapper objectMapper;
+
+    public DemoController(ColorCatalog colorCatalog, JokeClient jokeClient, DateDiffEngine dateDiffEngine,
+            SpanishIdValidator spanishIdValidator, UrlParser urlParser, ObjectMapper objectMapper) {
+        this.colorCatalog = colorCatalog;
+        this.jokeClient = jokeClient;
+        this.dateDiffEngine = dateDiffEngine;
+        this.spanishIdValidator = spanishIdValidator;
+        this.urlParser = urlParser;
+        this.objectMapper = objectMapper;
+    }
+
     @GetMapping(value = "/hello", produces = MediaType.TEXT_PLAIN_VALUE)
     public String hello(@RequestParam(name = "key", required = false) String key) {
         if (key == null) {
@@ -56,85 +81,98 @@ public class DemoController {
 
     // New operation under /diffdates that calculates the difference between two dates. The operation should receive two dates as parameter in format dd-MM-yyyy and return the difference in days. 
     @GetMapping(value = "/diffdates", produces = MediaType.TEXT_PLAIN_VALUE)
-    public String diffdates(@RequestParam(name = "date1", required = false) String date1, @RequestParam(name = "date2", required = false) String date2) throws ParseException {
+    public String diffdates(@RequestParam(name = "date1", required = false) String date1, @RequestParam(name = "date2", required = false) String date2) {
         if (date1 == null || date2 == null) {
             return "date not passed";
         }
-        SimpleDateFormat sdf = new SimpleDateFormat("dd-MM-yyyy");
-        Date date1Obj = sdf.parse(date1);
-        Date date2Obj = sdf.parse(date2);
-        long diffInMillies = Math.abs(date2Obj.getTime() - date1Obj.getTime());
-        long diff = TimeUnit.DAYS.convert(diffInMillies, TimeUnit.MILLISECONDS);
-        return "difference in days: " + diff;
+        try {
+            return "difference in days: " + dateDiffEngine.daysBetween(date1, date2);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // Batch variant of /diffdates for reporting jobs: takes a JSON array of {"date1": ..., "date2": ...} pairs (at most 100000) and returns the difference in days of each pair, in order, or null for the pairs with an invalid date.
+    @PostMapping(value = "/diffdates/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public List<Long> diffdatesBatch(@RequestBody List<DateDiffEngine.DatePair> pairs) {
+        if (pairs.size() > MAX_DIFF_DATES_BATCH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Too many date pairs: " + pairs.size());
+        }
+        return dateDiffEngine.daysBetween(pairs);
     }
 
     // Validate the format of a spanish phone number (+34 prefix, then 9 digits, starting with 6, 7 or 9). The operation should receive a phone number as parameter and return true if the format is correct, false otherwise. 
     @GetMapping(value = "/validatephone", produces = MediaType.TEXT_PLAIN_VALUE)
-    public boolean validatephone(@RequestParam(name = "phone", required = false) String phone) {
-        if (phone == null || phone.isEmpty()) {
-            return false;
-        }
-        String regex = "^\\+34[679]\\d{8}$";
-        return phone.matches(regex);
+    public String validatephone(@RequestParam(name = "phone", required = false) String phone) {
+        return String.valueOf(spanishIdValidator.isValidPhone(phone));
     }
 
     // Validate the format of a spanish DNI (8 digits and 1 letter). The operation should receive a DNI as parameter and return true if the format is correct, false otherwise. 
+    // The letter must be the control letter of the number.
     @GetMapping(value = "/validatedni", produces = MediaType.TEXT_PLAIN_VALUE)
-    public boolean validatedni(@RequestParam(name = "dni", required = false) String dni) {
-        if (dni == null || dni.isEmpty()) {
-            return false;
-        }
-        String regex = "^\\d{8}[A-Z]$";
-        return dni.matches(regex);
+    public String validatedni(@RequestParam(name = "dni", required = false) String dni) {
+        return String.valueOf(spanishIdValidator.isValidDni(dni));
     }
 
     //Based on existing colors.json file under resources, given the name of the color as path parameter, return the hexadecimal code. If the color is not found, return 404
     @GetMapping(value = "/color/{name}", produces = MediaType.TEXT_PLAIN_VALUE)
-    public ResponseEntity<String> color(@PathVariable("name") String name) throws IOException {
-        InputStream inputStream = getClass().getClassLoader().getResourceAsStream("colors.json");
-        ObjectMapper objectMapper = new ObjectMapper();
-        // create JsonNode from mapper
-        JsonNode rootNode = objectMapper.readTree(inputStream);
-        for (JsonNode color : rootNode) {
-            // if color name is found, return the hex code
-            if (color.get("color").asText().equals(name)) {
-                return new ResponseEntity<String>(color.get("code").get("hex").asText(), HttpStatus.OK);
-            }
+    // the colors are read from the ColorCatalog, parsed once at startup
+    public ResponseEntity<String> color(@PathVariable("name") String name) {
+        String hex = colorCatalog.findHex(name);
+        if (hex == null) {
+            return new ResponseEntity<String>("Color not found", HttpStatus.NOT_FOUND);
         }
-        return new ResponseEntity<String>("Color not found", HttpStatus.NOT_FOUND);
+        return new ResponseEntity<String>(hex, HttpStatus.OK);
     }
     
     // new operation that call the API https://api.chucknorris.io/jokes/random and return the joke
+    // the joke comes from the shared, non-blocking JokeClient, usually straight from its prefetch buffer
     @GetMapping(value = "/joke", produces = MediaType.TEXT_PLAIN_VALUE)
-    public String getJoke() {
-        RestTemplate restTemplate = new RestTemplate();
-        String url = "https://api.chucknorris.io/jokes/random";
-        ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
-        // parse response to get the value
-        ObjectMapper objectMapper = new ObjectMapper();
-        JsonNode rootNode;
-        try {
-            rootNode = objectMapper.readTree(response.getBody());
-            return rootNode.get("value").asText();
-        } catch (IOException e) {
-           return new String("Error getting joke");
-        }
+    public Mono<String> getJoke() {
+        return jokeClient.joke()
+            .defaultIfEmpty("Error getting joke")
+            .onErrorMap(e -> !(e instanceof ResponseStatusException),
+                e -> new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Error getting joke", e));
     }
 
 
     // Given a url as query parameter, parse it and return the protocol, host, port, path and query parameters. The response should be in Json format.
+    // The url is split by UrlParser, without resolving its host, and written with a streaming JSON generator, so that its components are escaped.
     @GetMapping(value = "/parseurl", produces = MediaType.APPLICATION_JSON_VALUE)
-    public String parseurl(@RequestParam(name = "url", required = false) String url) throws MalformedURLException {
+    public void parseurl(@RequestParam(name = "url", required = false) String url, HttpServletResponse response) throws IOException {
         if (url == null || url.isEmpty()) {
-            return "url not passed";
+            response.getWriter().write("url not passed");
+            return;
+        }
+        UrlParser.ParsedUrl parsedUrl = urlParser.parse(url);
+        if (parsedUrl == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid url");
+        }
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            parsedUrl.writeJson(generator);
+        }
+    }
+
+    // Batch variant of /parseurl for log processing: takes a JSON array of urls and streams back an array with the components of each of them, in order, or null for the invalid ones.
+    @PostMapping(value = "/parseurl/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> parseurlBatch(InputStream body) throws IOException {
+        JsonParser urls = objectMapper.getFactory().createParser(body);
+        boolean isArray;
+        try {
+            isArray = urls.nextToken() == JsonToken.START_ARRAY;
+        } catch (JsonProcessingException e) {
+            isArray = false;
         }
-        URL urlObj = new URL(url);
-        String protocol = urlObj.getProtocol();
-        String host = urlObj.getHost();
-        int port = urlObj.getPort();
-        String path = urlObj.getPath();
-        String query = urlObj.getQuery();
-        return "{ \"protocol\": \"" + protocol + "\", \"host\": \"" + host + "\", \"port\": \"" + port + "\", \"path\": \"" + path + "\", \"query\": \"" + query + "\" }";
+        if (!isArray) {
+            urls.close();
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "expected a JSON array of urls");
+        }
+        StreamingResponseBody responseBody = outputStream -> {
+            try (urls; JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                urlParser.parseAll(urls, generator);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(responseBody);
     }
 
     // List files and folders under a given path. The path should be a query parameter. The response should be in Json format.
@@ -196,8 +234,9 @@ public class DemoController {
     }
 
     // Create a zip file with the content of a given folder. The path of the folder should be a query parameter.
+    // The archive is streamed into the response while it is built, so no zip file is written to disk or kept in memory.
     @GetMapping(value = "/zip-folder", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-    public ResponseEntity<Resource> zipFolder(@RequestParam(name = "path") String pathString) {
+    public ResponseEntity<StreamingResponseBody> zipFolder(@RequestParam(name = "path") String pathString) {
         try {
             if (pathString.contains("..") || pathString.contains("/") || pathString.contains("\\")) {
         		throw new IllegalArgumentException("Invalid pathString");
@@ -210,36 +249,35 @@ public class DemoController {
                 return ResponseEntity.badRequest().body(null);
             }
             String zipFileName = folder.getName() + ".zip";
-            File zipFile = new File(zipFileName);
-            FileOutputStream fos = new FileOutputStream(zipFile);
-            ZipOutputStream zos = new ZipOutputStream(fos);
-            zipFolder(folder, folder.getName(), zos);
-            zos.close();
-            fos.close();
-            Path path = Paths.get(zipFileName);
-            ByteArrayResource resource = new ByteArrayResource(Files.readAllBytes(path));
+            StreamingResponseBody body = outputStream -> {
+                ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(outputStream, ZIP_BUFFER_SIZE));
+                zipFolder(folder, folder.getName(), zos, new byte[ZIP_BUFFER_SIZE]);
+                // finish() writes the central directory without closing the response stream
+                zos.finish();
+                zos.flush();
+            };
             HttpHeaders headers = new HttpHeaders();
             headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + zipFileName);
-            return ResponseEntity.ok().headers(headers).contentLength(zipFile.length()).contentType(MediaType.parseMediaType("application/octet-stream")).body(resource);
+            return ResponseEntity.ok().headers(headers).contentType(MediaType.parseMediaType("application/octet-stream")).body(body);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
 
-    private void zipFolder(File folder, String parentFolder, ZipOutputStream zos) throws IOException {
+    private void zipFolder(File folder, String parentFolder, ZipOutputStream zos, byte[] buffer) throws IOException {
         for (File file : folder.listFiles()) {
             if (file.isDirectory()) {
-                zipFolder(file, parentFolder + "/" + file.getName(), zos);
+                zipFolder(file, parentFolder + "/" + file.getName(), zos, buffer);
             } else {
                 ZipEntry zipEntry = new ZipEntry(parentFolder + "/" + file.getName());
                 zos.putNextEntry(zipEntry);
-                FileInputStream fis = new FileInputStream(file);
-                byte[] buffer = new byte[1024];
-                int length;
-                while ((length = fis.read(buffer)) > 0) {
-                    zos.write(buffer, 0, length);
+                try (FileInputStream fis = new FileInputStream(file)) {
+                    int length;
+                    while ((length = fis.read(buffer)) > 0) {
+                        zos.write(buffer, 0, length);
+                    }
                 }
-                fis.close();
+                zos.closeEntry();
             }
         }
     }
@@ -0,0 +1,53 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+* The colors of colors.json, parsed once at startup and indexed by name, so that a lookup is a single hash map read.
+*
+* Names are matched exactly. When a name appears more than once, its first entry wins, like the linear scan it replaces.
+*/
+@Component
+public class ColorCatalog {
+
+    private static final String CATALOG = "/colors.json";
+
+    private final Map<String, String> hexByName;
+
+    public ColorCatalog(ObjectMapper objectMapper) {
+        try (InputStream inputStream = getClass().getResourceAsStream(CATALOG)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("Colors catalog not found on classpath: " + CATALOG);
+            }
+            Map<String, String> hexByName = new HashMap<>();
+            for (JsonNode color : objectMapper.readTree(inputStream)) {
+                JsonNode name = color.get("color");
+                JsonNode hex = color.path("code").get("hex");
+                if (name != null && hex != null) {
+                    hexByName.putIfAbsent(name.asText(), hex.asText());
+                }
+            }
+            this.hexByName = Map.copyOf(hexByName);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading colors file", e);
+        }
+    }
+
+    // the hexadecimal code of the color, or null if there is none with this name
+    public String findHex(String name) {
+        return hexByName.get(name);
+    }
+
+    public int size() {
+        return hexByName.size();
+    }
+}
@@ -0,0 +1,107 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import java.time.format.DateTimeFormatter;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+/*
+* Computes differences in days between dd-MM-yyyy dates.
+*
+* Dates are parsed by a fixed-width scanner straight into epoch days, without allocating, and with the same rules as
+* FORMAT: exactly two digits for the day and the month, four for the year, and no day past the end of the month.
+*/
+@Component
+public class DateDiffEngine {
+
+    private static final int LENGTH = 10;
+    private static final long DAYS_0000_TO_1970 = 719_528;
+
+    // The format of the dates, for callers that need a LocalDate. Immutable and thread-safe.
+    public static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("dd-MM-uuuu")
+        .withResolverStyle(ResolverStyle.STRICT);
+
+    // Returned by parseEpochDay for invalid dates.
+    public static final long INVALID = Long.MIN_VALUE;
+
+    // Two dates of a batch.
+    public record DatePair(String date1, String date2) {
+    }
+
+    // Returns the number of days between the two dates, whatever their order.
+    // Throws IllegalArgumentException if a date is not a valid dd-MM-yyyy date.
+    public long daysBetween(CharSequence date1, CharSequence date2) {
+        return Math.abs(epochDay(date2) - epochDay(date1));
+    }
+
+    // Returns the number of days between the dates of every pair, in order, or null for the pairs with an invalid date.
+    public List<Long> daysBetween(List<DatePair> pairs) {
+        List<Long> days = new ArrayList<>(pairs.size());
+        for (DatePair pair : pairs) {
+            long epochDay1 = parseEpochDay(pair.date1());
+            long epochDay2 = parseEpochDay(pair.date2());
+            days.add(epochDay1 == INVALID || epochDay2 == INVALID ? null : Math.abs(epochDay2 - epochDay1));
+        }
+        return days;
+    }
+
+    // Returns the epoch day of a dd-MM-yyyy date, or INVALID.
+    public long parseEpochDay(CharSequence date) {
+        if (date == null || date.length() != LENGTH || date.charAt(2) != '-' || date.charAt(5) != '-') {
+            return INVALID;
+        }
+        int day = digits(date, 0, 2);
+        int month = digits(date, 3, 5);
+        int year = digits(date, 6, 10);
+        if (day < 1 || month < 1 || month > 12 || year < 0 || day > lengthOfMonth(year, month)) {
+            return INVALID;
+        }
+        return toEpochDay(year, month, day);
+    }
+
+    private long epochDay(CharSequence date) {
+        long epochDay = parseEpochDay(date);
+        if (epochDay == INVALID) {
+            throw new IllegalArgumentException("Invalid date: " + date);
+        }
+        return epochDay;
+    }
+
+    // Returns the value of the decimal digits from start to end, or -1 if one is not a digit.
+    private static int digits(CharSequence date, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = date.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isLeap(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeap(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    // Same computation as LocalDate.toEpochDay(), for years from 0.
+    private static long toEpochDay(int year, int month, int day) {
+        long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total -= isLeap(year) ? 1 : 2;
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+}
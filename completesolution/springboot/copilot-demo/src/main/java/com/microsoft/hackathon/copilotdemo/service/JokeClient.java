@@ -0,0 +1,129 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/*
+* Non-blocking client of the jokes API (joke.upstream.url), shared by every request.
+*
+* Requests go through a single WebClient backed by a bounded, keep-alive connection pool, so connections and TLS
+* sessions are reused, with joke.connect-timeout and joke.read-timeout applied to every call.
+* Up to joke.prefetch-size jokes are fetched ahead of time and kept in memory; serving one triggers a background
+* refill, so /joke is answered from memory while the buffer is not empty. A failed refill is retried after
+* joke.retry-delay.
+*/
+@Component
+public class JokeClient {
+
+    private static final Logger log = LoggerFactory.getLogger(JokeClient.class);
+
+    private final WebClient webClient;
+    private final ConnectionProvider connectionProvider;
+    private final String upstreamUrl;
+    private final Duration readTimeout;
+    private final Duration retryDelay;
+    private final int prefetchSize;
+    private final BlockingQueue<String> prefetched;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicBoolean retryScheduled = new AtomicBoolean();
+    private volatile boolean closed;
+
+    public JokeClient(@Value("${joke.upstream.url:https://api.chucknorris.io/jokes/random}") String upstreamUrl,
+                      @Value("${joke.connect-timeout:2s}") Duration connectTimeout,
+                      @Value("${joke.read-timeout:5s}") Duration readTimeout,
+                      @Value("${joke.max-connections:50}") int maxConnections,
+                      @Value("${joke.prefetch-size:16}") int prefetchSize,
+                      @Value("${joke.retry-delay:5s}") Duration retryDelay) {
+        this.upstreamUrl = upstreamUrl;
+        this.readTimeout = readTimeout;
+        this.retryDelay = retryDelay;
+        this.prefetchSize = prefetchSize;
+        this.prefetched = new ArrayBlockingQueue<>(Math.max(1, prefetchSize));
+        this.connectionProvider = ConnectionProvider.builder("jokes")
+            .maxConnections(maxConnections)
+            .maxIdleTime(Duration.ofSeconds(30))
+            .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+            .responseTimeout(readTimeout);
+        this.webClient = WebClient.builder()
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .build();
+    }
+
+    @PostConstruct
+    void startPrefetching() {
+        refill();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        closed = true;
+        connectionProvider.dispose();
+    }
+
+    // Returns a joke, from the prefetch buffer when it has one, from the upstream otherwise.
+    public Mono<String> joke() {
+        String joke = prefetched.poll();
+        refill();
+        return joke != null ? Mono.just(joke) : fetch();
+    }
+
+    // Fetches a joke from the upstream. Completes empty when the upstream answer has no joke in it.
+    public Mono<String> fetch() {
+        return webClient.get()
+            .uri(upstreamUrl)
+            .accept(MediaType.APPLICATION_JSON)
+            .retrieve()
+            .bodyToMono(JsonNode.class)
+            .timeout(readTimeout)
+            .mapNotNull(root -> root.hasNonNull("value") ? root.get("value").asText() : null);
+    }
+
+    // Starts as many fetches as there are free slots in the buffer, counting the fetches already running.
+    private void refill() {
+        while (!closed) {
+            int running = inFlight.get();
+            if (prefetched.size() + running >= prefetchSize) {
+                return;
+            }
+            if (!inFlight.compareAndSet(running, running + 1)) {
+                continue;
+            }
+            fetch()
+                .doFinally(signal -> inFlight.decrementAndGet())
+                .subscribe(prefetched::offer, this::refillFailed);
+        }
+    }
+
+    private void refillFailed(Throwable error) {
+        log.debug("Could not prefetch a joke from {}", upstreamUrl, error);
+        if (retryScheduled.compareAndSet(false, true)) {
+            Mono.delay(retryDelay)
+                .subscribe(tick -> {
+                    retryScheduled.set(false);
+                    refill();
+                });
+        }
+    }
+}
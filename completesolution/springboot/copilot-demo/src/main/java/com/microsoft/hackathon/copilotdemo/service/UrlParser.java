@@ -0,0 +1,404 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/*
+* Splits absolute URLs into their RFC 3986 components: scheme, authority (user info, host and port), path, query and
+* fragment, and the query into its name=value parameters.
+*
+* Parsing only records offsets into the characters of the URL, and never resolves the host. Components are copied
+* out of the URL only when they are written, or asked for as strings. Spaces, control characters and malformed
+* percent-encoded octets make a URL invalid; other characters outside of the RFC 3986 sets are accepted as they are,
+* as log files and browsers often write them unencoded.
+*/
+@Component
+public class UrlParser {
+
+    private static final int MAX_PORT = 65_535;
+
+    // Returns the components of url, or null if it is not a valid absolute URL.
+    public ParsedUrl parse(CharSequence url) {
+        ParsedUrl parsed = new ParsedUrl();
+        return url != null && parsed.parse(url) ? parsed : null;
+    }
+
+    // Reads a JSON array of URLs from urls, positioned on its start, and writes a JSON array with the components of
+    // each of them, as written by ParsedUrl#writeJson, or null for the invalid ones. The generator is not closed.
+    // Throws JsonParseException if urls is not an array of strings and nulls.
+    public void parseAll(JsonParser urls, JsonGenerator generator) throws IOException {
+        ParsedUrl parsed = new ParsedUrl();
+        generator.writeStartArray();
+        JsonToken token;
+        while ((token = urls.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.VALUE_STRING) {
+                // parsed in place, in the buffer of the JSON parser, which is only valid until the next token
+                if (parsed.parse(urls.getTextCharacters(), urls.getTextOffset(), urls.getTextLength())) {
+                    parsed.writeJson(generator);
+                } else {
+                    generator.writeNull();
+                }
+            } else if (token == JsonToken.VALUE_NULL) {
+                generator.writeNull();
+            } else {
+                throw new JsonParseException(urls, "Expected a URL, found " + token);
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    // The components of a URL, as offsets into its characters. An instance can be reused to parse several URLs, one
+    // after the other, and is not thread-safe.
+    public static final class ParsedUrl {
+
+        private char[] buffer = new char[128];
+        private char[] chars;
+        private int end;
+        private int schemeStart;
+        private int schemeEnd;
+        private int userInfoStart;
+        private int userInfoEnd;
+        private int hostStart;
+        private int hostEnd;
+        private int port;
+        private int pathStart;
+        private int pathEnd;
+        private int queryStart;
+        private int fragmentStart;
+        // start and end of the name, then of the value, of every parameter
+        private int[] parameters = new int[32];
+        private int parameterCount;
+
+        public String protocol() {
+            return new String(chars, schemeStart, schemeEnd - schemeStart).toLowerCase(Locale.ROOT);
+        }
+
+        // Returns the user info of the authority, or null if it has none.
+        public String userInfo() {
+            return userInfoStart < 0 ? null : new String(chars, userInfoStart, userInfoEnd - userInfoStart);
+        }
+
+        // Returns the host, with the brackets of an IP literal, or an empty string if the URL has no authority.
+        public String host() {
+            return new String(chars, hostStart, hostEnd - hostStart);
+        }
+
+        // Returns the port, or -1 if the URL has none.
+        public int port() {
+            return port;
+        }
+
+        public String path() {
+            return new String(chars, pathStart, pathEnd - pathStart);
+        }
+
+        // Returns the query, without the question mark, or null if the URL has none.
+        public String query() {
+            return queryStart < 0 ? null : new String(chars, queryStart, queryEnd() - queryStart);
+        }
+
+        // Returns the fragment, without the hash sign, or null if the URL has none.
+        public String fragment() {
+            return fragmentStart < 0 ? null : new String(chars, fragmentStart, end - fragmentStart);
+        }
+
+        // Returns the decoded values of the query parameters by decoded name, in the order the names first appear. A
+        // parameter without an equals sign has an empty value.
+        public Map<String, List<String>> parameters() {
+            Map<String, List<String>> values = new LinkedHashMap<>();
+            for (int i = 0; i < parameterCount; i++) {
+                values.computeIfAbsent(decode(i * 4), name -> new ArrayList<>()).add(decode(i * 4 + 2));
+            }
+            return values;
+        }
+
+        // Writes the components as a JSON object: protocol, host, port, path, query, fragment and parameters, the
+        // values of every parameter name as an array.
+        public void writeJson(JsonGenerator generator) throws IOException {
+            generator.writeStartObject();
+            generator.writeFieldName("protocol");
+            if (isLowerCase(schemeStart, schemeEnd)) {
+                generator.writeString(chars, schemeStart, schemeEnd - schemeStart);
+            } else {
+                generator.writeString(protocol());
+            }
+            generator.writeFieldName("host");
+            generator.writeString(chars, hostStart, hostEnd - hostStart);
+            generator.writeNumberField("port", port);
+            generator.writeFieldName("path");
+            generator.writeString(chars, pathStart, pathEnd - pathStart);
+            generator.writeFieldName("query");
+            writeOptional(generator, queryStart, queryEnd());
+            generator.writeFieldName("fragment");
+            writeOptional(generator, fragmentStart, end);
+            generator.writeObjectFieldStart("parameters");
+            for (int i = 0; i < parameterCount; i++) {
+                if (isFirstOfName(i)) {
+                    generator.writeArrayFieldStart(decode(i * 4));
+                    for (int j = i; j < parameterCount; j++) {
+                        if (j == i || sameName(i, j)) {
+                            writeDecoded(generator, j * 4 + 2);
+                        }
+                    }
+                    generator.writeEndArray();
+                }
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+
+        private boolean parse(CharSequence url) {
+            int length = url.length();
+            if (buffer.length < length) {
+                buffer = new char[Math.max(length, buffer.length * 2)];
+            }
+            for (int i = 0; i < length; i++) {
+                buffer[i] = url.charAt(i);
+            }
+            return parse(buffer, 0, length);
+        }
+
+        private boolean parse(char[] url, int offset, int length) {
+            chars = url;
+            end = offset + length;
+            parameterCount = 0;
+            if (!hasValidCharacters(offset)) {
+                return false;
+            }
+
+            // scheme = ALPHA *( ALPHA / DIGIT / "+" / "-" / "." ) ":"
+            int i = offset;
+            if (i == end || !isAlpha(chars[i])) {
+                return false;
+            }
+            while (i < end && isSchemeChar(chars[i])) {
+                i++;
+            }
+            if (i == end || chars[i] != ':') {
+                return false;
+            }
+            schemeStart = offset;
+            schemeEnd = i++;
+
+            userInfoStart = -1;
+            userInfoEnd = -1;
+            hostStart = i;
+            hostEnd = i;
+            port = -1;
+            if (i + 1 < end && chars[i] == '/' && chars[i + 1] == '/') {
+                i = parseAuthority(i + 2);
+                if (i < 0) {
+                    return false;
+                }
+            }
+
+            pathStart = i;
+            while (i < end && chars[i] != '?' && chars[i] != '#') {
+                i++;
+            }
+            pathEnd = i;
+            queryStart = -1;
+            if (i < end && chars[i] == '?') {
+                queryStart = ++i;
+                while (i < end && chars[i] != '#') {
+                    i++;
+                }
+                splitQuery(queryStart, i);
+            }
+            fragmentStart = i < end ? i + 1 : -1;
+            return true;
+        }
+
+        // Parses the authority starting at start, and returns where it ends, or -1 if it is invalid.
+        private int parseAuthority(int start) {
+            int authorityEnd = start;
+            while (authorityEnd < end && chars[authorityEnd] != '/' && chars[authorityEnd] != '?'
+                && chars[authorityEnd] != '#') {
+                authorityEnd++;
+            }
+            int host = start;
+            for (int i = authorityEnd - 1; i >= start; i--) {
+                if (chars[i] == '@') {
+                    userInfoStart = start;
+                    userInfoEnd = i;
+                    host = i + 1;
+                    break;
+                }
+            }
+
+            int i = host;
+            if (i < authorityEnd && chars[i] == '[') {
+                while (i < authorityEnd && chars[i] != ']') {
+                    i++;
+                }
+                if (i == authorityEnd) {
+                    return -1;
+                }
+                i++;
+                if (i < authorityEnd && chars[i] != ':') {
+                    return -1;
+                }
+            } else {
+                while (i < authorityEnd && chars[i] != ':') {
+                    i++;
+                }
+            }
+            hostStart = host;
+            hostEnd = i;
+
+            if (i < authorityEnd) {
+                // an empty port, as in "http://example.com:/", is allowed and means the default one
+                for (int digit = i + 1; digit < authorityEnd; digit++) {
+                    char c = chars[digit];
+                    if (c < '0' || c > '9') {
+                        return -1;
+                    }
+                    port = (port < 0 ? 0 : port) * 10 + (c - '0');
+                    if (port > MAX_PORT) {
+                        return -1;
+                    }
+                }
+            }
+            return authorityEnd;
+        }
+
+        private void splitQuery(int start, int queryEnd) {
+            int i = start;
+            while (i < queryEnd) {
+                int nameStart = i;
+                int equals = -1;
+                while (i < queryEnd && chars[i] != '&') {
+                    if (equals < 0 && chars[i] == '=') {
+                        equals = i;
+                    }
+                    i++;
+                }
+                if (i > nameStart) {
+                    int nameEnd = equals < 0 ? i : equals;
+                    addParameter(nameStart, nameEnd, equals < 0 ? i : equals + 1, i);
+                }
+                i++;
+            }
+        }
+
+        private void addParameter(int nameStart, int nameEnd, int valueStart, int valueEnd) {
+            int index = parameterCount * 4;
+            if (index == parameters.length) {
+                parameters = Arrays.copyOf(parameters, parameters.length * 2);
+            }
+            parameters[index] = nameStart;
+            parameters[index + 1] = nameEnd;
+            parameters[index + 2] = valueStart;
+            parameters[index + 3] = valueEnd;
+            parameterCount++;
+        }
+
+        private boolean hasValidCharacters(int offset) {
+            for (int i = offset; i < end; i++) {
+                char c = chars[i];
+                if (c <= ' ' || c == 0x7F) {
+                    return false;
+                }
+                if (c == '%' && (i + 2 >= end || !isHexDigit(chars[i + 1]) || !isHexDigit(chars[i + 2]))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int queryEnd() {
+            return fragmentStart < 0 ? end : fragmentStart - 1;
+        }
+
+        private void writeOptional(JsonGenerator generator, int start, int optionalEnd) throws IOException {
+            if (start < 0) {
+                generator.writeNull();
+            } else {
+                generator.writeString(chars, start, optionalEnd - start);
+            }
+        }
+
+        // Writes the name or value whose offsets start at index, decoded, without copying it when it has nothing to
+        // decode.
+        private void writeDecoded(JsonGenerator generator, int index) throws IOException {
+            int start = parameters[index];
+            int length = parameters[index + 1] - start;
+            if (isEncoded(index)) {
+                generator.writeString(decode(index));
+            } else {
+                generator.writeString(chars, start, length);
+            }
+        }
+
+        // Returns the name or value whose offsets start at index, decoded as application/x-www-form-urlencoded.
+        private String decode(int index) {
+            String raw = new String(chars, parameters[index], parameters[index + 1] - parameters[index]);
+            return isEncoded(index) ? URLDecoder.decode(raw, StandardCharsets.UTF_8) : raw;
+        }
+
+        private boolean isEncoded(int index) {
+            for (int i = parameters[index]; i < parameters[index + 1]; i++) {
+                if (chars[i] == '%' || chars[i] == '+') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isFirstOfName(int parameter) {
+            for (int previous = 0; previous < parameter; previous++) {
+                if (sameName(previous, parameter)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean sameName(int a, int b) {
+            int aStart = parameters[a * 4];
+            int aEnd = parameters[a * 4 + 1];
+            int bStart = parameters[b * 4];
+            int bEnd = parameters[b * 4 + 1];
+            if (Arrays.equals(chars, aStart, aEnd, chars, bStart, bEnd)) {
+                return true;
+            }
+            // "a+b" and "a%20b" are the same name once decoded
+            return (isEncoded(a * 4) || isEncoded(b * 4)) && decode(a * 4).equals(decode(b * 4));
+        }
+
+        private boolean isLowerCase(int start, int lowerCaseEnd) {
+            for (int i = start; i < lowerCaseEnd; i++) {
+                if (chars[i] >= 'A' && chars[i] <= 'Z') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isAlpha(char c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        }
+
+        private static boolean isSchemeChar(char c) {
+            return isAlpha(c) || (c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.';
+        }
+
+        private static boolean isHexDigit(char c) {
+            return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+        }
+    }
+}
@@ -2,10 +2,21 @@ package com.microsoft.hackathon.copilotdemo;
 
 import static org.mockito.Mockito.mock;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -16,9 +27,35 @@ import org.springframework.test.web.servlet.result.MockMvcResultMatchers;;
 @AutoConfigureMockMvc 
 class CopilotDemoApplicationTests {
 
+    // local stand-in for the jokes API, so that the tests do not depend on the network
+    private static final HttpServer JOKE_STUB = startJokeStub();
+
     @Autowired
     private MockMvc mockMvc;
 
+    @DynamicPropertySource
+    static void jokeUpstream(DynamicPropertyRegistry registry) {
+        registry.add("joke.upstream.url", () -> "http://localhost:" + JOKE_STUB.getAddress().getPort() + "/jokes/random");
+    }
+
+    private static HttpServer startJokeStub() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/jokes/random", exchange -> {
+                byte[] body = "{\"value\":\"Chuck Norris can unit test an entire application with a single assert.\"}"
+                    .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @Test
 	void hello() throws Exception {
 		mockMvc.perform(MockMvcRequestBuilders.get("/hello?key=world"))
@@ -40,6 +77,15 @@ class CopilotDemoApplicationTests {
 			.andExpect(MockMvcResultMatchers.content().string("difference in days: 31"));
 	}
 
+	@Test
+	void diffdatesBatch() throws Exception {
+		mockMvc.perform(MockMvcRequestBuilders.post("/diffdates/batch")
+				.contentType("application/json")
+				.content("[{\"date1\":\"01-01-2021\",\"date2\":\"01-02-2021\"},{\"date1\":\"01-02-2021\",\"date2\":\"01-01-2021\"},{\"date1\":\"30-02-2021\",\"date2\":\"01-01-2021\"}]"))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.content().json("[31,31,null]"));
+	}
+
 	@Test
 	void diffdatesNoDate1() throws Exception {
 		mockMvc.perform(MockMvcRequestBuilders.get("/diffdates?date2=01-02-2021"))
@@ -94,9 +140,13 @@ class CopilotDemoApplicationTests {
 
 	@Test
 	void validatedni() throws Exception {
-		mockMvc.perform(MockMvcRequestBuilders.get("/validatedni?dni=12345678A"))
+		mockMvc.perform(MockMvcRequestBuilders.get("/validatedni?dni=12345678Z"))
 			.andExpect(MockMvcResultMatchers.status().isOk())
 			.andExpect(MockMvcResultMatchers.content().string("true"));
+
+		mockMvc.perform(MockMvcRequestBuilders.get("/validatedni?dni=12345678A"))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.content().string("false"));
 	
 		mockMvc.perform(MockMvcRequestBuilders.get("/validatedni?dni=12345678a"))
 			.andExpect(MockMvcResultMatchers.status().isOk())
@@ -146,6 +196,16 @@ class CopilotDemoApplicationTests {
 
 	}
 
+	@Test
+	void jokeFromUpstream() throws Exception{
+		MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/joke"))
+			.andExpect(MockMvcResultMatchers.request().asyncStarted())
+			.andReturn();
+		mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.content().string("Chuck Norris can unit test an entire application with a single assert."));
+	}
+
 	@Test
 	void parseUrl() throws Exception{
 		mockMvc.perform(MockMvcRequestBuilders.get("/parseurl?url=https://learn.microsoft.com/en-us/azure/aks/concepts-clusters-workloads?source=recommendations"))
@@ -165,4 +225,33 @@ class CopilotDemoApplicationTests {
 			.andExpect(MockMvcResultMatchers.content().string("url not passed"));
 	}
 
+	@Test
+	void parseUrlEscapesJson() throws Exception{
+		mockMvc.perform(MockMvcRequestBuilders.get("/parseurl").param("url", "http://example.com/a\"b?q=1&q=x%22y"))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.jsonPath("$.path").value("/a\"b"))
+			.andExpect(MockMvcResultMatchers.jsonPath("$.port").value(-1))
+			.andExpect(MockMvcResultMatchers.jsonPath("$.parameters.q[1]").value("x\"y"));
+	}
+
+	@Test
+	void parseUrlInvalid() throws Exception{
+		mockMvc.perform(MockMvcRequestBuilders.get("/parseurl?url=invalid-url"))
+			.andExpect(MockMvcResultMatchers.status().isBadRequest());
+	}
+
+	@Test
+	void parseUrlBatch() throws Exception{
+		MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/parseurl/batch")
+				.contentType("application/json")
+				.content("[\"https://learn.microsoft.com/en-us?source=recommendations\", \"invalid-url\"]"))
+			.andExpect(MockMvcResultMatchers.request().asyncStarted())
+			.andReturn();
+		mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.jsonPath("$[0].host").value("learn.microsoft.com"))
+			.andExpect(MockMvcResultMatchers.jsonPath("$[0].parameters.source[0]").value("recommendations"))
+			.andExpect(MockMvcResultMatchers.jsonPath("$[1]").isEmpty());
+	}
+
 }
@@ -0,0 +1,40 @@
+package com.microsoft.hackathon.copilotdemo.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Virtual-thread execution mode, enabled with {@code threads.virtual.enabled=true}, like
+ * {@code spring.threads.virtual.enabled} of later Spring Boot versions.
+ * <p>
+ * Tomcat then handles every request on its own virtual thread instead of its bounded pool, so blocking endpoints
+ * are no longer capped by {@code server.tomcat.threads.max}. The application task executor, which runs the async
+ * parts of requests such as {@code StreamingResponseBody} and {@code @Async} methods, starts virtual threads too, and
+ * so does {@code ResilientJokeClient} for its blocking upstream calls, bounded by its bulkhead alone. The
+ * mode needs Java 21: enabling it on an older JVM fails the startup rather than silently keeping platform threads.
+ */
+@Configuration
+@ConditionalOnProperty(name = "threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("tomcat-handler-");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+        AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(VirtualThreads.newThreadPerTaskExecutor("task-"));
+    }
+}
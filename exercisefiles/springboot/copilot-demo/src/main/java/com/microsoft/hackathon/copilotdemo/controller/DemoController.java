@@ -1,53 +1,108 @@
 package com.microsoft.hackathon.copilotdemo.controller;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.hackathon.copilotdemo.service.BulkIdValidator;
+import com.microsoft.hackathon.copilotdemo.service.ColorCatalog;
+import com.microsoft.hackathon.copilotdemo.service.DateDiffEngine;
+import com.microsoft.hackathon.copilotdemo.service.DemoMetrics;
+import com.microsoft.hackathon.copilotdemo.service.DirectoryLister;
+import com.microsoft.hackathon.copilotdemo.service.DirectorySnapshotCache;
+import com.microsoft.hackathon.copilotdemo.service.FolderZipper;
+import com.microsoft.hackathon.copilotdemo.service.MultiWordCounter;
+import com.microsoft.hackathon.copilotdemo.service.ResilientJokeClient;
+import com.microsoft.hackathon.copilotdemo.service.SpanishIdValidator;
+import com.microsoft.hackathon.copilotdemo.service.UrlParser;
+import com.microsoft.hackathon.copilotdemo.service.WordCounter;
+import com.microsoft.hackathon.copilotdemo.service.WordIndex;
+import com.microsoft.hackathon.copilotdemo.service.ZipArchiveCache;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
 import java.net.URLDecoder;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.OptionalLong;
 
 @RestController
 public class DemoController {
 
     private static final Logger log = LoggerFactory.getLogger(DemoController.class);
-    private final RestTemplate restTemplate;
-
-    public DemoController(final RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    private static final int MAX_LIST_LIMIT = 10_000;
+    private static final int MAX_DIFF_DATES_BATCH = 100_000;
+    private final ResilientJokeClient jokeClient;
+    private final DateDiffEngine dateDiffEngine;
+    private final SpanishIdValidator spanishIdValidator;
+    private final UrlParser urlParser;
+    private final BulkIdValidator bulkIdValidator;
+    private final ColorCatalog colorCatalog;
+    private final WordCounter wordCounter;
+    private final WordIndex wordIndex;
+    private final MultiWordCounter multiWordCounter;
+    private final FolderZipper folderZipper;
+    private final ZipArchiveCache zipArchiveCache;
+    private final DirectoryLister directoryLister;
+    private final DirectorySnapshotCache directorySnapshotCache;
+    private final DemoMetrics metrics;
+    private final ObjectMapper objectMapper;
+
+    public DemoController(final ResilientJokeClient jokeClient, final DateDiffEngine dateDiffEngine,
+                          final SpanishIdValidator spanishIdValidator, final UrlParser urlParser,
+                          final BulkIdValidator bulkIdValidator,
+                          final ColorCatalog colorCatalog,
+                          final WordCounter wordCounter, final WordIndex wordIndex,
+                          final MultiWordCounter multiWordCounter,
+                          final FolderZipper folderZipper, final ZipArchiveCache zipArchiveCache,
+                          final DirectoryLister directoryLister, final DirectorySnapshotCache directorySnapshotCache,
+                          final DemoMetrics metrics, final ObjectMapper objectMapper) {
+        this.jokeClient = jokeClient;
+        this.dateDiffEngine = dateDiffEngine;
+        this.spanishIdValidator = spanishIdValidator;
+        this.urlParser = urlParser;
+        this.bulkIdValidator = bulkIdValidator;
+        this.colorCatalog = colorCatalog;
+        this.wordCounter = wordCounter;
+        this.wordIndex = wordIndex;
+        this.multiWordCounter = multiWordCounter;
+        this.folderZipper = folderZipper;
+        this.zipArchiveCache = zipArchiveCache;
+        this.directoryLister = directoryLister;
+        this.directorySnapshotCache = directorySnapshotCache;
+        this.metrics = metrics;
+        this.objectMapper = objectMapper;
     }
 
     /*
@@ -72,12 +127,23 @@ public class DemoController {
      */
     @GetMapping("/diffdates")
     public String diffDates(@RequestParam(value = "date1") String date1, @RequestParam(value = "date2") String date2) {
-        if (!date1.matches("\\d{2}-\\d{2}-\\d{4}") || !date2.matches("\\d{2}-\\d{2}-\\d{4}")) {
+        try {
+            return String.valueOf(dateDiffEngine.daysBetween(date1, date2));
+        } catch (IllegalArgumentException e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid date format");
         }
-        LocalDate localDate1 = LocalDate.parse(date1, DateTimeFormatter.ofPattern("dd-MM-yyyy"));
-        LocalDate localDate2 = LocalDate.parse(date2, DateTimeFormatter.ofPattern("dd-MM-yyyy"));
-        return String.valueOf(ChronoUnit.DAYS.between(localDate1, localDate2));
+    }
+
+    /**
+     * Batch variant of /diffdates: takes a JSON array of {"date1": ..., "date2": ...} pairs (at most 100000) and
+     * returns the difference of each pair, in order, or null for the pairs with a date in the wrong format.
+     */
+    @PostMapping("/diffdates/batch")
+    public List<Long> diffDatesBatch(@RequestBody List<DateDiffEngine.DatePair> pairs) {
+        if (pairs.size() > MAX_DIFF_DATES_BATCH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Too many date pairs: " + pairs.size());
+        }
+        return dateDiffEngine.daysBetween(pairs);
     }
 
     /**
@@ -89,15 +155,69 @@ public class DemoController {
      */
     @GetMapping("/validate-spanish-phone")
     public boolean validateSpanishPhoneNumber(@RequestParam(value = "phone") String phone) {
-        return phone.matches("\\+34[6|7|9]\\d{8}");
+        return spanishIdValidator.isValidPhone(phone);
     }
 
     /**
      * Validate the format of a spanish DNI (8 digits and 1 letter). The operation should receive a DNI as parameter and return true if the format is correct, false otherwise.
+     * The letter must be the control letter of the number.
      */
     @GetMapping("/validate-spanish-dni")
     public boolean validateSpanishDni(@RequestParam(value = "dni") String dni) {
-        return dni.matches("\\d{8}[A-Z]");
+        return spanishIdValidator.isValidDni(dni);
+    }
+
+    /**
+     * Bulk variant of the phone and DNI validations, for type=phone or type=dni. The request body holds one value per
+     * line, and the result of every value is streamed back as a line of JSON while the body is read.
+     */
+    @PostMapping("/validate-spanish-ids")
+    public ResponseEntity<StreamingResponseBody> validateSpanishIds(@RequestParam("type") String type,
+                                                                    InputStream body) {
+        return validateSpanishIds(parseIdType(type), bulkIdValidator.lines(body));
+    }
+
+    /**
+     * Same as above, validating the values of the named column of an uploaded CSV file, whose first line is the header.
+     */
+    @PostMapping(value = "/validate-spanish-ids", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> validateSpanishIdsCsv(@RequestParam("type") String type,
+                                                                       @RequestParam("file") MultipartFile file,
+                                                                       @RequestParam("column") String column) throws IOException {
+        BulkIdValidator.IdType idType = parseIdType(type);
+        InputStream input = file.getInputStream();
+        try {
+            return validateSpanishIds(idType, bulkIdValidator.csvColumn(input, column));
+        } catch (IllegalArgumentException e) {
+            input.close();
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> validateSpanishIds(BulkIdValidator.IdType type,
+                                                                     BulkIdValidator.ValueSource values) {
+        StreamingResponseBody responseBody = outputStream -> {
+            try {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+                bulkIdValidator.validate(values, type, generator);
+            } catch (IOException e) {
+                // the status line is already sent, so the client only sees truncated results
+                log.error("Error validating {} values", type, e);
+                throw e;
+            }
+        };
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(responseBody);
+    }
+
+    private static BulkIdValidator.IdType parseIdType(String type) {
+        try {
+            return BulkIdValidator.IdType.fromParameter(type);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid type: " + type);
+        }
     }
 
     /**
@@ -106,54 +226,96 @@ public class DemoController {
      */
     @GetMapping("/color/{name}")
     public String getColor(@PathVariable(value = "name") String name) {
-        ObjectMapper objectMapper = new ObjectMapper();
-        try (InputStream inputStream = getClass().getResourceAsStream("/colors.json")) {
-            JsonNode colors = objectMapper.readTree(inputStream);
-            for (JsonNode color : colors) {
-                if (color.get("color").asText().equalsIgnoreCase(name)) {
-                    return color.get("code").get("hex").asText();
-                }
-            }
-        } catch (IOException e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error reading colors file");
+        String hex = colorCatalog.findHexIgnoreCase(name);
+        metrics.recordColorLookup(hex != null);
+        if (hex == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Color not found");
         }
-        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Color not found");
+        return hex;
     }
 
     /**
      * Create a new operation that call the API https://api.chucknorris.io/jokes/random and return the joke.
      * The function should call the API and return the joke.
+     * When the API is unavailable, a recently served joke is returned with a "110 Response is Stale" warning.
      */
     @GetMapping("/chuck-norris-joke")
-    public String getChuckNorrisJoke() {
-        String url = "https://api.chucknorris.io/jokes/random";
+    public ResponseEntity<String> getChuckNorrisJoke() {
+        ResilientJokeClient.Joke joke;
         try {
-            return restTemplate.getForObject(url, String.class);
+            joke = jokeClient.fetch();
         } catch (RestClientException e) {
             log.error("Error fetching joke", e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error fetching joke", e);
         }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (joke.stale()) {
+            response.header(HttpHeaders.WARNING, "110 - \"Response is Stale\"");
+        }
+        return response.body(joke.body());
+    }
+
+    /**
+     * Circuit state and call, rejection, hedging and fallback counters of the jokes API client.
+     */
+    @GetMapping("/chuck-norris-joke/stats")
+    public ResilientJokeClient.Stats chuckNorrisJokeStats() {
+        return jokeClient.stats();
     }
 
     /**
      * 7. URL parsing
      * Given a url as query parameter, parse it and return the protocol, host, port, path and query parameters.
      * The response should be in Json format.
+     * The url is only decoded again when it is not a URL as it is, as when the whole of it was percent-encoded, so
+     * that "%26" or "+" in a valid url stay part of a parameter value.
      */
     @GetMapping("/parse-url")
-    public Map<String, Object> parseUrl(@RequestParam(value = "url") String url) {
-        try {
-            URL parsedUrl = new URL(URLDecoder.decode(url, StandardCharsets.UTF_8));
-            Map<String, Object> result = new HashMap<>();
-            result.put("protocol", parsedUrl.getProtocol());
-            result.put("host", parsedUrl.getHost());
-            result.put("port", parsedUrl.getPort());
-            result.put("path", parsedUrl.getPath());
-            result.put("query", parsedUrl.getQuery());
-            return result;
-        } catch (Exception e) {
+    public void parseUrl(@RequestParam(value = "url") String url, HttpServletResponse response) throws IOException {
+        UrlParser.ParsedUrl parsedUrl = urlParser.parse(url);
+        if (parsedUrl == null && url.indexOf('%') >= 0) {
+            parsedUrl = urlParser.parse(URLDecoder.decode(url, StandardCharsets.UTF_8));
+        }
+        if (parsedUrl == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid URL");
         }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            parsedUrl.writeJson(generator);
+        }
+    }
+
+    /**
+     * Batch variant of the URL parsing, for log processing. The request body is a JSON array of URLs, and the response
+     * an array with the components of each of them, or null for the invalid ones, streamed while the body is read.
+     */
+    @PostMapping("/parse-url/batch")
+    public ResponseEntity<StreamingResponseBody> parseUrlBatch(InputStream body) throws IOException {
+        JsonParser urls = objectMapper.getFactory().createParser(body);
+        boolean isArray;
+        try {
+            isArray = urls.nextToken() == JsonToken.START_ARRAY;
+        } catch (JsonProcessingException e) {
+            isArray = false;
+        }
+        if (!isArray) {
+            urls.close();
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Expected a JSON array of URLs");
+        }
+
+        StreamingResponseBody responseBody = outputStream -> {
+            try (urls; JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                urlParser.parseAll(urls, generator);
+            } catch (IOException e) {
+                // the status line is already sent, so the client only sees truncated results
+                log.error("Error parsing URLs", e);
+                throw e;
+            }
+        };
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(responseBody);
     }
 
     /**
@@ -162,53 +324,112 @@ public class DemoController {
      */
 
     @GetMapping("/list-files")
-    public Map<String, Object> listFilesAndFolders(@RequestParam("path") String path) {
-        File directory = new File(path);
-
-        if (!directory.exists()) {
+    public Map<String, Object> listFilesAndFolders(@RequestParam("path") String path) throws IOException {
+        if (path.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Path does not exist: " + path);
         }
 
-        if (!directory.isDirectory()) {
+        DirectorySnapshotCache.Snapshot snapshot;
+        try {
+            snapshot = directorySnapshotCache.list(Path.of(path));
+        } catch (NoSuchFileException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Path does not exist: " + path);
+        } catch (NotDirectoryException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "The provided path is not a directory: " + path);
         }
 
-        File[] filesAndFolders = directory.listFiles();
+        metrics.recordListing(snapshot.files().size() + snapshot.folders().size());
+        Map<String, Object> response = new HashMap<>();
+        response.put("path", path);
+        response.put("files", snapshot.files());
+        response.put("folders", snapshot.folders());
+        return response;
+    }
 
-        return getFilesAndFoldersOnPath(path, filesAndFolders);
+    /**
+     * Hit, miss, invalidation and eviction counters of the directory listings cache.
+     */
+    @GetMapping("/list-files/cache-stats")
+    public DirectorySnapshotCache.Stats listFilesCacheStats() {
+        return directorySnapshotCache.stats();
     }
 
-    private static Map<String, Object> getFilesAndFoldersOnPath(final String path, final File[] filesAndFolders) {
-        Map<String, Object> response = new HashMap<>();
-        List<String> files = new ArrayList<>();
-        List<String> folders = new ArrayList<>();
-
-        if (filesAndFolders != null) {
-            for (File file : filesAndFolders) {
-                if (file.isFile()) {
-                    files.add(file.getName());
-                } else if (file.isDirectory()) {
-                    folders.add(file.getName());
-                }
-            }
+    /**
+     * Paginated variant of the listing, selected by the limit query parameter. Entries are streamed as they are read,
+     * at most limit (1 to 10000) per page, with the cursor of the next page (null on the last page).
+     * The optional depth (default 1) lists subdirectories recursively, and attributes=true adds the size and
+     * modification time of every entry.
+     */
+    @GetMapping(value = "/list-files", params = "limit")
+    public ResponseEntity<StreamingResponseBody> listFilesPage(@RequestParam("path") String path,
+                                                               @RequestParam("limit") int limit,
+                                                               @RequestParam(value = "cursor", required = false) String cursor,
+                                                               @RequestParam(value = "depth", defaultValue = "1") int depth,
+                                                               @RequestParam(value = "attributes", defaultValue = "false") boolean attributes) throws IOException {
+        if (limit < 1 || limit > MAX_LIST_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid limit: " + limit);
         }
 
-        response.put("path", path);
-        response.put("files", files);
-        response.put("folders", folders);
-        return response;
+        Path directory = Path.of(path);
+
+        if (!Files.exists(directory)) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Path does not exist: " + path);
+        }
+
+        if (!Files.isDirectory(directory)) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "The provided path is not a directory: " + path);
+        }
+
+        DirectoryLister.Listing listing;
+        try {
+            listing = directoryLister.open(directory, depth, cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try (listing) {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+                generator.writeStartObject();
+                generator.writeStringField("path", path);
+                metrics.recordListing(listing.write(generator, limit, attributes));
+                generator.writeEndObject();
+                // flushed rather than closed, the response stream is closed by the container
+                generator.flush();
+            } catch (IOException e) {
+                // the status line is already sent, so the client only sees a truncated listing
+                log.error("Error listing files in {}", path, e);
+                throw e;
+            }
+        };
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body);
     }
 
     /**
      * Given the path of a file and count the number of occurrence of a provided word. The path and the word should be query parameters. The response should be in Json format.
+     * The optional mode selects between counting occurrences inside lines ("substring", the default) and counting
+     * whitespace-separated tokens equal to the word ("token").
+     * Token counts of files under the indexed tree (wordindex.root) are answered from the word index when the file is
+     * unchanged since it was indexed.
      */
     @GetMapping("/count-word")
     public Map<String, Object> countWordOccurrences(@RequestParam("path") String path,
-                                                    @RequestParam("word") String word) {
+                                                    @RequestParam("word") String word,
+                                                    @RequestParam(value = "mode", defaultValue = "substring") String mode) {
         if (word.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Word cannot be empty");
         }
 
+        WordCounter.MatchMode matchMode;
+        try {
+            matchMode = WordCounter.MatchMode.fromParameter(mode);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid mode: " + mode);
+        }
+
         File file = new File(path);
 
         if (!file.exists()) {
@@ -219,11 +440,15 @@ public class DemoController {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "The provided path is not a file: " + path);
         }
 
-        int wordCount = 0;
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                wordCount += countOccurrences(line, word);
+        long wordCount;
+        try {
+            OptionalLong indexed = matchMode == WordCounter.MatchMode.TOKEN
+                ? wordIndex.count(file.toPath(), word) : OptionalLong.empty();
+            if (indexed.isPresent()) {
+                wordCount = indexed.getAsLong();
+            } else {
+                wordCount = wordCounter.count(file.toPath(), word, matchMode);
+                metrics.recordWordCountScan(file.length());
             }
         } catch (IOException e) {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error reading the file: " + path, e);
@@ -237,76 +462,114 @@ public class DemoController {
         return response;
     }
 
-    private int countOccurrences(String line, String word) {
-        int count = 0;
-        int index = 0;
+    /**
+     * Count the occurrences of several words in several files with a single pass over each file.
+     * The request body contains the "words" and the "paths" to scan. The response maps every path to the number of
+     * occurrences of every word, counted like /count-word does.
+     */
+    @PostMapping("/count-words")
+    public Map<String, Object> countWordsOccurrences(@RequestBody CountWordsRequest request) {
+        if (request.words() == null || request.words().isEmpty() || request.words().contains("")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Words cannot be empty");
+        }
 
-        while ((index = line.indexOf(word, index)) != -1) {
-            count++;
-            index += word.length();
+        if (request.paths() == null || request.paths().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Paths cannot be empty");
         }
 
-        return count;
-    }
+        Map<Path, String> files = new LinkedHashMap<>();
+        for (String path : request.paths()) {
+            File file = new File(path);
 
-    @GetMapping("/zip-folder")
-    public ResponseEntity<InputStreamResource> zipFolder(@RequestParam("path") String path) {
-        File folder = new File(path);
+            if (!file.exists()) {
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "File does not exist: " + path);
+            }
 
-        if (!folder.exists()) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Folder does not exist: " + path);
+            if (!file.isFile()) {
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "The provided path is not a file: " + path);
+            }
+            files.put(file.toPath(), path);
         }
+        long bytes = files.keySet().stream().mapToLong(file -> file.toFile().length()).sum();
 
-        if (!folder.isDirectory()) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "The provided path is not a folder: " + path);
+        Map<Path, Map<String, Long>> counts;
+        try {
+            counts = multiWordCounter.count(files.keySet(), request.words());
+            metrics.recordWordCountScan(bytes);
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error reading the files", e);
         }
 
-        String zipFilePath = folder.getAbsolutePath() + ".zip";
-        try (FileOutputStream fos = new FileOutputStream(zipFilePath);
-             ZipOutputStream zipOut = new ZipOutputStream(fos)) {
+        Map<String, Object> occurrences = new LinkedHashMap<>();
+        counts.forEach((file, wordCounts) -> occurrences.put(files.get(file), wordCounts));
 
-            zipFolderContents(folder, folder.getName(), zipOut);
+        Map<String, Object> response = new HashMap<>();
+        response.put("words", new ArrayList<>(new LinkedHashSet<>(request.words())));
+        response.put("occurrences", occurrences);
 
-        } catch (IOException e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error creating ZIP file", e);
+        return response;
+    }
+
+    public record CountWordsRequest(List<String> words, List<String> paths) {
+    }
+
+    /**
+     * Create a zip file with the content of a given folder. The path of the folder should be a query parameter.
+     * The archive is streamed into the response body as it is built, using chunked transfer encoding.
+     * The optional level (0 to 9) overrides the configured compression level; 0 stores every file.
+     * Archives are cached by a fingerprint of the folder tree, which is also their ETag: unchanged folders are served
+     * from the cache, or answered with 304 when the client already has the archive.
+     */
+    @GetMapping("/zip-folder")
+    public ResponseEntity<StreamingResponseBody> zipFolder(@RequestParam("path") String path,
+                                                           @RequestParam(value = "level", required = false) Integer level,
+                                                           WebRequest webRequest) throws IOException {
+        if (level != null && (level < 0 || level > 9)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid compression level: " + level);
         }
 
-        try {
-            InputStreamResource resource = new InputStreamResource(Files.newInputStream(Paths.get(zipFilePath)));
+        File folder = new File(path);
 
-            return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + folder.getName() + ".zip")
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(resource);
+        if (!folder.exists()) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Folder does not exist: " + path);
+        }
 
-        } catch (IOException e) {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error reading ZIP file", e);
+        if (!folder.isDirectory()) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "The provided path is not a folder: " + path);
         }
-    }
 
-    private void zipFolderContents(File folder, String parentFolder, ZipOutputStream zipOut) throws IOException {
-        File[] files = folder.listFiles();
-        if (files == null) {
-            return;
+        int compressionLevel = level == null ? folderZipper.defaultLevel() : level;
+        String fingerprint = zipArchiveCache.fingerprint(folder.toPath(), compressionLevel);
+        String etag = "\"" + fingerprint + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
         }
 
-        for (File file : files) {
-            String zipEntryName = parentFolder + "/" + file.getName();
-            if (file.isDirectory()) {
-                zipFolderContents(file, zipEntryName, zipOut);
-            } else {
-                try (FileInputStream fis = new FileInputStream(file)) {
-                    zipOut.putNextEntry(new ZipEntry(zipEntryName));
-                    byte[] buffer = new byte[1024];
-                    int length;
-                    while ((length = fis.read(buffer)) >= 0) {
-                        zipOut.write(buffer, 0, length); // Pass offset (0) and length
-                    }
-                    zipOut.closeEntry();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag);
+        StreamingResponseBody body;
+        FileChannel cached = zipArchiveCache.open(fingerprint);
+        if (cached != null) {
+            response.contentLength(cached.size());
+            body = outputStream -> ZipArchiveCache.transfer(cached, outputStream);
+        } else {
+            body = outputStream -> {
+                try {
+                    zipArchiveCache.writeThrough(fingerprint, outputStream, out -> {
+                        FolderZipper.Sizes sizes = folderZipper.zip(folder, out, compressionLevel);
+                        metrics.recordZip(sizes.uncompressed(), sizes.compressed());
+                    });
+                } catch (IOException e) {
+                    // the status line is already sent, so the client only sees a truncated archive
+                    log.error("Error streaming ZIP file for {}", path, e);
+                    throw e;
                 }
-            }
+            };
         }
-    }
 
+        return response
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + folder.getName() + ".zip")
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .body(body);
+    }
 
-}
\ No newline at end of file
+}
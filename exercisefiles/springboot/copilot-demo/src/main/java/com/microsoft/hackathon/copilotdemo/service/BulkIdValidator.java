@@ -0,0 +1,371 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Validates a stream of phone numbers or DNIs with {@link SpanishIdValidator}, writing one JSON object per value as
+ * the input is read.
+ * <p>
+ * Values are read in batches of {@code bulk-validation.batch-size}, validated on a pool of
+ * {@code bulk-validation.parallelism} workers a few batches ahead of the writer, and written in input order. Values
+ * are trimmed, blank ones are skipped, and at most {@value #MAX_VALUE_LENGTH} characters of a value are kept, so
+ * memory use only depends on the batch size and the parallelism, never on the size of the input.
+ */
+@Component
+public class BulkIdValidator {
+
+    static final int MAX_VALUE_LENGTH = 256;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    /**
+     * What the values are validated as.
+     */
+    public enum IdType {
+        PHONE, DNI;
+
+        public static IdType fromParameter(String value) {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        }
+
+        boolean isValid(SpanishIdValidator validator, String value) {
+            return this == PHONE ? validator.isValidPhone(value) : validator.isValidDni(value);
+        }
+    }
+
+    private final SpanishIdValidator validator;
+    private final ThreadPoolExecutor workers;
+    private final int batchSize;
+    private final int readAhead;
+
+    public BulkIdValidator(final SpanishIdValidator validator,
+                           @Value("${bulk-validation.parallelism:0}") final int parallelism,
+                           @Value("${bulk-validation.batch-size:4096}") final int batchSize) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.readAhead = threads * 2;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(readAhead), runnable -> {
+                Thread thread = new Thread(runnable, "bulk-validation-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Reads one value per line of the UTF-8 {@code input}.
+     */
+    public ValueSource lines(InputStream input) {
+        return new LineSource(new CharInput(input));
+    }
+
+    /**
+     * Reads the values of the column named {@code column} in the UTF-8, comma separated {@code input}, whose first
+     * record is the header. Quoted fields may contain commas, quotes (doubled) and line breaks.
+     *
+     * @throws IllegalArgumentException if the header has no such column
+     */
+    public ValueSource csvColumn(InputStream input, String column) throws IOException {
+        CharInput chars = new CharInput(input);
+        List<String> header = new ArrayList<>();
+        CsvSource.readRecord(chars, field -> header.add(field.strip()));
+        int index = header.indexOf(column);
+        if (index < 0) {
+            throw new IllegalArgumentException("No column " + column + " in CSV header " + header);
+        }
+        return new CsvSource(chars, index);
+    }
+
+    /**
+     * Writes a {@code {"line":..,"value":..,"valid":..}} object per value of {@code source}, separated by line breaks.
+     * The generator is flushed after every batch, and is not closed.
+     */
+    public void validate(ValueSource source, IdType type, JsonGenerator generator) throws IOException {
+        // objects are terminated by a line break rather than separated by the default space
+        generator.setRootValueSeparator(null);
+        Deque<Future<Batch>> pending = new ArrayDeque<>();
+        boolean more = true;
+        try {
+            while (more || !pending.isEmpty()) {
+                // keep the workers busy a few batches ahead of the writer, but never further, to bound memory
+                while (more && pending.size() < readAhead) {
+                    Batch batch = Batch.read(source, batchSize);
+                    more = batch.size == batchSize;
+                    if (batch.size > 0) {
+                        pending.add(workers.submit(() -> batch.validate(type, validator)));
+                    }
+                }
+                if (!pending.isEmpty()) {
+                    await(pending.poll()).write(generator);
+                    generator.flush();
+                }
+            }
+        } finally {
+            for (Future<Batch> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static Batch await(Future<Batch> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while validating");
+        } catch (ExecutionException e) {
+            throw new IOException("Error validating values", e.getCause());
+        }
+    }
+
+    /**
+     * A sequence of values, and the line of the input each one was read from.
+     */
+    public abstract static class ValueSource {
+
+        long line;
+
+        /**
+         * Returns the next non-blank value, trimmed, or null at the end of the input.
+         */
+        abstract String next() throws IOException;
+    }
+
+    private static final class Batch {
+
+        private final String[] values;
+        private final long[] lines;
+        private final boolean[] valid;
+        private int size;
+
+        private Batch(int capacity) {
+            this.values = new String[capacity];
+            this.lines = new long[capacity];
+            this.valid = new boolean[capacity];
+        }
+
+        private static Batch read(ValueSource source, int capacity) throws IOException {
+            Batch batch = new Batch(capacity);
+            String value;
+            while (batch.size < capacity && (value = source.next()) != null) {
+                batch.values[batch.size] = value;
+                batch.lines[batch.size] = source.line;
+                batch.size++;
+            }
+            return batch;
+        }
+
+        private Batch validate(IdType type, SpanishIdValidator validator) {
+            for (int i = 0; i < size; i++) {
+                valid[i] = type.isValid(validator, values[i]);
+            }
+            return this;
+        }
+
+        private void write(JsonGenerator generator) throws IOException {
+            for (int i = 0; i < size; i++) {
+                generator.writeStartObject();
+                generator.writeNumberField("line", lines[i]);
+                generator.writeStringField("value", values[i]);
+                generator.writeBooleanField("valid", valid[i]);
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private static final class LineSource extends ValueSource {
+
+        private final CharInput input;
+        private final StringBuilder value = new StringBuilder();
+
+        private LineSource(CharInput input) {
+            this.input = input;
+        }
+
+        @Override
+        String next() throws IOException {
+            while (true) {
+                value.setLength(0);
+                int c = input.read();
+                if (c < 0) {
+                    return null;
+                }
+                line++;
+                while (c >= 0 && c != '\n') {
+                    if (value.length() < MAX_VALUE_LENGTH) {
+                        value.append((char) c);
+                    }
+                    c = input.read();
+                }
+                String stripped = value.toString().strip();
+                if (!stripped.isEmpty()) {
+                    return stripped;
+                }
+            }
+        }
+    }
+
+    private static final class CsvSource extends ValueSource {
+
+        private final CharInput input;
+        private final int column;
+        private String value;
+
+        private CsvSource(CharInput input, int column) {
+            this.input = input;
+            this.column = column;
+        }
+
+        @Override
+        String next() throws IOException {
+            while (true) {
+                if (input.eof) {
+                    return null;
+                }
+                long start = input.lines + 1;
+                value = null;
+                int[] index = {0};
+                readRecord(input, field -> {
+                    if (index[0]++ == column) {
+                        value = field.strip();
+                    }
+                });
+                if (value != null && !value.isEmpty()) {
+                    line = start;
+                    return value;
+                }
+            }
+        }
+
+        /**
+         * Reads the fields of one record, calling {@code fields} with each of them.
+         */
+        static void readRecord(CharInput input, FieldConsumer fields) throws IOException {
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean startOfField = true;
+            while (true) {
+                int c = input.read();
+                if (c < 0 || (!quoted && c == '\n')) {
+                    if (c < 0) {
+                        input.eof = true;
+                    } else {
+                        input.lines++;
+                    }
+                    fields.accept(trimCarriageReturn(field).toString());
+                    return;
+                }
+                if (quoted) {
+                    if (c == '"') {
+                        if (input.peek() == '"') {
+                            input.read();
+                            append(field, '"');
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            input.lines++;
+                        }
+                        append(field, (char) c);
+                    }
+                } else if (c == ',') {
+                    fields.accept(field.toString());
+                    field.setLength(0);
+                    startOfField = true;
+                    continue;
+                } else if (c == '"' && startOfField) {
+                    quoted = true;
+                } else {
+                    append(field, (char) c);
+                }
+                startOfField = false;
+            }
+        }
+
+        private static StringBuilder trimCarriageReturn(StringBuilder field) {
+            if (field.length() > 0 && field.charAt(field.length() - 1) == '\r') {
+                field.setLength(field.length() - 1);
+            }
+            return field;
+        }
+
+        private static void append(StringBuilder field, char c) {
+            if (field.length() < MAX_VALUE_LENGTH) {
+                field.append(c);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface FieldConsumer {
+        void accept(String field) throws IOException;
+    }
+
+    /**
+     * Buffered UTF-8 characters of a stream, without the byte order mark, counting line breaks for CSV records.
+     */
+    private static final class CharInput {
+
+        private final Reader reader;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int position;
+        private int limit;
+        private long lines;
+        private boolean eof;
+
+        private CharInput(InputStream input) {
+            this.reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+        }
+
+        private int read() throws IOException {
+            int c = peek();
+            if (c >= 0) {
+                position++;
+            }
+            return c;
+        }
+
+        private int peek() throws IOException {
+            while (position == limit) {
+                boolean start = limit == 0;
+                int read = reader.read(buffer, 0, buffer.length);
+                if (read < 0) {
+                    return -1;
+                }
+                position = start && buffer[0] == BYTE_ORDER_MARK ? 1 : 0;
+                limit = read;
+            }
+            return buffer[position];
+        }
+    }
+}
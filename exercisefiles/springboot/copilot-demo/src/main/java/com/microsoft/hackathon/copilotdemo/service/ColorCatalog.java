@@ -0,0 +1,222 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable, in-memory index of the colors catalog.
+ * <p>
+ * The catalog is parsed once at startup (from the classpath {@code colors.json}, or from the file configured
+ * with {@code colors.catalog.path}) and kept as a pair of hash indexes: an exact one and a case-insensitive one.
+ * Lookups only read the current snapshot and never allocate.
+ * <p>
+ * When an external catalog file is configured, its modification time is polled every
+ * {@code colors.catalog.reload-interval} and a new snapshot is swapped in when it changes. A catalog that fails to
+ * parse is logged and ignored, so the previous snapshot keeps being served.
+ */
+@Component
+public class ColorCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(ColorCatalog.class);
+    private static final String CLASSPATH_CATALOG = "/colors.json";
+
+    private final ObjectMapper objectMapper;
+    private final Path externalCatalog;
+    private final ScheduledExecutorService reloader;
+
+    private volatile Index index;
+    private volatile FileTime loadedModifiedTime;
+
+    public ColorCatalog(final ObjectMapper objectMapper,
+                        @Value("${colors.catalog.path:}") final String catalogPath,
+                        @Value("${colors.catalog.reload-interval:5s}") final Duration reloadInterval) {
+        this.objectMapper = objectMapper;
+        this.externalCatalog = catalogPath.isBlank() ? null : Paths.get(catalogPath);
+
+        if (externalCatalog == null) {
+            this.index = loadClasspathCatalog();
+            this.reloader = null;
+        } else {
+            this.loadedModifiedTime = lastModified(externalCatalog);
+            this.index = loadExternalCatalog(externalCatalog);
+            this.reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "color-catalog-reloader");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMillis = reloadInterval.toMillis();
+            reloader.scheduleWithFixedDelay(this::reloadIfChanged, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        log.info("Loaded {} colors from {}", index.size(), externalCatalog != null ? externalCatalog : "classpath");
+    }
+
+    /**
+     * Returns the hexadecimal code of the color with exactly the given name, or {@code null} if there is none.
+     */
+    public String findHex(String name) {
+        return index.exact.get(name);
+    }
+
+    /**
+     * Returns the hexadecimal code of the color whose name matches the given one ignoring case, or {@code null} if
+     * there is none.
+     */
+    public String findHexIgnoreCase(String name) {
+        return index.findIgnoreCase(name);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Re-reads the external catalog if its modification time changed since it was last loaded.
+     */
+    void reloadIfChanged() {
+        try {
+            FileTime modifiedTime = lastModified(externalCatalog);
+            if (modifiedTime.equals(loadedModifiedTime)) {
+                return;
+            }
+            Index reloaded = loadExternalCatalog(externalCatalog);
+            index = reloaded;
+            loadedModifiedTime = modifiedTime;
+            log.info("Reloaded {} colors from {}", reloaded.size(), externalCatalog);
+        } catch (RuntimeException e) {
+            log.warn("Error reloading colors catalog {}, keeping the previous one", externalCatalog, e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+        }
+    }
+
+    private Index loadClasspathCatalog() {
+        try (InputStream inputStream = getClass().getResourceAsStream(CLASSPATH_CATALOG)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("Colors catalog not found on classpath: " + CLASSPATH_CATALOG);
+            }
+            return Index.of(objectMapper.readTree(inputStream));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading colors file", e);
+        }
+    }
+
+    private Index loadExternalCatalog(Path path) {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            return Index.of(objectMapper.readTree(inputStream));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading colors file: " + path, e);
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading colors file: " + path, e);
+        }
+    }
+
+    /**
+     * Snapshot of the catalog. The case-insensitive index is an open-addressing table whose hash folds each
+     * character to lower case, so lookups neither copy nor lower-case the requested name.
+     */
+    private static final class Index {
+
+        private final Map<String, String> exact;
+        private final String[] names;
+        private final String[] hexes;
+        private final int[] slots;
+
+        private Index(Map<String, String> exact, String[] names, String[] hexes, int[] slots) {
+            this.exact = exact;
+            this.names = names;
+            this.hexes = hexes;
+            this.slots = slots;
+        }
+
+        static Index of(JsonNode colors) {
+            Map<String, String> exact = new HashMap<>();
+            for (JsonNode color : colors) {
+                JsonNode name = color.get("color");
+                JsonNode hex = color.path("code").get("hex");
+                if (name != null && hex != null) {
+                    // keep the first entry for duplicated names, like the original linear scan did
+                    exact.putIfAbsent(name.asText(), hex.asText());
+                }
+            }
+
+            String[] names = new String[exact.size()];
+            String[] hexes = new String[exact.size()];
+            int[] slots = new int[Integer.highestOneBit(Math.max(1, exact.size()) * 4)];
+            int count = 0;
+            for (JsonNode color : colors) {
+                JsonNode name = color.get("color");
+                if (name == null || !exact.containsKey(name.asText()) || indexOfIgnoreCase(names, slots, name.asText()) >= 0) {
+                    continue;
+                }
+                names[count] = name.asText();
+                hexes[count] = exact.get(name.asText());
+                int slot = hashIgnoreCase(names[count]) & (slots.length - 1);
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & (slots.length - 1);
+                }
+                // slots store index + 1 so that 0 marks an empty slot
+                slots[slot] = ++count;
+            }
+            return new Index(Map.copyOf(exact), names, hexes, slots);
+        }
+
+        int size() {
+            return exact.size();
+        }
+
+        String findIgnoreCase(String name) {
+            int position = indexOfIgnoreCase(names, slots, name);
+            return position < 0 ? null : hexes[position];
+        }
+
+        private static int indexOfIgnoreCase(String[] names, int[] slots, String name) {
+            int slot = hashIgnoreCase(name) & (slots.length - 1);
+            int entry;
+            while ((entry = slots[slot]) != 0) {
+                if (names[entry - 1].equalsIgnoreCase(name)) {
+                    return entry - 1;
+                }
+                slot = (slot + 1) & (slots.length - 1);
+            }
+            return -1;
+        }
+
+        private static int hashIgnoreCase(String value) {
+            int hash = 0;
+            for (int i = 0; i < value.length(); i++) {
+                hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(value.charAt(i)));
+            }
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Domain metrics of the demo endpoints, next to the {@code http.server.requests} timer that Spring MVC keeps for every
+ * endpoint.
+ * <p>
+ * Every meter is registered once, with a fixed set of tag values, so that the number of time series never depends on
+ * the requests: paths, words or color names are never used as tags. Recording only updates existing meters.
+ */
+@Component
+public class DemoMetrics {
+
+    private final Counter wordCountScanned;
+    private final DistributionSummary listedEntries;
+    private final Counter zipBytesIn;
+    private final Counter zipBytesOut;
+    private final DistributionSummary zipCompressionRatio;
+    private final Counter colorHits;
+    private final Counter colorMisses;
+    private final Timer jokeUpstreamSuccesses;
+    private final Timer jokeUpstreamErrors;
+
+    public DemoMetrics(final MeterRegistry registry) {
+        this.wordCountScanned = Counter.builder("demo.countword.scanned")
+            .description("Bytes of files scanned to count words")
+            .baseUnit(BaseUnits.BYTES)
+            .register(registry);
+        this.listedEntries = DistributionSummary.builder("demo.listfiles.entries")
+            .description("Entries returned by a directory listing")
+            .register(registry);
+        this.zipBytesIn = zipBytes(registry, "in");
+        this.zipBytesOut = zipBytes(registry, "out");
+        this.zipCompressionRatio = DistributionSummary.builder("demo.zip.compression.ratio")
+            .description("Size of an archive divided by the size of its files")
+            .register(registry);
+        this.colorHits = colorLookups(registry, "hit");
+        this.colorMisses = colorLookups(registry, "miss");
+        this.jokeUpstreamSuccesses = jokeUpstream(registry, "success");
+        this.jokeUpstreamErrors = jokeUpstream(registry, "error");
+    }
+
+    public void recordWordCountScan(long bytes) {
+        wordCountScanned.increment(bytes);
+    }
+
+    public void recordListing(long entries) {
+        listedEntries.record(entries);
+    }
+
+    /**
+     * Records an archive built from {@code bytesIn} bytes of files, {@code bytesOut} bytes long.
+     */
+    public void recordZip(long bytesIn, long bytesOut) {
+        zipBytesIn.increment(bytesIn);
+        zipBytesOut.increment(bytesOut);
+        if (bytesIn > 0) {
+            zipCompressionRatio.record((double) bytesOut / bytesIn);
+        }
+    }
+
+    public void recordColorLookup(boolean found) {
+        (found ? colorHits : colorMisses).increment();
+    }
+
+    /**
+     * Records a call to the jokes API that took {@code nanos}, whether it answered or failed.
+     */
+    public void recordJokeUpstreamCall(long nanos, boolean success) {
+        (success ? jokeUpstreamSuccesses : jokeUpstreamErrors).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Counter zipBytes(MeterRegistry registry, String direction) {
+        return Counter.builder("demo.zip.bytes")
+            .description("Bytes read from files (in) and written to archives (out) by the zip endpoint")
+            .baseUnit(BaseUnits.BYTES)
+            .tag("direction", direction)
+            .register(registry);
+    }
+
+    private static Counter colorLookups(MeterRegistry registry, String result) {
+        return Counter.builder("demo.color.lookups")
+            .description("Color lookups, by whether the color was found in the catalog")
+            .tag("result", result)
+            .register(registry);
+    }
+
+    private static Timer jokeUpstream(MeterRegistry registry, String outcome) {
+        return Timer.builder("demo.joke.upstream")
+            .description("Calls to the jokes API, hedges included")
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+}
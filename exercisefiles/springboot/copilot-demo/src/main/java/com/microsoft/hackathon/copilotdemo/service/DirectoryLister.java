@@ -0,0 +1,226 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Lists the content of a directory page by page, without ever holding more than one entry per open directory.
+ * <p>
+ * Directories are read with {@link DirectoryStream}, depth-first and in the order the file system returns their
+ * entries, and every entry is written to a {@link JsonGenerator} as soon as it is read. The type, size and
+ * modification time of an entry come from a single {@link BasicFileAttributes} read. Symbolic links are reported as
+ * {@code other} and never followed.
+ * <p>
+ * The cursor of the next page records how many entries were consumed in each directory being walked. Resuming skips
+ * that many entries again, so pages are consistent as long as the directories do not change in between.
+ */
+@Component
+public class DirectoryLister {
+
+    /**
+     * Opens a listing of {@code root} down to {@code depth} levels (1 lists the direct children only), positioned
+     * after the entries already returned with {@code cursor}, or at the start when the cursor is null.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed or no longer matches the directory tree
+     */
+    public Listing open(Path root, int depth, String cursor) throws IOException {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Invalid depth: " + depth);
+        }
+        int[] consumed = decodeCursor(cursor);
+        if (consumed.length > depth) {
+            throw new IllegalArgumentException("Cursor does not match depth " + depth);
+        }
+
+        Listing listing = new Listing(depth);
+        try {
+            Path directory = root;
+            String prefix = "";
+            for (int level = 0; level < consumed.length; level++) {
+                Frame frame = listing.push(directory, prefix);
+                boolean descend = level < consumed.length - 1;
+                // when descending, the last consumed entry is the directory the cursor is in
+                int skip = descend ? consumed[level] - 1 : consumed[level];
+                if (!frame.skip(skip)) {
+                    throw new IllegalArgumentException("Cursor no longer matches the directory tree");
+                }
+                if (descend) {
+                    if (!frame.entries.hasNext()) {
+                        throw new IllegalArgumentException("Cursor no longer matches the directory tree");
+                    }
+                    directory = frame.next();
+                    if (!Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS)) {
+                        throw new IllegalArgumentException("Cursor no longer matches the directory tree");
+                    }
+                    prefix = prefix + directory.getFileName() + "/";
+                }
+            }
+            if (consumed.length == 0) {
+                listing.push(root, "");
+            }
+            return listing;
+        } catch (IOException | RuntimeException e) {
+            listing.close();
+            throw e;
+        }
+    }
+
+    private static int[] decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return new int[0];
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split("\\.");
+            int[] consumed = new int[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                consumed[i] = Integer.parseInt(parts[i]);
+                // every level but the last has consumed at least the directory being walked
+                if (consumed[i] < (i < parts.length - 1 ? 1 : 0)) {
+                    throw new IllegalArgumentException("Invalid cursor: " + cursor);
+                }
+            }
+            return consumed;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    private static String encodeCursor(Deque<Frame> frames) {
+        StringBuilder cursor = new StringBuilder();
+        Iterator<Frame> bottomUp = frames.descendingIterator();
+        while (bottomUp.hasNext()) {
+            if (cursor.length() > 0) {
+                cursor.append('.');
+            }
+            cursor.append(bottomUp.next().consumed);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * An open, positioned listing. It must be closed to release the directory streams.
+     */
+    public static final class Listing implements Closeable {
+
+        private final int depth;
+        private final Deque<Frame> frames = new ArrayDeque<>();
+
+        private Listing(int depth) {
+            this.depth = depth;
+        }
+
+        /**
+         * Writes up to {@code limit} entries as a JSON array field named {@code entries}, followed by a
+         * {@code nextCursor} field that is null when the listing is complete. Returns the number of entries written.
+         */
+        public int write(JsonGenerator generator, int limit, boolean attributes) throws IOException {
+            generator.writeArrayFieldStart("entries");
+            int written = 0;
+            while (written < limit && advance()) {
+                Frame frame = frames.peek();
+                Path entry = frame.next();
+                BasicFileAttributes entryAttributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                String name = frame.prefix + entry.getFileName();
+
+                generator.writeStartObject();
+                generator.writeStringField("name", name);
+                generator.writeStringField("type", entryAttributes.isDirectory() ? "directory"
+                    : entryAttributes.isRegularFile() ? "file" : "other");
+                if (attributes) {
+                    generator.writeNumberField("size", entryAttributes.size());
+                    generator.writeStringField("modified", entryAttributes.lastModifiedTime().toInstant().toString());
+                }
+                generator.writeEndObject();
+                written++;
+
+                if (entryAttributes.isDirectory() && frames.size() < depth) {
+                    push(entry, name + "/");
+                }
+            }
+            generator.writeEndArray();
+
+            // the cursor must be taken before advance() drops the exhausted directories
+            String cursor = encodeCursor(frames);
+            generator.writeStringField("nextCursor", advance() ? cursor : null);
+            return written;
+        }
+
+        /**
+         * Moves to the innermost directory that still has entries, closing the exhausted ones.
+         */
+        private boolean advance() throws IOException {
+            while (!frames.isEmpty()) {
+                if (frames.peek().entries.hasNext()) {
+                    return true;
+                }
+                frames.pop().stream.close();
+            }
+            return false;
+        }
+
+        private Frame push(Path directory, String prefix) throws IOException {
+            Frame frame = new Frame(Files.newDirectoryStream(directory), prefix);
+            frames.push(frame);
+            return frame;
+        }
+
+        @Override
+        public void close() throws IOException {
+            List<IOException> failures = new ArrayList<>();
+            while (!frames.isEmpty()) {
+                try {
+                    frames.pop().stream.close();
+                } catch (IOException e) {
+                    failures.add(e);
+                }
+            }
+            if (!failures.isEmpty()) {
+                throw failures.get(0);
+            }
+        }
+    }
+
+    private static final class Frame {
+
+        private final DirectoryStream<Path> stream;
+        private final Iterator<Path> entries;
+        private final String prefix;
+        private int consumed;
+
+        private Frame(DirectoryStream<Path> stream, String prefix) {
+            this.stream = stream;
+            this.entries = stream.iterator();
+            this.prefix = prefix;
+        }
+
+        private Path next() {
+            consumed++;
+            return entries.next();
+        }
+
+        private boolean skip(int count) {
+            for (int i = 0; i < count; i++) {
+                if (!entries.hasNext()) {
+                    return false;
+                }
+                next();
+            }
+            return true;
+        }
+    }
+}
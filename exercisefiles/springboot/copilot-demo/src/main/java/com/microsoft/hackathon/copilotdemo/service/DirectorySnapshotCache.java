@@ -0,0 +1,237 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory cache of directory listings, kept fresh by a {@link WatchService}.
+ * <p>
+ * A listing is read once, with one attributes read per entry, and then served from memory until the directory
+ * changes. Every cached directory is registered with the watch service, and any creation or deletion in it
+ * invalidates its snapshot. Since watch services may miss changes (network file systems) or report them late
+ * (polling implementations), snapshots also expire after {@code list-files.cache.ttl}.
+ * <p>
+ * At most {@code list-files.cache.max-entries} directories are cached; the least recently used one is evicted, and
+ * stops being watched, when the cache is full.
+ */
+@Component
+public class DirectorySnapshotCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DirectorySnapshotCache.class);
+
+    /**
+     * Names of the regular files and of the directories found in a directory.
+     */
+    public record Snapshot(List<String> files, List<String> folders) {
+    }
+
+    public record Stats(long hits, long misses, long invalidations, long evictions, int size) {
+    }
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final WatchService watchService;
+    private final Map<WatchKey, Watch> watches = new ConcurrentHashMap<>();
+    private final LinkedHashMap<Path, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public DirectorySnapshotCache(@Value("${list-files.cache.ttl:10s}") final Duration ttl,
+                                  @Value("${list-files.cache.max-entries:1000}") final int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Entry> eldest) {
+                if (size() <= DirectorySnapshotCache.this.maxEntries) {
+                    return false;
+                }
+                evictions.increment();
+                eldest.getValue().unwatch();
+                return true;
+            }
+        };
+        this.watchService = newWatchService();
+        if (watchService != null) {
+            Thread watcher = new Thread(this::watch, "list-files-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * Returns the listing of {@code directory}, from memory when it is still fresh.
+     *
+     * @throws java.nio.file.NoSuchFileException if the directory does not exist
+     * @throws java.nio.file.NotDirectoryException if the path is not a directory
+     */
+    public Snapshot list(Path directory) throws IOException {
+        Path key = directory.toAbsolutePath().normalize();
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.isFresh()) {
+                hits.increment();
+                return entry.snapshot;
+            }
+        }
+        misses.increment();
+
+        // watch before reading, so that a change made while reading invalidates the snapshot being read
+        Watch watch = watch(key);
+        long generation = watch == null ? 0 : watch.generation.get();
+        Snapshot snapshot = read(key);
+        synchronized (this) {
+            entries.put(key, new Entry(snapshot, watch, generation, System.nanoTime()));
+        }
+        return snapshot;
+    }
+
+    public Stats stats() {
+        int size;
+        synchronized (this) {
+            size = entries.size();
+        }
+        return new Stats(hits.sum(), misses.sum(), invalidations.sum(), evictions.sum(), size);
+    }
+
+    private static Snapshot read(Path directory) throws IOException {
+        List<String> files = new ArrayList<>();
+        List<String> folders = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path entry : stream) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    // deleted meanwhile, or a dangling link
+                    continue;
+                }
+                if (attributes.isRegularFile()) {
+                    files.add(entry.getFileName().toString());
+                } else if (attributes.isDirectory()) {
+                    folders.add(entry.getFileName().toString());
+                }
+            }
+        }
+        return new Snapshot(List.copyOf(files), List.copyOf(folders));
+    }
+
+    private Watch watch(Path directory) {
+        if (watchService == null || directory.getFileSystem() != FileSystems.getDefault()) {
+            return null;
+        }
+        try {
+            WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE);
+            // registering a directory again returns its existing key
+            return watches.computeIfAbsent(key, Watch::new);
+        } catch (IOException | UnsupportedOperationException e) {
+            // not watchable, the snapshot only expires with the TTL
+            log.debug("Cannot watch {}", directory, e);
+            return null;
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                key.pollEvents();
+                Watch watch = watches.get(key);
+                if (watch != null) {
+                    watch.generation.incrementAndGet();
+                    invalidations.increment();
+                }
+                if (!key.reset()) {
+                    // the directory is gone
+                    watches.remove(key);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // shutting down
+        }
+    }
+
+    private static WatchService newWatchService() {
+        try {
+            return FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("No watch service available, directory listings are only cached for their TTL", e);
+            return null;
+        }
+    }
+
+    /**
+     * A watched directory. Its generation is bumped every time the directory changes.
+     */
+    private static final class Watch {
+
+        private final WatchKey key;
+        private final AtomicLong generation = new AtomicLong();
+
+        private Watch(WatchKey key) {
+            this.key = key;
+        }
+    }
+
+    private final class Entry {
+
+        private final Snapshot snapshot;
+        private final Watch watch;
+        private final long generation;
+        private final long loadedAt;
+
+        private Entry(Snapshot snapshot, Watch watch, long generation, long loadedAt) {
+            this.snapshot = snapshot;
+            this.watch = watch;
+            this.generation = generation;
+            this.loadedAt = loadedAt;
+        }
+
+        private boolean isFresh() {
+            if (System.nanoTime() - loadedAt >= ttlNanos) {
+                return false;
+            }
+            return watch == null || (watch.key.isValid() && watch.generation.get() == generation);
+        }
+
+        private void unwatch() {
+            if (watch != null) {
+                watches.remove(watch.key);
+                watch.key.cancel();
+            }
+        }
+    }
+}
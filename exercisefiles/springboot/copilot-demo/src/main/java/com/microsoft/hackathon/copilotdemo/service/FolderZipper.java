@@ -0,0 +1,372 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the content of a folder as a zip archive straight into an output stream, so that no temporary file or
+ * in-memory copy of the archive is ever made.
+ * <p>
+ * Files up to {@code zip.in-memory-entry-limit} bytes are read and deflated concurrently on a bounded pool of
+ * {@code zip.parallelism} workers, a few entries ahead of the one being written; the compressed entries are then
+ * written in order by the calling thread. Larger files are deflated while they are streamed by the calling thread, so
+ * memory use stays bounded whatever the folder contains.
+ * <p>
+ * Files that are already compressed are STORED instead of deflated. They are detected by their extension, by the
+ * entropy of their first bytes, or because deflating them did not make them smaller.
+ */
+@Component
+public class FolderZipper {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int ENTROPY_SAMPLE_SIZE = 4096;
+    private static final double STORED_ENTROPY_THRESHOLD = 7.5;
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+        "7z", "avif", "br", "bz2", "docx", "ear", "gif", "gz", "heic", "jar", "jpeg", "jpg", "lz4", "mkv", "mov",
+        "mp3", "mp4", "ogg", "png", "pptx", "rar", "tgz", "war", "webm", "webp", "xlsx", "xz", "zip", "zst");
+
+    /**
+     * Total size of the files of an archive, and size of the archive.
+     */
+    public record Sizes(long uncompressed, long compressed) {
+    }
+
+    private final ThreadPoolExecutor workers;
+    private final int defaultLevel;
+    private final int inMemoryEntryLimit;
+    private final int readAhead;
+
+    public FolderZipper(@Value("${zip.compression-level:" + Deflater.DEFAULT_COMPRESSION + "}") final int defaultLevel,
+                        @Value("${zip.parallelism:0}") final int parallelism,
+                        @Value("${zip.in-memory-entry-limit:4194304}") final int inMemoryEntryLimit) {
+        checkLevel(defaultLevel);
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.defaultLevel = defaultLevel;
+        this.inMemoryEntryLimit = inMemoryEntryLimit;
+        this.readAhead = threads * 2;
+        AtomicInteger threadNumber = new AtomicInteger();
+        // callers never submit more than readAhead tasks each, the queue bound only protects against bursts
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(threads * 64), runnable -> {
+                Thread thread = new Thread(runnable, "zip-worker-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Returns the configured compression level.
+     */
+    public int defaultLevel() {
+        return defaultLevel;
+    }
+
+    /**
+     * Writes a zip archive of {@code folder} to {@code out} with the configured compression level. Entries are
+     * prefixed by the folder name. The stream is flushed but not closed. Returns the sizes of the files and of the
+     * archive.
+     */
+    public Sizes zip(File folder, OutputStream out) throws IOException {
+        return zip(folder, out, defaultLevel);
+    }
+
+    /**
+     * Writes a zip archive of {@code folder} to {@code out}, deflating entries with the given level
+     * ({@link Deflater#DEFAULT_COMPRESSION}, or 0 to 9, where 0 stores every entry). The stream is flushed but not
+     * closed. Returns the sizes of the files and of the archive.
+     */
+    public Sizes zip(File folder, OutputStream out, int level) throws IOException {
+        checkLevel(level);
+        ZipStreamWriter writer = new ZipStreamWriter(new BufferedOutputStream(out, BUFFER_SIZE));
+        Iterator<SourceFile> files = walk(folder);
+        Deque<Future<CompressedEntry>> pending = new ArrayDeque<>();
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        try {
+            while (files.hasNext() || !pending.isEmpty()) {
+                // keep the workers busy a few entries ahead of the writer, but never further, to bound memory
+                while (files.hasNext() && pending.size() < readAhead) {
+                    SourceFile file = files.next();
+                    if (file.size() > inMemoryEntryLimit) {
+                        // large files are streamed by this thread, in order, once everything before them is written
+                        pending.add(CompletableFuture.completedFuture(new CompressedEntry(file)));
+                    } else {
+                        pending.add(workers.submit(() -> compress(file, level)));
+                    }
+                }
+
+                CompressedEntry entry = await(pending.poll());
+                if (entry.data == null) {
+                    writeLargeFile(writer, entry.source, level, buffer);
+                } else {
+                    writer.writeEntry(entry.source.name(), entry.method, entry.crc, entry.uncompressedSize,
+                        entry.source.modified(), entry.data, 0, entry.length);
+                }
+            }
+            writer.finish();
+            return new Sizes(writer.uncompressed(), writer.written());
+        } finally {
+            for (Future<CompressedEntry> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static CompressedEntry compress(SourceFile file, int level) throws IOException {
+        byte[] content;
+        try (InputStream inputStream = new FileInputStream(file.file())) {
+            content = inputStream.readAllBytes();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(content);
+
+        if (level != 0 && !looksCompressed(file.name(), content, content.length)) {
+            Deflater deflater = new Deflater(level, true);
+            try {
+                deflater.setInput(content);
+                deflater.finish();
+                byte[] compressed = new byte[Math.max(64, content.length + (content.length >> 3))];
+                int length = 0;
+                // give up as soon as the output is no smaller than the input, the entry is then STORED
+                while (!deflater.finished() && length < content.length) {
+                    length += deflater.deflate(compressed, length, compressed.length - length);
+                }
+                if (deflater.finished() && length < content.length) {
+                    return new CompressedEntry(file, ZipStreamWriter.DEFLATED, crc.getValue(), content.length, compressed, length);
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+        return new CompressedEntry(file, ZipStreamWriter.STORED, crc.getValue(), content.length, content, content.length);
+    }
+
+    private static void writeLargeFile(ZipStreamWriter writer, SourceFile file, int level, byte[] buffer) throws IOException {
+        byte[] sample;
+        try (InputStream inputStream = new FileInputStream(file.file())) {
+            sample = inputStream.readNBytes(ENTROPY_SAMPLE_SIZE);
+        }
+
+        if (level == 0 || looksCompressed(file.name(), sample, sample.length)) {
+            // STORED entries need their CRC in the local header, so checksum the file before copying it
+            CRC32 crc = new CRC32();
+            long size = 0;
+            try (InputStream inputStream = new FileInputStream(file.file())) {
+                int length;
+                while ((length = inputStream.read(buffer)) >= 0) {
+                    crc.update(buffer, 0, length);
+                    size += length;
+                }
+            }
+            writer.beginEntry(file.name(), ZipStreamWriter.STORED, crc.getValue(), size, size, file.modified());
+            long remaining = size;
+            try (InputStream inputStream = new FileInputStream(file.file())) {
+                int length;
+                while (remaining > 0 && (length = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining))) >= 0) {
+                    writer.writeData(buffer, 0, length);
+                    remaining -= length;
+                }
+            }
+            if (remaining != 0) {
+                throw new IOException("File changed while being zipped: " + file.file());
+            }
+            return;
+        }
+
+        writer.beginStreamedEntry(file.name(), file.size(), file.modified());
+        CRC32 crc = new CRC32();
+        Deflater deflater = new Deflater(level, true);
+        byte[] output = new byte[BUFFER_SIZE];
+        long uncompressedSize = 0;
+        long compressedSize = 0;
+        try (InputStream inputStream = new FileInputStream(file.file())) {
+            int length;
+            while ((length = inputStream.read(buffer)) >= 0) {
+                crc.update(buffer, 0, length);
+                uncompressedSize += length;
+                deflater.setInput(buffer, 0, length);
+                while (!deflater.needsInput()) {
+                    int deflated = deflater.deflate(output);
+                    writer.writeData(output, 0, deflated);
+                    compressedSize += deflated;
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                int deflated = deflater.deflate(output);
+                writer.writeData(output, 0, deflated);
+                compressedSize += deflated;
+            }
+        } finally {
+            deflater.end();
+        }
+        writer.closeStreamedEntry(crc.getValue(), compressedSize, uncompressedSize);
+    }
+
+    /**
+     * Whether the content is most likely already compressed, judging by the file extension or by the Shannon
+     * entropy (in bits per byte) of its first bytes.
+     */
+    static boolean looksCompressed(String name, byte[] content, int length) {
+        int dot = name.lastIndexOf('.');
+        if (dot >= 0 && COMPRESSED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT))) {
+            return true;
+        }
+        int sampleLength = Math.min(length, ENTROPY_SAMPLE_SIZE);
+        if (sampleLength < 256) {
+            return false;
+        }
+        int[] frequencies = new int[256];
+        for (int i = 0; i < sampleLength; i++) {
+            frequencies[content[i] & 0xFF]++;
+        }
+        double entropy = 0;
+        for (int frequency : frequencies) {
+            if (frequency > 0) {
+                double probability = (double) frequency / sampleLength;
+                entropy -= probability * Math.log(probability);
+            }
+        }
+        return entropy / Math.log(2) > STORED_ENTROPY_THRESHOLD;
+    }
+
+    private static CompressedEntry await(Future<CompressedEntry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while zipping");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Error compressing ZIP entry", e.getCause());
+        }
+    }
+
+    /**
+     * Lazily walks the folder depth-first, in the same order the entries used to be written.
+     */
+    private static Iterator<SourceFile> walk(File folder) {
+        Deque<Iterator<SourceFile>> stack = new ArrayDeque<>();
+        stack.push(list(folder, folder.getName()).iterator());
+        return new Iterator<>() {
+            private SourceFile next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && !stack.isEmpty()) {
+                    Iterator<SourceFile> current = stack.peek();
+                    if (!current.hasNext()) {
+                        stack.pop();
+                        continue;
+                    }
+                    SourceFile candidate = current.next();
+                    if (candidate.file().isDirectory()) {
+                        stack.push(list(candidate.file(), candidate.name()).iterator());
+                    } else {
+                        next = candidate;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public SourceFile next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                SourceFile result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+
+    private static List<SourceFile> list(File folder, String parentFolder) {
+        File[] files = folder.listFiles();
+        if (files == null) {
+            return List.of();
+        }
+        List<SourceFile> result = new ArrayList<>(files.length);
+        for (File file : files) {
+            result.add(new SourceFile(file, parentFolder + "/" + file.getName()));
+        }
+        return result;
+    }
+
+    private static void checkLevel(int level) {
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < 0 || level > 9)) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+    }
+
+    private record SourceFile(File file, String name) {
+
+        long size() {
+            return file.length();
+        }
+
+        long modified() {
+            return file.lastModified();
+        }
+    }
+
+    private static final class CompressedEntry {
+
+        private final SourceFile source;
+        private final int method;
+        private final long crc;
+        private final long uncompressedSize;
+        private final byte[] data;
+        private final int length;
+
+        CompressedEntry(SourceFile source, int method, long crc, long uncompressedSize, byte[] data, int length) {
+            this.source = source;
+            this.method = method;
+            this.crc = crc;
+            this.uncompressedSize = uncompressedSize;
+            this.data = data;
+            this.length = length;
+        }
+
+        /**
+         * Placeholder for a large file that the writer streams itself.
+         */
+        CompressedEntry(SourceFile source) {
+            this(source, ZipStreamWriter.DEFLATED, 0, 0, null, 0);
+        }
+    }
+}
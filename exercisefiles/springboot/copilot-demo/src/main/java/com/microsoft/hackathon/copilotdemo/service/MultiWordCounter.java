@@ -0,0 +1,188 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Counts many words in many files, reading every file exactly once.
+ * <p>
+ * All the words are compiled into a single Aho-Corasick automaton over their UTF-8 bytes, which is then run over the
+ * content of each file. Occurrences are counted with the same semantics as {@link WordCounter.MatchMode#SUBSTRING}:
+ * non-overlapping occurrences of each word within a line.
+ */
+@Component
+public class MultiWordCounter {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * Returns, for each file in iteration order, the number of occurrences of each distinct word.
+     */
+    public Map<Path, Map<String, Long>> count(Collection<Path> files, Collection<String> words) throws IOException {
+        List<String> distinctWords = new ArrayList<>(new LinkedHashSet<>(words));
+        Automaton automaton = Automaton.compile(distinctWords);
+
+        Map<Path, Map<String, Long>> result = new LinkedHashMap<>();
+        for (Path file : files) {
+            long[] counts = automaton.scan(file);
+            Map<String, Long> fileCounts = new LinkedHashMap<>();
+            for (int i = 0; i < distinctWords.size(); i++) {
+                fileCounts.put(distinctWords.get(i), counts[i]);
+            }
+            result.put(file, fileCounts);
+        }
+        return result;
+    }
+
+    /**
+     * Aho-Corasick automaton with every failure transition resolved ahead of time, so scanning costs a single array
+     * lookup per byte.
+     */
+    static final class Automaton {
+
+        private final int[] transitions;
+        private final int[][] outputs;
+        private final int[] lengths;
+
+        private Automaton(int[] transitions, int[][] outputs, int[] lengths) {
+            this.transitions = transitions;
+            this.outputs = outputs;
+            this.lengths = lengths;
+        }
+
+        static Automaton compile(List<String> words) {
+            List<int[]> trie = new ArrayList<>();
+            List<int[]> matches = new ArrayList<>();
+            trie.add(newState());
+            matches.add(new int[0]);
+            int[] lengths = new int[words.size()];
+
+            for (int w = 0; w < words.size(); w++) {
+                byte[] pattern = words.get(w).getBytes(StandardCharsets.UTF_8);
+                lengths[w] = pattern.length;
+                if (pattern.length == 0 || containsLineBreak(pattern)) {
+                    // lines never contain line breaks, so such a word cannot occur
+                    continue;
+                }
+                int state = 0;
+                for (byte b : pattern) {
+                    int next = trie.get(state)[b & 0xFF];
+                    if (next < 0) {
+                        next = trie.size();
+                        trie.add(newState());
+                        matches.add(new int[0]);
+                        trie.get(state)[b & 0xFF] = next;
+                    }
+                    state = next;
+                }
+                matches.set(state, append(matches.get(state), w));
+            }
+
+            int stateCount = trie.size();
+            int[] transitions = new int[stateCount * 256];
+            int[] failure = new int[stateCount];
+            int[][] outputs = matches.toArray(new int[0][]);
+            Queue<Integer> queue = new ArrayDeque<>();
+
+            for (int symbol = 0; symbol < 256; symbol++) {
+                int next = trie.get(0)[symbol];
+                if (next < 0) {
+                    transitions[symbol] = 0;
+                } else {
+                    transitions[symbol] = next;
+                    failure[next] = 0;
+                    queue.add(next);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                outputs[state] = concat(outputs[state], outputs[failure[state]]);
+                for (int symbol = 0; symbol < 256; symbol++) {
+                    int next = trie.get(state)[symbol];
+                    int fallback = transitions[failure[state] * 256 + symbol];
+                    if (next < 0) {
+                        transitions[state * 256 + symbol] = fallback;
+                    } else {
+                        transitions[state * 256 + symbol] = next;
+                        failure[next] = fallback;
+                        queue.add(next);
+                    }
+                }
+            }
+            return new Automaton(transitions, outputs, lengths);
+        }
+
+        long[] scan(Path file) throws IOException {
+            long[] counts = new long[lengths.length];
+            // position right after the last counted occurrence of each word, to keep occurrences non-overlapping
+            long[] nextAllowedStart = new long[lengths.length];
+            int state = 0;
+            long position = 0;
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                byte[] bytes = buffer.array();
+                int read;
+                while ((read = channel.read(buffer)) != -1) {
+                    for (int i = 0; i < read; i++, position++) {
+                        state = transitions[state * 256 + (bytes[i] & 0xFF)];
+                        for (int word : outputs[state]) {
+                            long start = position - lengths[word] + 1;
+                            if (start >= nextAllowedStart[word]) {
+                                counts[word]++;
+                                nextAllowedStart[word] = position + 1;
+                            }
+                        }
+                    }
+                    buffer.clear();
+                }
+            }
+            return counts;
+        }
+
+        private static int[] newState() {
+            int[] state = new int[256];
+            Arrays.fill(state, -1);
+            return state;
+        }
+
+        private static int[] append(int[] values, int value) {
+            int[] copy = Arrays.copyOf(values, values.length + 1);
+            copy[values.length] = value;
+            return copy;
+        }
+
+        private static int[] concat(int[] first, int[] second) {
+            if (second.length == 0) {
+                return first;
+            }
+            int[] copy = Arrays.copyOf(first, first.length + second.length);
+            System.arraycopy(second, 0, copy, first.length, second.length);
+            return copy;
+        }
+
+        private static boolean containsLineBreak(byte[] pattern) {
+            for (byte b : pattern) {
+                if (b == '\n' || b == '\r') {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import com.microsoft.hackathon.copilotdemo.config.VirtualThreads;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Calls the jokes API through a bulkhead, a circuit breaker and request hedging, and falls back to recently served
+ * jokes when the API cannot answer.
+ * <p>
+ * <ul>
+ *     <li>Bulkhead: at most {@code joke.resilience.max-concurrent-calls} upstream calls run at once, on a dedicated
+ *     pool, or on virtual threads in the virtual-thread mode ({@code threads.virtual.enabled}). A request waits at
+ *     most {@code joke.resilience.max-wait} for a slot, and then for the answer at most
+ *     {@code joke.resilience.call-timeout}, so request threads are never held for a whole socket timeout.</li>
+ *     <li>Circuit breaker: over the last {@code joke.resilience.window-size} calls, once at least
+ *     {@code joke.resilience.minimum-calls} were made and {@code joke.resilience.failure-rate-threshold} percent
+ *     failed, the circuit opens and calls are refused for {@code joke.resilience.open-duration}. It then lets
+ *     {@code joke.resilience.half-open-probes} probe calls through: if they all succeed it closes, otherwise it opens
+ *     again.</li>
+ *     <li>Hedging: when a call takes longer than the {@code joke.resilience.hedge-percentile} of the recent successful
+ *     latencies (but at least {@code joke.resilience.hedge-min-delay}), a second identical call is sent if the
+ *     bulkhead has room, and the first answer wins.</li>
+ *     <li>Fallback: the last {@code joke.resilience.stale-buffer-size} good answers are kept in a ring buffer and
+ *     served, in turn, whenever a call is refused or fails.</li>
+ * </ul>
+ */
+@Component
+public class ResilientJokeClient {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilientJokeClient.class);
+    private static final int LATENCY_SAMPLES = 128;
+    private static final int MIN_HEDGE_SAMPLES = 20;
+
+    /**
+     * A joke, and whether it comes from the fallback buffer rather than from the API.
+     */
+    public record Joke(String body, boolean stale) {
+    }
+
+    public record Stats(String circuitState, long calls, long successes, long failures, long timeouts,
+                        long shortCircuited, long bulkheadRejected, long circuitOpened, long hedges, long hedgesWon,
+                        long staleServed, long unavailable, int inFlight, int staleBuffered, long hedgeDelayMillis) {
+    }
+
+    private final RestTemplate restTemplate;
+    private final DemoMetrics metrics;
+    private final String url;
+    private final long maxWaitNanos;
+    private final long callTimeoutNanos;
+    private final double hedgePercentile;
+    private final long hedgeMinDelayNanos;
+
+    private final Semaphore bulkhead;
+    private final int maxConcurrentCalls;
+    private final ExecutorService executor;
+    private final CircuitBreaker circuitBreaker;
+    private final StaleBuffer staleBuffer;
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+    private int latencyIndex;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder bulkheadRejected = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+    private final LongAdder unavailable = new LongAdder();
+
+    public ResilientJokeClient(final RestTemplate restTemplate, final DemoMetrics metrics,
+                               @Value("${joke.upstream.url:https://api.chucknorris.io/jokes/random}") final String url,
+                               @Value("${joke.resilience.max-concurrent-calls:10}") final int maxConcurrentCalls,
+                               @Value("${joke.resilience.max-wait:0ms}") final Duration maxWait,
+                               @Value("${joke.resilience.call-timeout:3s}") final Duration callTimeout,
+                               @Value("${joke.resilience.window-size:20}") final int windowSize,
+                               @Value("${joke.resilience.minimum-calls:10}") final int minimumCalls,
+                               @Value("${joke.resilience.failure-rate-threshold:50}") final int failureRateThreshold,
+                               @Value("${joke.resilience.open-duration:10s}") final Duration openDuration,
+                               @Value("${joke.resilience.half-open-probes:2}") final int halfOpenProbes,
+                               @Value("${joke.resilience.hedge-percentile:95}") final double hedgePercentile,
+                               @Value("${joke.resilience.hedge-min-delay:50ms}") final Duration hedgeMinDelay,
+                               @Value("${joke.resilience.stale-buffer-size:10}") final int staleBufferSize,
+                               @Value("${threads.virtual.enabled:false}") final boolean virtualThreads) {
+        this.restTemplate = restTemplate;
+        this.metrics = metrics;
+        this.url = url;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.callTimeoutNanos = callTimeout.toNanos();
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinDelayNanos = hedgeMinDelay.toNanos();
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.executor = virtualThreads
+            ? VirtualThreads.newThreadPerTaskExecutor("joke-upstream-")
+            : newUpstreamPool(maxConcurrentCalls);
+        this.circuitBreaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold,
+            openDuration.toNanos(), halfOpenProbes);
+        this.staleBuffer = new StaleBuffer(staleBufferSize);
+    }
+
+    /**
+     * Platform threads for the upstream calls. Every task holds a bulkhead permit, so the pool never needs more threads
+     * than there are permits; virtual threads are bounded by the bulkhead alone.
+     */
+    private static ExecutorService newUpstreamPool(int maxConcurrentCalls) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(0, maxConcurrentCalls, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "joke-upstream-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns a joke from the API, or a recently served one when the API cannot answer.
+     *
+     * @throws RestClientException if the API cannot answer and no joke was served yet
+     */
+    public Joke fetch() {
+        calls.increment();
+        if (!acquire(maxWaitNanos)) {
+            bulkheadRejected.increment();
+            return fallback(new RestClientException("Too many concurrent calls to " + url));
+        }
+        if (!circuitBreaker.tryAcquire(System.nanoTime())) {
+            bulkhead.release();
+            shortCircuited.increment();
+            return fallback(new RestClientException("Circuit open for " + url));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<Answer> answer = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        try {
+            submit(answer, pending, false);
+            long hedgeDelay = hedgeDelayNanos();
+            Answer result;
+            if (hedgeDelay < 0 || hedgeDelay >= callTimeoutNanos) {
+                result = answer.get(callTimeoutNanos, TimeUnit.NANOSECONDS);
+            } else {
+                try {
+                    result = answer.get(hedgeDelay, TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    hedge(answer, pending);
+                    result = answer.get(callTimeoutNanos - (System.nanoTime() - start), TimeUnit.NANOSECONDS);
+                }
+            }
+            if (result.hedge) {
+                hedgesWon.increment();
+            }
+            successes.increment();
+            circuitBreaker.onSuccess();
+            staleBuffer.add(result.body);
+            return new Joke(result.body, false);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            return failed(new RestClientException("Timed out calling " + url));
+        } catch (ExecutionException e) {
+            return failed(e.getCause() instanceof RestClientException restClientException ? restClientException
+                : new RestClientException("Error calling " + url, e.getCause()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failed(new RestClientException("Interrupted calling " + url, e));
+        } finally {
+            // calls still running keep their bulkhead permit until they return, whatever the outcome here
+            answer.cancel(false);
+        }
+    }
+
+    public Stats stats() {
+        long hedgeDelay = hedgeDelayNanos();
+        return new Stats(circuitBreaker.state().name(), calls.sum(), successes.sum(), failures.sum(), timeouts.sum(),
+            shortCircuited.sum(), bulkheadRejected.sum(), circuitBreaker.opened(), hedges.sum(), hedgesWon.sum(),
+            staleServed.sum(), unavailable.sum(), maxConcurrentCalls - bulkhead.availablePermits(),
+            staleBuffer.size(), hedgeDelay < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(hedgeDelay));
+    }
+
+    private void hedge(CompletableFuture<Answer> answer, AtomicInteger pending) {
+        // a hedge is only worth sending while no answer is in, and never at the expense of the bulkhead
+        if (answer.isDone() || !bulkhead.tryAcquire()) {
+            return;
+        }
+        pending.incrementAndGet();
+        hedges.increment();
+        submit(answer, pending, true);
+    }
+
+    /**
+     * Runs one upstream call holding an already acquired bulkhead permit. The first success completes the answer;
+     * the answer only fails once every call failed.
+     */
+    private void submit(CompletableFuture<Answer> answer, AtomicInteger pending, boolean hedge) {
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    String body = restTemplate.getForObject(url, String.class);
+                    long latency = System.nanoTime() - start;
+                    recordLatency(latency);
+                    metrics.recordJokeUpstreamCall(latency, true);
+                    answer.complete(new Answer(body, hedge));
+                } catch (RuntimeException e) {
+                    metrics.recordJokeUpstreamCall(System.nanoTime() - start, false);
+                    if (pending.decrementAndGet() == 0) {
+                        answer.completeExceptionally(e);
+                    }
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            if (pending.decrementAndGet() == 0) {
+                answer.completeExceptionally(e);
+            }
+        }
+    }
+
+    private Joke failed(RestClientException e) {
+        failures.increment();
+        circuitBreaker.onFailure(System.nanoTime());
+        log.warn("Joke upstream call failed: {}", e.getMessage());
+        return fallback(e);
+    }
+
+    private Joke fallback(RestClientException e) {
+        String stale = staleBuffer.next();
+        if (stale == null) {
+            unavailable.increment();
+            throw e;
+        }
+        staleServed.increment();
+        return new Joke(stale, true);
+    }
+
+    private boolean acquire(long timeoutNanos) {
+        try {
+            return timeoutNanos <= 0 ? bulkhead.tryAcquire() : bulkhead.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencies[latencyIndex] = nanos;
+        latencyIndex = (latencyIndex + 1) % LATENCY_SAMPLES;
+        latencyCount = Math.min(latencyCount + 1, LATENCY_SAMPLES);
+    }
+
+    /**
+     * Returns how long to wait before hedging, or -1 while there are too few latency samples to tell.
+     */
+    private synchronized long hedgeDelayNanos() {
+        if (latencyCount < MIN_HEDGE_SAMPLES) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(hedgePercentile / 100 * latencyCount) - 1;
+        return Math.max(hedgeMinDelayNanos, sorted[Math.max(0, Math.min(rank, latencyCount - 1))]);
+    }
+
+    private record Answer(String body, boolean hedge) {
+    }
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Count-based circuit breaker. Outcomes of the last calls are kept in a ring, as failure flags.
+     */
+    static final class CircuitBreaker {
+
+        private final boolean[] window;
+        private final int minimumCalls;
+        private final int failureRateThreshold;
+        private final long openDurationNanos;
+        private final int halfOpenProbes;
+
+        private State state = State.CLOSED;
+        private int recorded;
+        private int next;
+        private int failed;
+        private long openedAt;
+        private int probesStarted;
+        private int probesSucceeded;
+        private long opened;
+
+        CircuitBreaker(int windowSize, int minimumCalls, int failureRateThreshold, long openDurationNanos,
+                       int halfOpenProbes) {
+            this.window = new boolean[windowSize];
+            this.minimumCalls = Math.min(minimumCalls, windowSize);
+            this.failureRateThreshold = failureRateThreshold;
+            this.openDurationNanos = openDurationNanos;
+            this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            if (state == State.OPEN) {
+                if (now - openedAt < openDurationNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probesStarted = 0;
+                probesSucceeded = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesStarted >= halfOpenProbes) {
+                    return false;
+                }
+                probesStarted++;
+            }
+            return true;
+        }
+
+        synchronized void onSuccess() {
+            if (state == State.HALF_OPEN) {
+                if (++probesSucceeded >= halfOpenProbes) {
+                    state = State.CLOSED;
+                    recorded = 0;
+                    next = 0;
+                    failed = 0;
+                }
+            } else if (state == State.CLOSED) {
+                record(false);
+            }
+        }
+
+        synchronized void onFailure(long now) {
+            if (state == State.HALF_OPEN) {
+                open(now);
+            } else if (state == State.CLOSED) {
+                record(true);
+                if (recorded >= minimumCalls && failed * 100L >= (long) failureRateThreshold * recorded) {
+                    open(now);
+                }
+            }
+        }
+
+        synchronized State state() {
+            return state;
+        }
+
+        synchronized long opened() {
+            return opened;
+        }
+
+        private void record(boolean failure) {
+            if (recorded == window.length) {
+                if (window[next]) {
+                    failed--;
+                }
+            } else {
+                recorded++;
+            }
+            window[next] = failure;
+            if (failure) {
+                failed++;
+            }
+            next = (next + 1) % window.length;
+        }
+
+        private void open(long now) {
+            state = State.OPEN;
+            openedAt = now;
+            opened++;
+        }
+    }
+
+    /**
+     * Ring buffer of the last good answers, served in turn.
+     */
+    static final class StaleBuffer {
+
+        private final String[] jokes;
+        private int count;
+        private int writeIndex;
+        private int readIndex;
+
+        StaleBuffer(int capacity) {
+            this.jokes = new String[capacity];
+        }
+
+        synchronized void add(String joke) {
+            if (jokes.length == 0 || joke == null) {
+                return;
+            }
+            jokes[writeIndex] = joke;
+            writeIndex = (writeIndex + 1) % jokes.length;
+            count = Math.min(count + 1, jokes.length);
+        }
+
+        synchronized String next() {
+            if (count == 0) {
+                return null;
+            }
+            // newest first: walk backwards from the last written slot
+            String joke = jokes[Math.floorMod(writeIndex - 1 - readIndex, jokes.length)];
+            readIndex = (readIndex + 1) % count;
+            return joke;
+        }
+
+        synchronized int size() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Counts the occurrences of a word in a file without decoding it into Strings.
+ * <p>
+ * The file is memory-mapped and split into chunks of about {@code wordcount.chunk-size} bytes. Chunk boundaries are
+ * moved forward to the next delimiter (a line break for {@link MatchMode#SUBSTRING}, any whitespace for
+ * {@link MatchMode#TOKEN}) so that no match can straddle two chunks, and the chunks are scanned in parallel on a
+ * dedicated fork-join pool of {@code wordcount.parallelism} workers. The word is matched against the UTF-8 bytes of
+ * the file.
+ */
+@Component
+public class WordCounter {
+
+    private static final int BOUNDARY_WINDOW = 64 * 1024;
+
+    /**
+     * How occurrences of the word are counted.
+     */
+    public enum MatchMode {
+        /**
+         * Non-overlapping occurrences of the word anywhere inside a line, like {@link String#indexOf(String, int)}.
+         */
+        SUBSTRING,
+        /**
+         * Whitespace-separated tokens equal to the word, like splitting the content with {@code \s+}.
+         */
+        TOKEN;
+
+        public static MatchMode fromParameter(String value) {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        }
+
+        boolean isDelimiter(byte b) {
+            return this == SUBSTRING ? b == '\n' : isWhitespace(b);
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final long chunkSize;
+
+    public WordCounter(@Value("${wordcount.chunk-size:16777216}") final long chunkSize,
+                       @Value("${wordcount.parallelism:0}") final int parallelism) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("wordcount.chunk-size must be positive");
+        }
+        // a mapped region is indexed by int, and a chunk may grow past its nominal size up to the next delimiter
+        this.chunkSize = Math.min(chunkSize, Integer.MAX_VALUE / 2);
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Counts the occurrences of {@code word} in {@code file}. An empty word never matches.
+     */
+    public long count(Path file, String word, MatchMode mode) throws IOException {
+        byte[] pattern = word.getBytes(StandardCharsets.UTF_8);
+        if (pattern.length == 0 || (mode == MatchMode.SUBSTRING && containsLineBreak(pattern))) {
+            // lines never contain line breaks, so such a word cannot occur
+            return 0;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= chunkSize) {
+                return scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), pattern, mode);
+            }
+
+            List<Callable<Long>> tasks = new ArrayList<>();
+            long start = 0;
+            while (start < size) {
+                long end = start + chunkSize >= size ? size : nextBoundary(channel, start + chunkSize, size, mode);
+                long chunkStart = start;
+                long chunkLength = end - start;
+                tasks.add(() -> scan(channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkLength), pattern, mode));
+                start = end;
+            }
+            return sum(pool.invokeAll(tasks));
+        }
+    }
+
+    /**
+     * Returns the offset right after the first delimiter at or after {@code from}, or {@code size} if there is none.
+     * A boundary is also forced after about 1 GB without delimiters, so that every chunk can still be mapped.
+     */
+    private static long nextBoundary(FileChannel channel, long from, long size, MatchMode mode) throws IOException {
+        long position = from;
+        while (position < size) {
+            int length = (int) Math.min(BOUNDARY_WINDOW, size - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            for (int i = 0; i < length; i++) {
+                if (mode.isDelimiter(window.get(i))) {
+                    return position + i + 1;
+                }
+            }
+            position += length;
+            if (position - from >= Integer.MAX_VALUE / 2) {
+                return position;
+            }
+        }
+        return size;
+    }
+
+    private static long sum(List<Future<Long>> results) throws IOException {
+        long total = 0;
+        for (Future<Long> result : results) {
+            try {
+                total += result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while counting words", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                if (e.getCause() instanceof UncheckedIOException uncheckedIOException) {
+                    throw uncheckedIOException.getCause();
+                }
+                throw new IOException("Error counting words", e.getCause());
+            }
+        }
+        return total;
+    }
+
+    static long scan(ByteBuffer buffer, byte[] pattern, MatchMode mode) {
+        return mode == MatchMode.SUBSTRING ? scanSubstrings(buffer, pattern) : scanTokens(buffer, pattern);
+    }
+
+    private static long scanSubstrings(ByteBuffer buffer, byte[] pattern) {
+        long count = 0;
+        byte first = pattern[0];
+        int last = buffer.limit() - pattern.length;
+        int i = 0;
+        while (i <= last) {
+            if (buffer.get(i) == first && matchesAt(buffer, i, pattern)) {
+                count++;
+                i += pattern.length;
+            } else {
+                i++;
+            }
+        }
+        return count;
+    }
+
+    private static long scanTokens(ByteBuffer buffer, byte[] pattern) {
+        long count = 0;
+        int limit = buffer.limit();
+        int tokenStart = -1;
+        for (int i = 0; i < limit; i++) {
+            if (isWhitespace(buffer.get(i))) {
+                if (tokenStart >= 0 && i - tokenStart == pattern.length && matchesAt(buffer, tokenStart, pattern)) {
+                    count++;
+                }
+                tokenStart = -1;
+            } else if (tokenStart < 0) {
+                tokenStart = i;
+            }
+        }
+        if (tokenStart >= 0 && limit - tokenStart == pattern.length && matchesAt(buffer, tokenStart, pattern)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean matchesAt(ByteBuffer buffer, int offset, byte[] pattern) {
+        for (int j = 1; j < pattern.length; j++) {
+            if (buffer.get(offset + j) != pattern[j]) {
+                return false;
+            }
+        }
+        return buffer.get(offset) == pattern[0];
+    }
+
+    private static boolean containsLineBreak(byte[] pattern) {
+        for (byte b : pattern) {
+            if (b == '\n' || b == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same characters as the {@code \s} regular expression class.
+     */
+    static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+}
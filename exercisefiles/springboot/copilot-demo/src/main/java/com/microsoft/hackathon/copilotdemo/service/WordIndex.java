@@ -0,0 +1,379 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional inverted index of the whitespace-separated tokens of every file under {@code wordindex.root}, used to
+ * answer {@link WordCounter.MatchMode#TOKEN} counts without reading the file.
+ * <p>
+ * The index maps every term to its number of occurrences in each file. It is saved under {@code wordindex.directory}
+ * and loaded again at startup. Every {@code wordindex.refresh-interval} the tree is walked and only the files whose
+ * size or modification time changed are tokenized again. A lookup checks the size and modification time of the file
+ * first, so a file changed since it was indexed is never answered from the index.
+ * <p>
+ * Terms are the raw bytes of the tokens, like {@link WordCounter} matches them. Files larger than
+ * {@code wordindex.max-file-size} and tokens longer than {@link #MAX_TERM_LENGTH} bytes are not indexed.
+ */
+@Component
+public class WordIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(WordIndex.class);
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    static final int MAX_TERM_LENGTH = 256;
+
+    private final Path root;
+    private final Path indexFile;
+    private final long maxFileSize;
+    private final ScheduledExecutorService refresher;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // guarded by lock
+    private final Map<String, IndexedFile> files = new HashMap<>();
+    private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+    private int nextFileId;
+
+    public WordIndex(@Value("${wordindex.root:}") final String root,
+                     @Value("${wordindex.directory:${java.io.tmpdir}/copilot-demo-word-index}") final String directory,
+                     @Value("${wordindex.refresh-interval:30s}") final Duration refreshInterval,
+                     @Value("${wordindex.max-file-size:64MB}") final DataSize maxFileSize) {
+        this.maxFileSize = maxFileSize.toBytes();
+        if (root.isBlank()) {
+            this.root = null;
+            this.indexFile = null;
+            this.refresher = null;
+            return;
+        }
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.indexFile = Paths.get(directory).resolve("word-index.bin");
+        load();
+
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "word-index-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+            try {
+                // an interrupted refresh may still be saving the index, let it finish writing the file
+                refresher.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of tokens equal to {@code word} in {@code file}, or an empty result when the index cannot
+     * answer: indexing is disabled, the file is outside the indexed tree, not indexed yet, or changed since.
+     */
+    public OptionalLong count(Path file, String word) {
+        if (root == null) {
+            return OptionalLong.empty();
+        }
+        Path absolute = file.toAbsolutePath().normalize();
+        byte[] pattern = word.getBytes(StandardCharsets.UTF_8);
+        if (!absolute.startsWith(root) || pattern.length > MAX_TERM_LENGTH) {
+            return OptionalLong.empty();
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(absolute, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return OptionalLong.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            IndexedFile indexed = files.get(key(absolute));
+            if (indexed == null || indexed.size != attributes.size()
+                || indexed.modified != attributes.lastModifiedTime().toMillis()) {
+                return OptionalLong.empty();
+            }
+            Map<Integer, Integer> filePostings = postings.get(term(pattern, pattern.length));
+            return OptionalLong.of(filePostings == null ? 0 : filePostings.getOrDefault(indexed.id, 0));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Brings the index up to date with the tree, tokenizing only new and changed files, and saves it if it changed.
+     */
+    synchronized void refresh() throws IOException {
+        Map<String, BasicFileAttributes> current = new HashMap<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile() && attributes.size() <= maxFileSize) {
+                    current.put(key(file), attributes);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        List<String> removed = new ArrayList<>();
+        List<String> changed = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (String key : files.keySet()) {
+                if (!current.containsKey(key)) {
+                    removed.add(key);
+                }
+            }
+            current.forEach((key, attributes) -> {
+                IndexedFile indexed = files.get(key);
+                if (indexed == null || indexed.size != attributes.size()
+                    || indexed.modified != attributes.lastModifiedTime().toMillis()) {
+                    changed.add(key);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        for (String key : changed) {
+            BasicFileAttributes attributes = current.get(key);
+            Map<String, Integer> counts;
+            try {
+                // the attributes were read before the content, so a file changed meanwhile looks stale, never fresh
+                counts = tokenize(root.resolve(key));
+            } catch (NoSuchFileException e) {
+                removed.add(key);
+                continue;
+            }
+            lock.writeLock().lock();
+            try {
+                replace(key, attributes.size(), attributes.lastModifiedTime().toMillis(), counts);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        if (!removed.isEmpty()) {
+            lock.writeLock().lock();
+            try {
+                removed.forEach(this::remove);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        if (!changed.isEmpty() || !removed.isEmpty()) {
+            log.debug("Word index of {} updated: {} files indexed, {} removed", root, changed.size(), removed.size());
+            save();
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (IOException | RuntimeException e) {
+            // keep refreshing, the next run may succeed
+            log.warn("Could not refresh the word index of {}", root, e);
+        }
+    }
+
+    private void replace(String key, long size, long modified, Map<String, Integer> counts) {
+        IndexedFile previous = files.get(key);
+        int id = previous != null ? previous.id : nextFileId++;
+        if (previous != null) {
+            removePostings(previous);
+        }
+        counts.forEach((term, count) -> postings.computeIfAbsent(term, t -> new HashMap<>(4)).put(id, count));
+        files.put(key, new IndexedFile(id, size, modified, counts.keySet().toArray(new String[0])));
+    }
+
+    private void remove(String key) {
+        IndexedFile previous = files.remove(key);
+        if (previous != null) {
+            removePostings(previous);
+        }
+    }
+
+    private void removePostings(IndexedFile file) {
+        for (String term : file.terms) {
+            Map<Integer, Integer> filePostings = postings.get(term);
+            filePostings.remove(file.id);
+            if (filePostings.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    static Map<String, Integer> tokenize(Path file) throws IOException {
+        Map<String, Integer> counts = new HashMap<>();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] token = new byte[MAX_TERM_LENGTH];
+        int tokenLength = 0;
+        boolean tooLong = false;
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0) {
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer[i];
+                    if (WordCounter.isWhitespace(b)) {
+                        if (tokenLength > 0 && !tooLong) {
+                            counts.merge(term(token, tokenLength), 1, Integer::sum);
+                        }
+                        tokenLength = 0;
+                        tooLong = false;
+                    } else if (tokenLength < MAX_TERM_LENGTH) {
+                        token[tokenLength++] = b;
+                    } else {
+                        tooLong = true;
+                    }
+                }
+            }
+        }
+        if (tokenLength > 0 && !tooLong) {
+            counts.merge(term(token, tokenLength), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Terms are kept as one char per byte, so that any byte sequence, valid UTF-8 or not, has its own term.
+     */
+    private static String term(byte[] bytes, int length) {
+        return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private String key(Path file) {
+        return root.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    private void save() throws IOException {
+        Files.createDirectories(indexFile.getParent());
+        Path temp = Files.createTempFile(indexFile.getParent(), "word-index", ".tmp");
+        try {
+            lock.readLock().lock();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(root.toString());
+                out.writeInt(nextFileId);
+                out.writeInt(files.size());
+                for (Map.Entry<String, IndexedFile> file : files.entrySet()) {
+                    out.writeUTF(file.getKey());
+                    out.writeInt(file.getValue().id);
+                    out.writeLong(file.getValue().size);
+                    out.writeLong(file.getValue().modified);
+                }
+                out.writeInt(postings.size());
+                for (Map.Entry<String, Map<Integer, Integer>> term : postings.entrySet()) {
+                    byte[] bytes = term.getKey().getBytes(StandardCharsets.ISO_8859_1);
+                    out.writeShort(bytes.length);
+                    out.write(bytes);
+                    out.writeInt(term.getValue().size());
+                    for (Map.Entry<Integer, Integer> posting : term.getValue().entrySet()) {
+                        out.writeInt(posting.getKey());
+                        out.writeInt(posting.getValue());
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(indexFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile), BUFFER_SIZE))) {
+            if (in.readInt() != FORMAT_VERSION || !in.readUTF().equals(root.toString())) {
+                log.info("Ignoring the word index in {}, it was built for another format or root", indexFile);
+                return;
+            }
+            int fileIdLimit = in.readInt();
+            record SavedFile(String key, long size, long modified) {
+            }
+            Map<Integer, SavedFile> savedFiles = new HashMap<>();
+            int fileCount = in.readInt();
+            for (int i = 0; i < fileCount; i++) {
+                String key = in.readUTF();
+                savedFiles.put(in.readInt(), new SavedFile(key, in.readLong(), in.readLong()));
+            }
+            Map<String, Map<Integer, Integer>> savedPostings = new HashMap<>();
+            Map<Integer, List<String>> termsByFile = new HashMap<>();
+            int termCount = in.readInt();
+            byte[] bytes = new byte[MAX_TERM_LENGTH];
+            for (int i = 0; i < termCount; i++) {
+                int length = in.readUnsignedShort();
+                in.readFully(bytes, 0, length);
+                String term = term(bytes, length);
+                int postingCount = in.readInt();
+                Map<Integer, Integer> filePostings = new HashMap<>(Math.max(4, postingCount * 2));
+                for (int j = 0; j < postingCount; j++) {
+                    int id = in.readInt();
+                    filePostings.put(id, in.readInt());
+                    termsByFile.computeIfAbsent(id, ignored -> new ArrayList<>()).add(term);
+                }
+                savedPostings.put(term, filePostings);
+            }
+
+            lock.writeLock().lock();
+            try {
+                savedFiles.forEach((id, file) -> files.put(file.key(), new IndexedFile(id, file.size(), file.modified(),
+                    termsByFile.getOrDefault(id, List.of()).toArray(new String[0]))));
+                postings.putAll(savedPostings);
+                nextFileId = fileIdLimit;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Loaded the word index of {}: {} files, {} terms", root, fileCount, termCount);
+        } catch (IOException | RuntimeException e) {
+            // rebuilt from scratch by the first refresh
+            log.warn("Could not load the word index from {}", indexFile, e);
+        }
+    }
+
+    private record IndexedFile(int id, long size, long modified, String[] terms) {
+    }
+}
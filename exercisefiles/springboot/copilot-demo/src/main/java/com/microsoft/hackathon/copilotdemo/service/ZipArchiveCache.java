@@ -0,0 +1,319 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Disk cache of generated zip archives, addressed by a fingerprint of the zipped folder.
+ * <p>
+ * The fingerprint is a SHA-256 of the folder path, the compression level and the relative path, size and
+ * modification time of every file in the tree, so it changes whenever the archive would. It is cheap to compute
+ * (one stat per file) and doubles as the HTTP entity tag of the archive.
+ * <p>
+ * Archives are kept in {@code zip.cache.directory} and evicted least recently used first once they take more than
+ * {@code zip.cache.max-size}. A miss is streamed to the client and to the cache file at the same time, so caching
+ * never delays the response.
+ */
+@Component
+public class ZipArchiveCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ZipArchiveCache.class);
+    private static final String ARCHIVE_SUFFIX = ".zip";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long maxBytes;
+    // a lock rather than synchronized, as the file operations under it would pin the carrier of a virtual thread
+    private final ReentrantLock lock = new ReentrantLock();
+    // fingerprint -> archive size, in access order, guarded by lock
+    private final LinkedHashMap<String, Long> archives = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public ZipArchiveCache(@Value("${zip.cache.directory:${java.io.tmpdir}/copilot-demo-zip-cache}") final String directory,
+                           @Value("${zip.cache.max-size:512MB}") final DataSize maxSize) {
+        this.directory = Paths.get(directory);
+        this.maxBytes = maxSize.toBytes();
+        try {
+            Files.createDirectories(this.directory);
+            loadExistingArchives();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot initialize the zip cache in " + directory, e);
+        }
+    }
+
+    /**
+     * Writes an archive: streams it into {@code out} and into the cache.
+     */
+    @FunctionalInterface
+    public interface ArchiveWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Returns the fingerprint of the archive of {@code folder} at the given compression level.
+     */
+    public String fingerprint(Path folder, int level) throws IOException {
+        List<String> files = new ArrayList<>();
+        Files.walkFileTree(folder, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile()) {
+                    files.add(folder.relativize(file) + "\0" + attributes.size() + "\0" + attributes.lastModifiedTime().toMillis());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                // unreadable files are skipped by the zipper as well
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(files);
+
+        MessageDigest digest = sha256();
+        digest.update((folder.toAbsolutePath().normalize() + "\0" + level + "\n").getBytes(StandardCharsets.UTF_8));
+        for (String file : files) {
+            digest.update((file + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Opens the cached archive with the given fingerprint, or returns null when it is not cached. The archive stays
+     * readable through the returned channel even if it is evicted meanwhile.
+     */
+    public FileChannel open(String fingerprint) throws IOException {
+        lock.lock();
+        try {
+            if (archives.get(fingerprint) == null) {
+                return null;
+            }
+            return FileChannel.open(archivePath(fingerprint), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            // removed behind our back
+            totalBytes -= archives.remove(fingerprint);
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copies a cached archive to {@code out} with {@link FileChannel#transferTo}, then closes the channel.
+     */
+    public static void transfer(FileChannel archive, OutputStream out) throws IOException {
+        try (archive) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long size = archive.size();
+            long position = 0;
+            while (position < size) {
+                position += archive.transferTo(position, size - position, target);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes an archive to {@code out} with {@code writer} while saving it in the cache under {@code fingerprint}.
+     * The archive is only cached if it is written completely.
+     */
+    public void writeThrough(String fingerprint, OutputStream out, ArchiveWriter writer) throws IOException {
+        Path temp = Files.createTempFile(directory, fingerprint, TEMP_SUFFIX);
+        TeeOutputStream tee;
+        try (OutputStream file = Files.newOutputStream(temp)) {
+            tee = new TeeOutputStream(out, file);
+            writer.write(tee);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        if (tee.copyFailed) {
+            Files.deleteIfExists(temp);
+            return;
+        }
+        try {
+            // under the lock, so that an eviction of the same fingerprint cannot delete the new archive
+            lock.lock();
+            try {
+                Path archive = archivePath(fingerprint);
+                Files.move(temp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                add(fingerprint, Files.size(archive));
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException e) {
+            // the client already has its archive, only the cache entry is lost
+            log.warn("Could not cache zip archive {}", fingerprint, e);
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    long totalBytes() {
+        lock.lock();
+        try {
+            return totalBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean contains(String fingerprint) {
+        lock.lock();
+        try {
+            return archives.containsKey(fingerprint);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void add(String fingerprint, long size) throws IOException {
+        lock.lock();
+        try {
+            if (size > maxBytes) {
+                // would evict everything else and still not fit
+                Files.deleteIfExists(archivePath(fingerprint));
+                return;
+            }
+            Long previous = archives.put(fingerprint, size);
+            totalBytes += size - (previous == null ? 0 : previous);
+            Iterator<Map.Entry<String, Long>> eldest = archives.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                eldest.remove();
+                totalBytes -= entry.getValue();
+                try {
+                    Files.deleteIfExists(archivePath(entry.getKey()));
+                } catch (IOException e) {
+                    log.warn("Could not delete evicted zip archive {}", entry.getKey(), e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void loadExistingArchives() throws IOException {
+        List<Path> existing = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    // left over by an interrupted write
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(ARCHIVE_SUFFIX)) {
+                    existing.add(file);
+                }
+            }
+        }
+        existing.sort(Comparator.comparing(ZipArchiveCache::lastModified));
+        for (Path file : existing) {
+            String name = file.getFileName().toString();
+            add(name.substring(0, name.length() - ARCHIVE_SUFFIX.length()), Files.size(file));
+        }
+    }
+
+    private Path archivePath(String fingerprint) {
+        return directory.resolve(fingerprint + ARCHIVE_SUFFIX);
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Copies everything written to the client into the cache file. A failure to write the cache file only stops the
+     * copy, the client keeps receiving its archive.
+     */
+    private static final class TeeOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final OutputStream copy;
+        private boolean copyFailed;
+
+        TeeOutputStream(OutputStream out, OutputStream copy) {
+            this.out = out;
+            this.copy = copy;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (!copyFailed) {
+                try {
+                    copy.write(b);
+                } catch (IOException e) {
+                    copyFailed(e);
+                }
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            if (!copyFailed) {
+                try {
+                    copy.write(bytes, offset, length);
+                } catch (IOException e) {
+                    copyFailed(e);
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        private void copyFailed(IOException e) {
+            log.warn("Could not write zip archive to the cache", e);
+            copyFailed = true;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Minimal zip archive writer that accepts entries whose data is already compressed.
+ * <p>
+ * {@link java.util.zip.ZipOutputStream} always deflates on the calling thread, which prevents compressing entries
+ * elsewhere. This writer only lays out the zip structures (local headers, data descriptors, central directory and
+ * the ZIP64 records when sizes, offsets or the number of entries need them) around the data it is given.
+ */
+class ZipStreamWriter {
+
+    static final int STORED = 0;
+    static final int DEFLATED = 8;
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+    private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+    private static final int FLAG_UTF8 = 1 << 11;
+    private static final int VERSION = 20;
+    private static final int VERSION_ZIP64 = 45;
+
+    private final OutputStream out;
+    private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+    private final byte[] scratch = new byte[8];
+    private long written;
+    private long entries;
+    private long uncompressed;
+
+    // state of the entry currently being streamed with a data descriptor
+    private byte[] openName;
+    private int openTime;
+    private long openOffset;
+    private boolean openZip64;
+
+    ZipStreamWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes a complete entry whose CRC and sizes are known up front.
+     */
+    void writeEntry(String name, int method, long crc, long uncompressedSize, long modifiedMillis,
+                    byte[] data, int offset, int length) throws IOException {
+        beginEntry(name, method, crc, length, uncompressedSize, modifiedMillis);
+        writeData(data, offset, length);
+    }
+
+    /**
+     * Writes the header of an entry whose CRC and sizes are known up front; its data must follow with
+     * {@link #writeData}.
+     */
+    void beginEntry(String name, int method, long crc, long compressedSize, long uncompressedSize,
+                    long modifiedMillis) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int time = dosTime(modifiedMillis);
+        long offset = written;
+        boolean zip64 = compressedSize >= ZIP64_MAGIC || uncompressedSize >= ZIP64_MAGIC;
+
+        writeInt(0x04034b50L);
+        writeShort(zip64 ? VERSION_ZIP64 : VERSION);
+        writeShort(FLAG_UTF8);
+        writeShort(method);
+        writeInt(time & 0xFFFFFFFFL);
+        writeInt(crc);
+        writeInt(zip64 ? ZIP64_MAGIC : compressedSize);
+        writeInt(zip64 ? ZIP64_MAGIC : uncompressedSize);
+        writeShort(nameBytes.length);
+        writeShort(zip64 ? 20 : 0);
+        writeBytes(nameBytes, 0, nameBytes.length);
+        if (zip64) {
+            writeShort(0x0001);
+            writeShort(16);
+            writeLong(uncompressedSize);
+            writeLong(compressedSize);
+        }
+
+        addCentralEntry(nameBytes, FLAG_UTF8, method, time, crc, compressedSize, uncompressedSize, offset);
+    }
+
+    /**
+     * Starts a deflated entry whose CRC and sizes are only known once its data has been written. The data is
+     * written with {@link #writeData} and the entry is completed with {@link #closeStreamedEntry}.
+     * {@code expectedSize} is only used to decide whether the entry needs ZIP64 sizes.
+     */
+    void beginStreamedEntry(String name, long expectedSize, long modifiedMillis) throws IOException {
+        openName = name.getBytes(StandardCharsets.UTF_8);
+        openTime = dosTime(modifiedMillis);
+        openOffset = written;
+        // deflate may slightly expand incompressible data, so leave some headroom
+        openZip64 = expectedSize >= ZIP64_MAGIC - (expectedSize >> 8) - 1024;
+
+        writeInt(0x04034b50L);
+        writeShort(openZip64 ? VERSION_ZIP64 : VERSION);
+        writeShort(FLAG_UTF8 | FLAG_DATA_DESCRIPTOR);
+        writeShort(DEFLATED);
+        writeInt(openTime & 0xFFFFFFFFL);
+        writeInt(0);
+        writeInt(openZip64 ? ZIP64_MAGIC : 0);
+        writeInt(openZip64 ? ZIP64_MAGIC : 0);
+        writeShort(openName.length);
+        writeShort(openZip64 ? 20 : 0);
+        writeBytes(openName, 0, openName.length);
+        if (openZip64) {
+            writeShort(0x0001);
+            writeShort(16);
+            writeLong(0);
+            writeLong(0);
+        }
+    }
+
+    void closeStreamedEntry(long crc, long compressedSize, long uncompressedSize) throws IOException {
+        writeInt(0x08074b50L);
+        writeInt(crc);
+        if (openZip64) {
+            writeLong(compressedSize);
+            writeLong(uncompressedSize);
+        } else {
+            writeInt(compressedSize);
+            writeInt(uncompressedSize);
+        }
+        addCentralEntry(openName, FLAG_UTF8 | FLAG_DATA_DESCRIPTOR, DEFLATED, openTime, crc,
+            compressedSize, uncompressedSize, openOffset);
+        openName = null;
+    }
+
+    void writeData(byte[] data, int offset, int length) throws IOException {
+        writeBytes(data, offset, length);
+    }
+
+    /**
+     * Writes the central directory and the end of central directory records. The underlying stream is flushed but
+     * not closed.
+     */
+    void finish() throws IOException {
+        long centralDirectoryOffset = written;
+        long centralDirectorySize = centralDirectory.size();
+        centralDirectory.writeTo(out);
+        written += centralDirectorySize;
+
+        boolean zip64 = entries >= ZIP64_MAGIC_COUNT || centralDirectoryOffset >= ZIP64_MAGIC
+            || centralDirectorySize >= ZIP64_MAGIC;
+        if (zip64) {
+            long zip64EndOffset = written;
+            writeInt(0x06064b50L);
+            writeLong(44);
+            writeShort(VERSION_ZIP64);
+            writeShort(VERSION_ZIP64);
+            writeInt(0);
+            writeInt(0);
+            writeLong(entries);
+            writeLong(entries);
+            writeLong(centralDirectorySize);
+            writeLong(centralDirectoryOffset);
+
+            writeInt(0x07064b50L);
+            writeInt(0);
+            writeLong(zip64EndOffset);
+            writeInt(1);
+        }
+
+        writeInt(0x06054b50L);
+        writeShort(0);
+        writeShort(0);
+        writeShort((int) Math.min(entries, ZIP64_MAGIC_COUNT));
+        writeShort((int) Math.min(entries, ZIP64_MAGIC_COUNT));
+        writeInt(Math.min(centralDirectorySize, ZIP64_MAGIC));
+        writeInt(Math.min(centralDirectoryOffset, ZIP64_MAGIC));
+        writeShort(0);
+        out.flush();
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     */
+    long written() {
+        return written;
+    }
+
+    /**
+     * Returns the total uncompressed size of the entries completed so far.
+     */
+    long uncompressed() {
+        return uncompressed;
+    }
+
+    private void addCentralEntry(byte[] name, int flags, int method, int time, long crc, long compressedSize,
+                                 long uncompressedSize, long offset) {
+        uncompressed += uncompressedSize;
+        boolean zip64Uncompressed = uncompressedSize >= ZIP64_MAGIC;
+        boolean zip64Compressed = compressedSize >= ZIP64_MAGIC;
+        boolean zip64Offset = offset >= ZIP64_MAGIC;
+        int extraLength = (zip64Uncompressed ? 8 : 0) + (zip64Compressed ? 8 : 0) + (zip64Offset ? 8 : 0);
+        int version = extraLength > 0 ? VERSION_ZIP64 : VERSION;
+
+        putInt(centralDirectory, 0x02014b50L);
+        putShort(centralDirectory, version);
+        putShort(centralDirectory, version);
+        putShort(centralDirectory, flags);
+        putShort(centralDirectory, method);
+        putInt(centralDirectory, time & 0xFFFFFFFFL);
+        putInt(centralDirectory, crc);
+        putInt(centralDirectory, zip64Compressed ? ZIP64_MAGIC : compressedSize);
+        putInt(centralDirectory, zip64Uncompressed ? ZIP64_MAGIC : uncompressedSize);
+        putShort(centralDirectory, name.length);
+        putShort(centralDirectory, extraLength > 0 ? extraLength + 4 : 0);
+        putShort(centralDirectory, 0);
+        putShort(centralDirectory, 0);
+        putShort(centralDirectory, 0);
+        putInt(centralDirectory, 0);
+        putInt(centralDirectory, zip64Offset ? ZIP64_MAGIC : offset);
+        centralDirectory.writeBytes(name);
+        if (extraLength > 0) {
+            putShort(centralDirectory, 0x0001);
+            putShort(centralDirectory, extraLength);
+            if (zip64Uncompressed) {
+                putLong(centralDirectory, uncompressedSize);
+            }
+            if (zip64Compressed) {
+                putLong(centralDirectory, compressedSize);
+            }
+            if (zip64Offset) {
+                putLong(centralDirectory, offset);
+            }
+        }
+        entries++;
+    }
+
+    private static int dosTime(long millis) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (time.getYear() - 1980) << 25 | time.getMonthValue() << 21 | time.getDayOfMonth() << 16
+            | time.getHour() << 11 | time.getMinute() << 5 | time.getSecond() >> 1;
+    }
+
+    private void writeShort(int value) throws IOException {
+        scratch[0] = (byte) value;
+        scratch[1] = (byte) (value >>> 8);
+        writeBytes(scratch, 0, 2);
+    }
+
+    private void writeInt(long value) throws IOException {
+        for (int i = 0; i < 4; i++) {
+            scratch[i] = (byte) (value >>> (8 * i));
+        }
+        writeBytes(scratch, 0, 4);
+    }
+
+    private void writeLong(long value) throws IOException {
+        for (int i = 0; i < 8; i++) {
+            scratch[i] = (byte) (value >>> (8 * i));
+        }
+        writeBytes(scratch, 0, 8);
+    }
+
+    private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        out.write(bytes, offset, length);
+        written += length;
+    }
+
+    private static void putShort(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+    }
+
+    private static void putInt(ByteArrayOutputStream out, long value) {
+        for (int i = 0; i < 4; i++) {
+            out.write((int) (value >>> (8 * i)));
+        }
+    }
+
+    private static void putLong(ByteArrayOutputStream out, long value) {
+        for (int i = 0; i < 8; i++) {
+            out.write((int) (value >>> (8 * i)));
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.microsoft.hackathon.copilotdemo;
 
+import com.jayway.jsonpath.JsonPath;
 import com.microsoft.hackathon.copilotdemo.config.Config;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -8,6 +10,7 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.client.ExpectedCount;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.test.web.servlet.MockMvc;
@@ -15,7 +18,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.client.RestTemplate;;import java.net.URI;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
@@ -23,7 +41,8 @@ import static org.springframework.test.web.client.response.MockRestResponseCreat
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 
-@SpringBootTest()
+// no stale jokes, so that a failing upstream is always reported whatever the test order
+@SpringBootTest(properties = "joke.resilience.stale-buffer-size=0")
 @AutoConfigureMockMvc
 @Import(Config.class)
 class CopilotDemoApplicationTests {
@@ -34,6 +53,9 @@ class CopilotDemoApplicationTests {
     @Autowired
     private RestTemplate restTemplate;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private MockRestServiceServer mockServer;
 
     @BeforeEach
@@ -68,6 +90,25 @@ class CopilotDemoApplicationTests {
             .andExpect(MockMvcResultMatchers.status().isBadRequest());
     }
 
+    @Test
+    void diffDates_withImpossibleDate_returnsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/diffdates?date1=31-02-2023&date2=10-01-2023"))
+            .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    void diffDatesBatch_returnsEveryDifference() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/diffdates/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    [{"date1": "01-01-2023", "date2": "10-01-2023"},
+                     {"date1": "10-01-2023", "date2": "01-01-2023"},
+                     {"date1": "2023-01-01", "date2": "10-01-2023"}]
+                    """))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(content().json("[9, -9, null]"));
+    }
+
     @Test
     void diffDates_withMissingDate1_returnsBadRequest() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.get("/diffdates?date2=10-01-2023"))
@@ -131,11 +172,18 @@ class CopilotDemoApplicationTests {
 
     @Test
     void validateSpanishDni_withValidDni_returnsTrue() throws Exception {
-        mockMvc.perform(MockMvcRequestBuilders.get("/validate-spanish-dni?dni=12345678A"))
+        mockMvc.perform(MockMvcRequestBuilders.get("/validate-spanish-dni?dni=12345678Z"))
             .andExpect(MockMvcResultMatchers.status().isOk())
             .andExpect(content().string("true"));
     }
 
+    @Test
+    void validateSpanishDni_withWrongControlLetter_returnsFalse() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/validate-spanish-dni?dni=12345678A"))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(content().string("false"));
+    }
+
     @Test
     void validateSpanishDni_withInvalidDni_returnsFalse() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.get("/validate-spanish-dni?dni=1234567A"))
@@ -164,6 +212,52 @@ class CopilotDemoApplicationTests {
             .andExpect(content().string("false"));
     }
 
+    @Test
+    void validateSpanishIds_withLines_streamsOneResultPerValue() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/validate-spanish-ids?type=phone")
+                .contentType(MediaType.TEXT_PLAIN)
+                .content("+34612345678\n\n+34812345678\r\n"))
+            .andExpect(MockMvcResultMatchers.request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_NDJSON))
+            .andExpect(content().string("""
+                {"line":1,"value":"+34612345678","valid":true}
+                {"line":3,"value":"+34812345678","valid":false}
+                """));
+    }
+
+    @Test
+    void validateSpanishIds_withCsvUpload_validatesTheColumn() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "customers.csv", "text/csv",
+            "name,dni\n\"Doe, John\",12345678Z\nJane,12345678A\n".getBytes(StandardCharsets.UTF_8));
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.multipart("/validate-spanish-ids?type=dni&column=dni")
+                .file(file))
+            .andExpect(MockMvcResultMatchers.request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(content().string("""
+                {"line":2,"value":"12345678Z","valid":true}
+                {"line":3,"value":"12345678A","valid":false}
+                """));
+    }
+
+    @Test
+    void validateSpanishIds_withUnknownColumnOrType_returnsBadRequest() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "customers.csv", "text/csv",
+            "name,dni\n".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(MockMvcRequestBuilders.multipart("/validate-spanish-ids?type=dni&column=phone").file(file))
+            .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.post("/validate-spanish-ids?type=passport").content("X1234567"))
+            .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
     /**
      * Based on existing colors.json file under resources, given the name of the color as path parameter, return the hexadecimal code.
      * If the color is not found, return 404
@@ -202,6 +296,22 @@ class CopilotDemoApplicationTests {
             .andExpect(content().string("#0000FF"));
     }
 
+    @Test
+    void getColorHex_recordsHitsAndMissesWithoutTheColorName() throws Exception {
+        double hits = meterRegistry.get("demo.color.lookups").tag("result", "hit").counter().count();
+        double misses = meterRegistry.get("demo.color.lookups").tag("result", "miss").counter().count();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/color/blue"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/color/Red"));
+        mockMvc.perform(MockMvcRequestBuilders.get("/color/unknown"));
+
+        assertEquals(hits + 2, meterRegistry.get("demo.color.lookups").tag("result", "hit").counter().count());
+        assertEquals(misses + 1, meterRegistry.get("demo.color.lookups").tag("result", "miss").counter().count());
+        assertEquals(2, meterRegistry.find("demo.color.lookups").counters().size());
+        // the endpoint timer is tagged with the URI template, not the color either
+        assertFalse(meterRegistry.find("http.server.requests").tag("uri", "/color/{name}").timers().isEmpty());
+    }
+
     @Test
     void getChuckNorrisJoke_returnsJoke() throws Exception {
         mockServer.expect(ExpectedCount.once(),
@@ -225,6 +335,13 @@ class CopilotDemoApplicationTests {
             .andExpect(MockMvcResultMatchers.status().isInternalServerError());
     }
 
+    @Test
+    void getChuckNorrisJokeStats_returnsCircuitState() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/chuck-norris-joke/stats"))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.circuitState").value("CLOSED"));
+    }
+
     @Test
     void parseUrl_withValidUrl_returnsParsedComponents() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.get("/parse-url?url=http://example.com:8080/path?query=param"))
@@ -281,6 +398,43 @@ class CopilotDemoApplicationTests {
             .andExpect(MockMvcResultMatchers.jsonPath("$.query").value("query1=param1&query2=param2"));
     }
 
+    @Test
+    void parseUrl_splitsEncodedQueryParameters() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/parse-url")
+                .param("url", "https://example.com/search?q=a%26b&q=c+d&empty#results"))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.port").value(-1))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.fragment").value("results"))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.parameters.q[0]").value("a&b"))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.parameters.q[1]").value("c d"))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.parameters.empty[0]").value(""));
+    }
+
+    @Test
+    void parseUrlBatch_returnsEveryUrlInOrder() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/parse-url/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"http://example.com:8080/path?query=param\", \"invalid-url\", \"https://[::1]/\"]"))
+            .andExpect(MockMvcResultMatchers.request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(3))
+            .andExpect(MockMvcResultMatchers.jsonPath("$[0].port").value(8080))
+            .andExpect(MockMvcResultMatchers.jsonPath("$[0].parameters.query[0]").value("param"))
+            .andExpect(MockMvcResultMatchers.jsonPath("$[1]").isEmpty())
+            .andExpect(MockMvcResultMatchers.jsonPath("$[2].host").value("[::1]"));
+    }
+
+    @Test
+    void parseUrlBatch_withoutArray_returnsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/parse-url/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"url\": \"http://example.com\"}"))
+            .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
     @Test
     void listFilesAndFolders_withValidPath_returnsFilesAndFolders() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.get("/list-files?path=src/main/resources"))
@@ -290,6 +444,50 @@ class CopilotDemoApplicationTests {
             .andExpect(MockMvcResultMatchers.jsonPath("$.folders").isArray());
     }
 
+    @Test
+    void listFilesAndFolders_withLimit_streamsPages() throws Exception {
+        MvcResult first = mockMvc.perform(MockMvcRequestBuilders.get("/list-files?path=src/main/resources&limit=1&attributes=true"))
+            .andReturn();
+        String firstPage = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(first))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.path").value("src/main/resources"))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.entries.length()").value(1))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.entries[0].modified").exists())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").isString())
+            .andReturn().getResponse().getContentAsString();
+        String cursor = JsonPath.read(firstPage, "$.nextCursor");
+
+        MvcResult second = mockMvc.perform(MockMvcRequestBuilders.get("/list-files?path=src/main/resources&limit=10&cursor=" + cursor))
+            .andReturn();
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(second))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.entries.length()").value(1))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.entries[0].size").doesNotExist())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").isEmpty());
+    }
+
+    @Test
+    void listFilesAndFolders_withInvalidLimitOrCursor_returnsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/list-files?path=src/main&limit=0"))
+            .andExpect(MockMvcResultMatchers.status().isBadRequest());
+        mockMvc.perform(MockMvcRequestBuilders.get("/list-files?path=src/main&limit=10&cursor=garbage!"))
+            .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    void listFilesAndFolders_requestedAgain_isServedFromCache() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/list-files?path=src/test/java"))
+            .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(MockMvcRequestBuilders.get("/list-files?path=src/test/java"))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.files").isArray());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/list-files/cache-stats"))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.hits").value(greaterThanOrEqualTo(1)))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.misses").value(greaterThanOrEqualTo(1)));
+    }
+
     @Test
     void listFilesAndFolders_withNonExistentPath_returnsError() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.get("/list-files?path=/non/existent/path"))
@@ -344,6 +542,48 @@ class CopilotDemoApplicationTests {
             .andExpect(MockMvcResultMatchers.jsonPath("$.occurrences").value(5));
     }
 
+    @Test
+    void countWordOccurrences_withTokenMode_countsWholeTokens() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/count-word?path=src/main/resources/colors.json&word=\"hue\",&mode=token"))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.occurrences").value(5));
+    }
+
+    @Test
+    void countWordOccurrences_withInvalidMode_returnsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/count-word?path=src/main/resources/colors.json&word=hue&mode=regex"))
+            .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    void countWordsOccurrences_withSeveralWordsAndFiles_returnsCountMatrix() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/count-words")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"words\": [\"hue\", \"primary\", \"hex\", \"hue\"], \"paths\": [\"src/main/resources/colors.json\", \"pom.xml\"]}"))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.words.length()").value(3))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.occurrences['src/main/resources/colors.json'].hue").value(5))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.occurrences['src/main/resources/colors.json'].primary").value(4))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.occurrences['src/main/resources/colors.json'].hex").value(6))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.occurrences['pom.xml'].hue").value(0));
+    }
+
+    @Test
+    void countWordsOccurrences_withEmptyWords_returnsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/count-words")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"words\": [], \"paths\": [\"src/main/resources/colors.json\"]}"))
+            .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
+    @Test
+    void countWordsOccurrences_withNonExistentFile_returnsError() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/count-words")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"words\": [\"hue\"], \"paths\": [\"/non/existent/file.txt\"]}"))
+            .andExpect(MockMvcResultMatchers.status().isInternalServerError());
+    }
+
     @Test
     void zipFolder_withValidFolder_returnsZippedFile() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.get("/zip-folder?path=src/main/resources"))
@@ -352,6 +592,58 @@ class CopilotDemoApplicationTests {
             .andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_OCTET_STREAM));
     }
 
+    @Test
+    void zipFolder_withValidFolder_streamsArchiveContent() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/zip-folder?path=src/main/resources"))
+            .andExpect(MockMvcResultMatchers.request().asyncStarted())
+            .andReturn();
+
+        byte[] archive = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andReturn().getResponse().getContentAsByteArray();
+
+        Map<String, byte[]> entries = new HashMap<>();
+        try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zipIn.getNextEntry()) != null) {
+                entries.put(entry.getName(), zipIn.readAllBytes());
+            }
+        }
+        assertArrayEquals(Files.readAllBytes(Path.of("src/main/resources/colors.json")), entries.get("resources/colors.json"));
+        assertTrue(entries.containsKey("resources/application.properties"));
+    }
+
+    @Test
+    void zipFolder_requestedAgain_isServedFromCacheOrNotModified() throws Exception {
+        MvcResult first = mockMvc.perform(MockMvcRequestBuilders.get("/zip-folder?path=src/main/resources&level=1"))
+            .andReturn();
+        MvcResult firstResult = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(first))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andReturn();
+        String etag = firstResult.getResponse().getHeader(HttpHeaders.ETAG);
+        byte[] archive = firstResult.getResponse().getContentAsByteArray();
+
+        MvcResult second = mockMvc.perform(MockMvcRequestBuilders.get("/zip-folder?path=src/main/resources&level=1"))
+            .andReturn();
+        MvcResult secondResult = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(second))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, etag))
+            .andExpect(MockMvcResultMatchers.header().longValue(HttpHeaders.CONTENT_LENGTH, archive.length))
+            .andReturn();
+        assertArrayEquals(archive, secondResult.getResponse().getContentAsByteArray());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/zip-folder?path=src/main/resources&level=1")
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(MockMvcResultMatchers.status().isNotModified())
+            .andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    void zipFolder_withInvalidLevel_returnsBadRequest() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/zip-folder?path=src/main/resources&level=10"))
+            .andExpect(MockMvcResultMatchers.status().isBadRequest());
+    }
+
     @Test
     void zipFolder_withNonExistentFolder_returnsError() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.get("/zip-folder?path=/non/existent/folder"))
@@ -0,0 +1,81 @@
+package com.microsoft.hackathon.copilotdemo.benchmark;
+
+import com.microsoft.hackathon.copilotdemo.service.SpanishIdValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Throughput of the phone and DNI validations: {@link String#matches} as the endpoints used to do, a precompiled
+ * {@link Pattern}, and {@link SpanishIdValidator}. Run with {@code -prof gc} to compare allocations too.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args=SpanishIdValidator
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpanishIdValidatorBenchmark {
+
+    private static final Pattern PHONE = Pattern.compile("\\+34[679]\\d{8}");
+    private static final Pattern DNI = Pattern.compile("\\d{8}[A-Z]");
+
+    private final SpanishIdValidator validator = new SpanishIdValidator();
+    private final String[] phones = {"+34612345678", "+34912345678", "+34812345678", "+3461234567", "612345678"};
+    private final String[] dnis = {"12345678Z", "00000000T", "12345678A", "1234567Z", "12345678z"};
+
+    @Benchmark
+    public void phoneStringMatches(Blackhole blackhole) {
+        for (String phone : phones) {
+            blackhole.consume(phone.matches("\\+34[679]\\d{8}"));
+        }
+    }
+
+    @Benchmark
+    public void phonePrecompiledPattern(Blackhole blackhole) {
+        for (String phone : phones) {
+            blackhole.consume(PHONE.matcher(phone).matches());
+        }
+    }
+
+    @Benchmark
+    public void phoneCharacterScan(Blackhole blackhole) {
+        for (String phone : phones) {
+            blackhole.consume(validator.isValidPhone(phone));
+        }
+    }
+
+    @Benchmark
+    public void dniStringMatches(Blackhole blackhole) {
+        for (String dni : dnis) {
+            blackhole.consume(dni.matches("\\d{8}[A-Z]"));
+        }
+    }
+
+    @Benchmark
+    public void dniPrecompiledPattern(Blackhole blackhole) {
+        for (String dni : dnis) {
+            blackhole.consume(DNI.matcher(dni).matches());
+        }
+    }
+
+    @Benchmark
+    public void dniCharacterScan(Blackhole blackhole) {
+        for (String dni : dnis) {
+            blackhole.consume(validator.isValidDni(dni));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.microsoft.hackathon.copilotdemo.benchmark;
+
+import com.microsoft.hackathon.copilotdemo.CopilotDemoApplication;
+import com.microsoft.hackathon.copilotdemo.config.VirtualThreads;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput with platform threads and with virtual threads of two blocking endpoints: {@code /chuck-norris-joke}, in
+ * front of an upstream that takes a fixed time to answer, and {@code /count-word} on a small file, which only does
+ * file I/O on the request thread. With platform threads, concurrency is capped by the Tomcat pool
+ * ({@code server.tomcat.threads.max}, 200 by default) and the upstream calls run on the joke client's pool; with
+ * virtual threads, both run on virtual threads and only the number of clients bounds concurrency. The virtual-thread
+ * run is skipped on JVMs older than 21.
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark.main=com.microsoft.hackathon.copilotdemo.benchmark.ThreadModeLoadTest \
+ *     -Djmh.args="[clients] [seconds] [upstream delay in ms]"
+ * </pre>
+ */
+public final class ThreadModeLoadTest {
+
+    private ThreadModeLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int upstreamDelayMillis = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        HttpServer upstream = slowUpstream(upstreamDelayMillis);
+        Path text = Files.createTempFile("thread-mode-load-test", ".txt");
+        try {
+            Files.writeString(text, "the quick brown fox jumps over the lazy dog\n".repeat(1000));
+            // endpoint name, and the request sent to it
+            Map<String, String> endpoints = new LinkedHashMap<>();
+            endpoints.put("/chuck-norris-joke", "/chuck-norris-joke");
+            endpoints.put("/count-word",
+                "/count-word?path=" + URLEncoder.encode(text.toString(), StandardCharsets.UTF_8) + "&word=fox");
+            for (boolean virtual : new boolean[]{false, true}) {
+                String mode = virtual ? "virtual threads" : "platform threads";
+                if (virtual && !VirtualThreads.isSupported()) {
+                    System.out.printf("%-16s skipped, needs Java 21 (running %s)%n", mode, Runtime.version());
+                    continue;
+                }
+                try (ConfigurableApplicationContext context = start(virtual, upstream, clients)) {
+                    int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                    for (Map.Entry<String, String> endpoint : endpoints.entrySet()) {
+                        Result result = run(URI.create("http://localhost:" + port + endpoint.getValue()), clients, seconds);
+                        System.out.printf("%-16s %-18s %,10.0f requests/s, mean latency %,6.1f ms, %d errors%n",
+                            mode, endpoint.getKey(), result.requests / (double) seconds, result.meanLatencyMillis(),
+                            result.errors);
+                    }
+                }
+            }
+        } finally {
+            upstream.stop(0);
+            Files.deleteIfExists(text);
+        }
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtual, HttpServer upstream, int clients) {
+        return new SpringApplicationBuilder(CopilotDemoApplication.class)
+            .properties(
+                "server.port=0",
+                "threads.virtual.enabled=" + virtual,
+                "joke.upstream.url=http://localhost:" + upstream.getAddress().getPort() + "/jokes/random",
+                // let every client through the bulkhead, and never hedge, so that only the threading differs: the
+                // upstream calls run on a pool of up to as many platform threads, or on virtual threads
+                "joke.resilience.max-concurrent-calls=" + clients,
+                "joke.resilience.call-timeout=1m",
+                "joke.resilience.hedge-min-delay=1m",
+                "logging.level.root=WARN")
+            .run();
+    }
+
+    private static Result run(URI uri, int clients, int seconds) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newCachedThreadPool())
+            .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofMinutes(1)).build();
+        LongAdder requests = new LongAdder();
+        LongAdder errors = new LongAdder();
+        LongAdder latencyNanos = new LongAdder();
+
+        // one warm-up second, so that connections are open and the code is compiled before measuring
+        long warmUpEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        long end = warmUpEnd + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService workers = Executors.newFixedThreadPool(clients);
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            tasks.add(() -> {
+                long now;
+                while ((now = System.nanoTime()) < end) {
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        long done = System.nanoTime();
+                        if (now >= warmUpEnd && done < end) {
+                            if (response.statusCode() == 200) {
+                                requests.increment();
+                                latencyNanos.add(done - now);
+                            } else {
+                                errors.increment();
+                            }
+                        }
+                    } catch (IOException e) {
+                        errors.increment();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+        }
+        tasks.forEach(workers::execute);
+        workers.shutdown();
+        workers.awaitTermination(seconds + 120L, TimeUnit.SECONDS);
+        return new Result(requests.sum(), errors.sum(), latencyNanos.sum());
+    }
+
+    private static HttpServer slowUpstream(int delayMillis) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 1000);
+        byte[] joke = "{\"value\":\"Chuck Norris can load test with a single request.\"}".getBytes(StandardCharsets.UTF_8);
+        server.createContext("/jokes/random", exchange -> {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, joke.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(joke);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+
+    private record Result(long requests, long errors, long latencyNanos) {
+
+        double meanLatencyMillis() {
+            return requests == 0 ? 0 : latencyNanos / (double) requests / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.microsoft.hackathon.copilotdemo.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VirtualThreadsTest {
+
+    @Test
+    void executor_startsNamedVirtualThreads_whenSupported() throws Exception {
+        if (!VirtualThreads.isSupported()) {
+            assertThrows(IllegalStateException.class, () -> VirtualThreads.newThreadPerTaskExecutor("test-"));
+            return;
+        }
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("test-");
+        try {
+            Future<Thread> first = executor.submit(Thread::currentThread);
+            Future<Thread> second = executor.submit(Thread::currentThread);
+
+            assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(first.get()));
+            assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(second.get()));
+            assertEquals(Set.of("test-0", "test-1"), Set.of(first.get().getName(), second.get().getName()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
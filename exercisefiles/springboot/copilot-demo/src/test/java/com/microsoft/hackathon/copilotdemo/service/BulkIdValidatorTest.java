@@ -0,0 +1,107 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BulkIdValidatorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BulkIdValidator validator = new BulkIdValidator(new SpanishIdValidator(), 4, 7);
+
+    @AfterEach
+    void tearDown() {
+        validator.shutdown();
+    }
+
+    @Test
+    void lines_areValidatedInOrder_acrossBatches() throws IOException {
+        StringBuilder input = new StringBuilder("﻿");
+        for (int i = 0; i < 1000; i++) {
+            input.append(i % 3 == 0 ? "+3491234" + String.format("%04d", i) : "+3481234" + String.format("%04d", i))
+                .append('\n');
+        }
+
+        List<JsonNode> results = validate(validator.lines(stream(input.toString())), BulkIdValidator.IdType.PHONE);
+
+        assertEquals(1000, results.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i + 1, results.get(i).get("line").asLong());
+            assertEquals(i % 3 == 0, results.get(i).get("valid").asBoolean(), results.get(i).toString());
+        }
+        assertEquals("+34912340000", results.get(0).get("value").asText());
+    }
+
+    @Test
+    void lines_areTrimmedAndTruncated() throws IOException {
+        String input = "  12345678Z \r\n\n" + "9".repeat(10_000) + "\n12345678A";
+
+        List<JsonNode> results = validate(validator.lines(stream(input)), BulkIdValidator.IdType.DNI);
+
+        assertEquals(3, results.size());
+        assertEquals("12345678Z", results.get(0).get("value").asText());
+        assertEquals(true, results.get(0).get("valid").asBoolean());
+        assertEquals(3, results.get(1).get("line").asLong());
+        assertEquals(BulkIdValidator.MAX_VALUE_LENGTH, results.get(1).get("value").asText().length());
+        assertEquals(false, results.get(2).get("valid").asBoolean());
+    }
+
+    @Test
+    void csvColumn_handlesQuotedFields() throws IOException {
+        String input = "id,\"name\",dni\r\n"
+            + "1,\"Doe, \"\"John\"\"\",12345678Z\r\n"
+            + "2,\"multi\nline\",\"00000000T\"\r\n"
+            + "3,no dni\r\n"
+            + "4,x,12345678A";
+
+        List<JsonNode> results = validate(validator.csvColumn(stream(input), "dni"), BulkIdValidator.IdType.DNI);
+
+        assertEquals(3, results.size());
+        assertEquals(2, results.get(0).get("line").asLong());
+        assertEquals(true, results.get(0).get("valid").asBoolean());
+        assertEquals(3, results.get(1).get("line").asLong());
+        assertEquals("00000000T", results.get(1).get("value").asText());
+        assertEquals(true, results.get(1).get("valid").asBoolean());
+        assertEquals(6, results.get(2).get("line").asLong());
+        assertEquals(false, results.get(2).get("valid").asBoolean());
+    }
+
+    @Test
+    void csvColumn_withUnknownColumn_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> validator.csvColumn(stream("name,dni\n"), "phone"));
+    }
+
+    private List<JsonNode> validate(BulkIdValidator.ValueSource source, BulkIdValidator.IdType type) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            validator.validate(source, type, generator);
+        }
+        String ndjson = out.toString();
+        if (ndjson.isEmpty()) {
+            return List.of();
+        }
+        assertEquals('\n', ndjson.charAt(ndjson.length() - 1));
+        return ndjson.lines().map(line -> {
+            try {
+                return objectMapper.readTree(line);
+            } catch (IOException e) {
+                throw new AssertionError(line, e);
+            }
+        }).toList();
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,68 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ColorCatalogTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void classpathCatalog_indexesExactAndCaseInsensitiveNames() {
+        ColorCatalog catalog = new ColorCatalog(new ObjectMapper(), "", Duration.ofSeconds(5));
+
+        assertEquals(6, catalog.size());
+        assertEquals("#0000FF", catalog.findHex("blue"));
+        assertNull(catalog.findHex("Blue"));
+        assertEquals("#0000FF", catalog.findHexIgnoreCase("bLuE"));
+        assertNull(catalog.findHexIgnoreCase("purple"));
+        assertNull(catalog.findHexIgnoreCase(""));
+    }
+
+    @Test
+    void externalCatalog_isReloadedWhenModified() throws IOException {
+        Path file = tempDir.resolve("colors.json");
+        Files.writeString(file, "[{\"color\":\"red\",\"code\":{\"hex\":\"#FF0000\"}}]");
+        ColorCatalog catalog = new ColorCatalog(new ObjectMapper(), file.toString(), Duration.ofHours(1));
+        try {
+            assertEquals("#FF0000", catalog.findHex("red"));
+            assertNull(catalog.findHex("purple"));
+
+            Files.writeString(file, "[{\"color\":\"purple\",\"code\":{\"hex\":\"#800080\"}}]");
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+            catalog.reloadIfChanged();
+
+            assertNull(catalog.findHex("red"));
+            assertEquals("#800080", catalog.findHexIgnoreCase("PURPLE"));
+        } finally {
+            catalog.shutdown();
+        }
+    }
+
+    @Test
+    void externalCatalog_keepsPreviousSnapshotWhenReloadFails() throws IOException {
+        Path file = tempDir.resolve("colors.json");
+        Files.writeString(file, "[{\"color\":\"red\",\"code\":{\"hex\":\"#FF0000\"}}]");
+        ColorCatalog catalog = new ColorCatalog(new ObjectMapper(), file.toString(), Duration.ofHours(1));
+        try {
+            Files.writeString(file, "[{\"color\":");
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+            catalog.reloadIfChanged();
+
+            assertEquals("#FF0000", catalog.findHex("red"));
+        } finally {
+            catalog.shutdown();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DateDiffEngineTest {
+
+    private final DateDiffEngine engine = new DateDiffEngine();
+
+    @Test
+    void parsedDates_matchTheFormatter() {
+        LocalDate date = LocalDate.of(1599, 12, 25);
+        while (date.getYear() < 2401) {
+            String text = date.format(DateDiffEngine.FORMAT);
+            assertEquals(date.toEpochDay(), engine.parseEpochDay(text), text);
+            date = date.plusDays(17);
+        }
+        assertEquals(LocalDate.of(0, 1, 1).toEpochDay(), engine.parseEpochDay("01-01-0000"));
+        assertEquals(LocalDate.of(9999, 12, 31).toEpochDay(), engine.parseEpochDay("31-12-9999"));
+    }
+
+    @Test
+    void invalidDates_areRejectedLikeTheFormatter() {
+        for (String text : List.of("29-02-2023", "30-02-2024", "31-04-2023", "00-01-2023", "01-13-2023", "32-01-2023",
+            "1-01-2023", "01/01/2023", "2023-01-01", "01-01-20234", "0a-01-2023", "")) {
+            assertEquals(DateDiffEngine.INVALID, engine.parseEpochDay(text), text);
+            assertThrows(DateTimeParseException.class, () -> LocalDate.parse(text, DateDiffEngine.FORMAT), text);
+        }
+        assertEquals(LocalDate.of(2024, 2, 29).toEpochDay(), engine.parseEpochDay("29-02-2024"));
+        assertEquals(LocalDate.of(2000, 2, 29).toEpochDay(), engine.parseEpochDay("29-02-2000"));
+        assertEquals(DateDiffEngine.INVALID, engine.parseEpochDay("29-02-1900"));
+    }
+
+    @Test
+    void differences_areSigned_andBatchesMarkInvalidPairs() {
+        assertEquals(9, engine.daysBetween("01-01-2023", "10-01-2023"));
+        assertEquals(-366, engine.daysBetween("01-01-2025", "01-01-2024"));
+        assertThrows(IllegalArgumentException.class, () -> engine.daysBetween("01-01-2023", "2023-01-10"));
+
+        assertEquals(Arrays.asList(31L, null, 0L), engine.daysBetween(List.of(
+            new DateDiffEngine.DatePair("01-01-2021", "01-02-2021"),
+            new DateDiffEngine.DatePair("01-01-2021", null),
+            new DateDiffEngine.DatePair("28-02-2021", "28-02-2021"))));
+    }
+}
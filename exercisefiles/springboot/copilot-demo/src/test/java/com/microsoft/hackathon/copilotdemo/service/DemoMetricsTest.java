@@ -0,0 +1,44 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DemoMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final DemoMetrics metrics = new DemoMetrics(registry);
+
+    @Test
+    void zips_recordBytesAndCompressionRatio() {
+        metrics.recordZip(1000, 250);
+        metrics.recordZip(3000, 1500);
+        // nothing to compress, no ratio
+        metrics.recordZip(0, 22);
+
+        assertEquals(4000, registry.get("demo.zip.bytes").tag("direction", "in").counter().count());
+        assertEquals(1772, registry.get("demo.zip.bytes").tag("direction", "out").counter().count());
+        DistributionSummary ratio = registry.get("demo.zip.compression.ratio").summary();
+        assertEquals(2, ratio.count());
+        assertEquals(0.75, ratio.totalAmount(), 1e-9);
+        assertEquals(0.5, ratio.max(), 1e-9);
+    }
+
+    @Test
+    void meters_haveAFixedSetOfTags() {
+        for (int i = 0; i < 100; i++) {
+            metrics.recordColorLookup(i % 3 == 0);
+            metrics.recordListing(i);
+            metrics.recordWordCountScan(i);
+        }
+
+        assertEquals(34, registry.get("demo.color.lookups").tag("result", "hit").counter().count());
+        assertEquals(66, registry.get("demo.color.lookups").tag("result", "miss").counter().count());
+        assertEquals(100, registry.get("demo.listfiles.entries").summary().count());
+        assertEquals(4950, registry.get("demo.countword.scanned").counter().count());
+        // every meter is registered up front, whatever was recorded
+        assertEquals(9, registry.getMeters().size());
+    }
+}
@@ -0,0 +1,103 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DirectoryListerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final DirectoryLister directoryLister = new DirectoryLister();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void pages_coverEveryEntryExactlyOnce() throws IOException {
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            Path folder = Files.createDirectories(tempDir.resolve("folder" + i));
+            expected.add("folder" + i);
+            for (int j = 0; j < i; j++) {
+                Files.writeString(folder.resolve("file" + j + ".txt"), "x");
+                expected.add("folder" + i + "/file" + j + ".txt");
+            }
+            Files.createDirectories(folder.resolve("deeper/deepest"));
+            expected.add("folder" + i + "/deeper");
+        }
+        Files.writeString(tempDir.resolve("root.txt"), "root");
+        expected.add("root.txt");
+
+        for (int limit : new int[] {1, 2, 3, 7, 100}) {
+            List<String> names = new ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                JsonNode page = page(2, cursor, limit, false);
+                page.get("entries").forEach(entry -> names.add(entry.get("name").asText()));
+                assertTrue(page.get("entries").size() <= limit);
+                cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+                pages++;
+            } while (cursor != null);
+
+            assertEquals(expected.size(), names.size(), "limit " + limit);
+            assertEquals(expected, new HashSet<>(names), "limit " + limit);
+            assertEquals((expected.size() + limit - 1) / limit, pages, "limit " + limit);
+        }
+    }
+
+    @Test
+    void attributes_areOnlyWrittenOnRequest() throws IOException {
+        Files.writeString(tempDir.resolve("a.txt"), "hello");
+        Files.createDirectory(tempDir.resolve("folder"));
+
+        JsonNode plain = page(1, null, 10, false);
+        JsonNode detailed = page(1, null, 10, true);
+
+        plain.get("entries").forEach(entry -> assertFalse(entry.has("size")));
+        for (JsonNode entry : detailed.get("entries")) {
+            if (entry.get("name").asText().equals("a.txt")) {
+                assertEquals("file", entry.get("type").asText());
+                assertEquals(5, entry.get("size").asLong());
+            } else {
+                assertEquals("directory", entry.get("type").asText());
+            }
+            assertTrue(entry.has("modified"));
+        }
+    }
+
+    @Test
+    void invalidCursors_areRejected() {
+        assertThrows(IllegalArgumentException.class, () -> directoryLister.open(tempDir, 1, "not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> directoryLister.open(tempDir, 1, "MS4w"));
+        assertThrows(IllegalArgumentException.class, () -> directoryLister.open(tempDir, 1, "NQ"));
+        assertThrows(IllegalArgumentException.class, () -> directoryLister.open(tempDir, 0, null));
+    }
+
+    private JsonNode page(int depth, String cursor, int limit, boolean attributes) throws IOException {
+        StringWriter json = new StringWriter();
+        try (DirectoryLister.Listing listing = directoryLister.open(tempDir, depth, cursor);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(json)) {
+            generator.writeStartObject();
+            listing.write(generator, limit, attributes);
+            generator.writeEndObject();
+        }
+        return objectMapper.readTree(json.toString());
+    }
+}
@@ -0,0 +1,103 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DirectorySnapshotCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private DirectorySnapshotCache cache;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        cache.shutdown();
+    }
+
+    @Test
+    void repeatedListings_areServedFromMemory() throws IOException {
+        cache = new DirectorySnapshotCache(Duration.ofMinutes(1), 10);
+        Files.writeString(tempDir.resolve("a.txt"), "a");
+        Files.createDirectory(tempDir.resolve("folder"));
+
+        DirectorySnapshotCache.Snapshot first = cache.list(tempDir);
+        DirectorySnapshotCache.Snapshot second = cache.list(tempDir);
+
+        assertEquals(List.of("a.txt"), first.files());
+        assertEquals(List.of("folder"), first.folders());
+        assertSame(first, second);
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    void changes_invalidateTheSnapshot() throws Exception {
+        cache = new DirectorySnapshotCache(Duration.ofMinutes(1), 10);
+        cache.list(tempDir);
+
+        Files.writeString(tempDir.resolve("new.txt"), "new");
+
+        // watch services may deliver events with some delay, or by polling
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (!cache.list(tempDir).files().contains("new.txt")) {
+            assertTrue(System.nanoTime() < deadline, "change was never noticed");
+            Thread.sleep(50);
+        }
+        assertTrue(cache.stats().invalidations() >= 1);
+    }
+
+    @Test
+    void snapshots_expireAfterTheirTtl() throws IOException {
+        cache = new DirectorySnapshotCache(Duration.ZERO, 10);
+
+        cache.list(tempDir);
+        cache.list(tempDir);
+
+        assertEquals(0, cache.stats().hits());
+        assertEquals(2, cache.stats().misses());
+    }
+
+    @Test
+    void leastRecentlyUsedDirectories_areEvicted() throws IOException {
+        cache = new DirectorySnapshotCache(Duration.ofMinutes(1), 2);
+        Path first = Files.createDirectory(tempDir.resolve("first"));
+        Path second = Files.createDirectory(tempDir.resolve("second"));
+        Path third = Files.createDirectory(tempDir.resolve("third"));
+
+        cache.list(first);
+        cache.list(second);
+        cache.list(first);
+        cache.list(third);
+        cache.list(first);
+        cache.list(second);
+
+        DirectorySnapshotCache.Stats stats = cache.stats();
+        assertEquals(2, stats.size());
+        assertEquals(2, stats.evictions());
+        assertEquals(2, stats.hits());
+    }
+
+    @Test
+    void missingDirectoriesAndFiles_areRejected() throws IOException {
+        cache = new DirectorySnapshotCache(Duration.ofMinutes(1), 10);
+        Path file = Files.writeString(tempDir.resolve("a.txt"), "a");
+
+        assertThrows(NoSuchFileException.class, () -> cache.list(tempDir.resolve("missing")));
+        assertThrows(NotDirectoryException.class, () -> cache.list(file));
+    }
+}
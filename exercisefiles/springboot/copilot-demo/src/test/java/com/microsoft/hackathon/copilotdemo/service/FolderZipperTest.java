@@ -0,0 +1,129 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FolderZipperTest {
+
+    @TempDir
+    Path tempDir;
+
+    // a tiny in-memory limit sends every file above 1 KB through the streamed path
+    private final FolderZipper folderZipper = new FolderZipper(6, 3, 1024);
+
+    @AfterEach
+    void tearDown() {
+        folderZipper.shutdown();
+    }
+
+    @Test
+    void zip_producesArchiveReadableByBothZipReaders() throws IOException {
+        Path folder = tempDir.resolve("data");
+        Map<String, byte[]> expected = new HashMap<>();
+        Random random = new Random(1);
+        expected.put("data/small.txt", write(folder.resolve("small.txt"), "hello hello hello".getBytes(StandardCharsets.UTF_8)));
+        expected.put("data/empty.txt", write(folder.resolve("empty.txt"), new byte[0]));
+        expected.put("data/photo.jpg", write(folder.resolve("photo.jpg"), "not really a jpeg".getBytes(StandardCharsets.UTF_8)));
+        expected.put("data/nested/random.bin", write(folder.resolve("nested/random.bin"), randomBytes(random, 900)));
+        expected.put("data/nested/large.txt", write(folder.resolve("nested/large.txt"), "abcdefgh".repeat(20_000).getBytes(StandardCharsets.UTF_8)));
+        expected.put("data/nested/deeper/large.bin", write(folder.resolve("nested/deeper/large.bin"), randomBytes(random, 50_000)));
+        for (int i = 0; i < 40; i++) {
+            expected.put("data/many/file" + i + ".txt", write(folder.resolve("many/file" + i + ".txt"), ("file " + i).repeat(i).getBytes(StandardCharsets.UTF_8)));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        folderZipper.zip(folder.toFile(), out);
+        byte[] archive = out.toByteArray();
+
+        Map<String, byte[]> streamed = new HashMap<>();
+        try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            while ((entry = zipIn.getNextEntry()) != null) {
+                streamed.put(entry.getName(), zipIn.readAllBytes());
+            }
+        }
+        assertEquals(expected.keySet(), streamed.keySet());
+        expected.forEach((name, content) -> assertArrayEquals(content, streamed.get(name), name));
+
+        Path archiveFile = Files.write(tempDir.resolve("archive.zip"), archive);
+        try (ZipFile zipFile = new ZipFile(archiveFile.toFile())) {
+            assertEquals(expected.size(), zipFile.size());
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                    assertArrayEquals(expected.get(entry.getName()), inputStream.readAllBytes(), entry.getName());
+                }
+            }
+            assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("data/nested/large.txt").getMethod());
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("data/nested/deeper/large.bin").getMethod());
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("data/nested/random.bin").getMethod());
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("data/photo.jpg").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("data/many/file39.txt").getMethod());
+        }
+    }
+
+    @Test
+    void zip_withLevelZero_storesEveryEntry() throws IOException {
+        Path folder = tempDir.resolve("data");
+        write(folder.resolve("small.txt"), "hello hello hello hello".getBytes(StandardCharsets.UTF_8));
+        write(folder.resolve("large.txt"), "abcdefgh".repeat(1_000).getBytes(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        folderZipper.zip(folder.toFile(), out, 0);
+
+        try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            int count = 0;
+            while ((entry = zipIn.getNextEntry()) != null) {
+                assertEquals(ZipEntry.STORED, entry.getMethod(), entry.getName());
+                count++;
+            }
+            assertEquals(2, count);
+        }
+    }
+
+    @Test
+    void looksCompressed_detectsExtensionsAndHighEntropy() {
+        Random random = new Random(2);
+        byte[] text = "the quick brown fox jumps over the lazy dog ".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(FolderZipper.looksCompressed("archive.ZIP", text, text.length));
+        assertTrue(FolderZipper.looksCompressed("logs.gz", text, text.length));
+        assertTrue(FolderZipper.looksCompressed("data.bin", randomBytes(random, 4096), 4096));
+        assertFalse(FolderZipper.looksCompressed("notes.txt", text, text.length));
+    }
+
+    private static byte[] write(Path file, byte[] content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+        return content;
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,73 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MultiWordCounterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final MultiWordCounter multiWordCounter = new MultiWordCounter();
+
+    @Test
+    void overlappingWords_areCountedIndependentlyAndWithoutSelfOverlap() throws IOException {
+        Path file = write("banana\naaaa\r\nnanana");
+
+        Map<String, Long> counts = multiWordCounter.count(List.of(file), List.of("ana", "nan", "a", "aa", "a\nb")).get(file);
+
+        assertEquals(2, counts.get("ana"));
+        assertEquals(2, counts.get("nan"));
+        assertEquals(10, counts.get("a"));
+        assertEquals(2, counts.get("aa"));
+        assertEquals(0, counts.get("a\nb"));
+    }
+
+    @Test
+    void randomContent_matchesIndexOfBasedCounting() throws IOException {
+        Random random = new Random(7);
+        String alphabet = "abc\n";
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            content.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        Path first = write(content.toString());
+        Path second = write(content.reverse().toString());
+        List<String> words = List.of("a", "ab", "abc", "bca", "cc", "aba", "ccc");
+
+        Map<Path, Map<String, Long>> counts = multiWordCounter.count(List.of(first, second), words);
+
+        for (Path file : List.of(first, second)) {
+            String text = Files.readString(file);
+            for (String word : words) {
+                long expected = text.lines().mapToLong(line -> countSubstrings(line, word)).sum();
+                assertEquals(expected, counts.get(file).get(word), word);
+            }
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = Files.createTempFile(tempDir, "words", ".txt");
+        Files.writeString(file, content);
+        return file;
+    }
+
+    private static long countSubstrings(String line, String word) {
+        long count = 0;
+        int index = 0;
+        while ((index = line.indexOf(word, index)) != -1) {
+            count++;
+            index += word.length();
+        }
+        return count;
+    }
+}
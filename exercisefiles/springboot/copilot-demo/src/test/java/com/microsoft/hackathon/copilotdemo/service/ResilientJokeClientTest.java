@@ -0,0 +1,161 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResilientJokeClientTest {
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ResilientJokeClient client;
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+    }
+
+    @Test
+    void failures_areAnsweredWithTheLastGoodJokes() {
+        client = client(call -> {
+            if (call <= 2) {
+                return "joke " + call;
+            }
+            throw new RestClientException("down");
+        }, 10, Duration.ofSeconds(10));
+
+        assertEquals(new ResilientJokeClient.Joke("joke 1", false), client.fetch());
+        assertEquals(new ResilientJokeClient.Joke("joke 2", false), client.fetch());
+        ResilientJokeClient.Joke stale = client.fetch();
+        assertTrue(stale.stale());
+        assertEquals("joke 2", stale.body());
+        assertEquals(1, client.stats().staleServed());
+        assertEquals(1, client.stats().failures());
+        assertEquals(2, registry.get("demo.joke.upstream").tag("outcome", "success").timer().count());
+        assertEquals(1, registry.get("demo.joke.upstream").tag("outcome", "error").timer().count());
+        assertEquals(new ResilientJokeClient.Joke("joke 1", true), client.fetch());
+        assertEquals(new ResilientJokeClient.Joke("joke 2", true), client.fetch());
+    }
+
+    @Test
+    void failures_withoutGoodJokes_areReported() {
+        client = client(call -> {
+            throw new RestClientException("down");
+        }, 10, Duration.ofSeconds(10));
+
+        assertThrows(RestClientException.class, client::fetch);
+        assertEquals(1, client.stats().unavailable());
+    }
+
+    @Test
+    void circuit_opensOnFailures_andClosesAfterSuccessfulProbes() throws InterruptedException {
+        AtomicInteger failing = new AtomicInteger(1);
+        client = client(call -> {
+            if (failing.get() == 1) {
+                throw new RestClientException("down");
+            }
+            return "joke";
+        }, 10, Duration.ofMillis(200));
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(RestClientException.class, client::fetch);
+        }
+        assertEquals("OPEN", client.stats().circuitState());
+        assertThrows(RestClientException.class, client::fetch);
+        assertEquals(4, upstreamCalls.get());
+        assertEquals(1, client.stats().shortCircuited());
+
+        failing.set(0);
+        Thread.sleep(300);
+        assertEquals("joke", client.fetch().body());
+        assertEquals("HALF_OPEN", client.stats().circuitState());
+        assertEquals("joke", client.fetch().body());
+        assertEquals("CLOSED", client.stats().circuitState());
+        assertEquals(1, client.stats().circuitOpened());
+    }
+
+    @Test
+    void bulkhead_rejectsCallsBeyondTheLimit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        client = client(call -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "joke";
+        }, 1, Duration.ofSeconds(10));
+
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        try {
+            Future<ResilientJokeClient.Joke> first = caller.submit(client::fetch);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (client.stats().inFlight() == 0) {
+                assertTrue(System.nanoTime() < deadline, "first call never started");
+                Thread.sleep(10);
+            }
+
+            assertThrows(RestClientException.class, client::fetch);
+            assertEquals(1, client.stats().bulkheadRejected());
+
+            release.countDown();
+            assertFalse(first.get(10, TimeUnit.SECONDS).stale());
+        } finally {
+            caller.shutdownNow();
+        }
+    }
+
+    @Test
+    void slowCalls_areHedged() {
+        int warmUp = 30;
+        client = client(call -> {
+            if (call == warmUp + 1) {
+                sleep(2_000);
+                return "slow";
+            }
+            return "fast";
+        }, 10, Duration.ofSeconds(10));
+
+        for (int i = 0; i < warmUp; i++) {
+            client.fetch();
+        }
+        assertEquals("fast", client.fetch().body());
+        assertEquals(1, client.stats().hedges());
+        assertEquals(1, client.stats().hedgesWon());
+    }
+
+    private ResilientJokeClient client(IntFunction<String> upstream, int maxConcurrentCalls, Duration openDuration) {
+        RestTemplate restTemplate = new RestTemplate() {
+            @Override
+            public <T> T getForObject(String url, Class<T> responseType, Object... uriVariables) {
+                return responseType.cast(upstream.apply(upstreamCalls.incrementAndGet()));
+            }
+        };
+        return new ResilientJokeClient(restTemplate, new DemoMetrics(registry), "http://jokes.invalid/random", maxConcurrentCalls, Duration.ZERO,
+            Duration.ofSeconds(5), 10, 4, 50, openDuration, 2, 95, Duration.ofMillis(50), 5, false);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
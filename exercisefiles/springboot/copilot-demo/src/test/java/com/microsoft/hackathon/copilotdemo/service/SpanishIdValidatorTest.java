@@ -0,0 +1,46 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpanishIdValidatorTest {
+
+    private final SpanishIdValidator validator = new SpanishIdValidator();
+
+    @Test
+    void phones_matchTheFormerPattern() {
+        assertTrue(validator.isValidPhone("+34612345678"));
+        assertTrue(validator.isValidPhone("+34712345678"));
+        assertTrue(validator.isValidPhone("+34912345678"));
+
+        assertFalse(validator.isValidPhone("+34812345678"));
+        assertFalse(validator.isValidPhone("+34|12345678"));
+        assertFalse(validator.isValidPhone("+3461234567"));
+        assertFalse(validator.isValidPhone("+346123456789"));
+        assertFalse(validator.isValidPhone("+3461234567a"));
+        assertFalse(validator.isValidPhone("+3461234567٣"));
+        assertFalse(validator.isValidPhone("0034612345678"));
+        assertFalse(validator.isValidPhone(""));
+        assertFalse(validator.isValidPhone(null));
+    }
+
+    @Test
+    void dnis_needTheirControlLetter() {
+        for (int number : new int[]{0, 1, 22, 23, 12345678, 99999999}) {
+            String digits = String.format("%08d", number);
+            char letter = SpanishIdValidator.DNI_CONTROL_LETTERS.charAt(number % 23);
+            assertTrue(validator.isValidDni(digits + letter), digits + letter);
+            assertFalse(validator.isValidDni(digits + Character.toLowerCase(letter)), digits);
+            assertFalse(validator.isValidDni(digits + (letter == 'T' ? 'R' : 'T')), digits);
+        }
+
+        assertTrue(validator.isValidDni("12345678Z"));
+        assertFalse(validator.isValidDni("1234567Z"));
+        assertFalse(validator.isValidDni("123456789Z"));
+        assertFalse(validator.isValidDni("1234567-Z"));
+        assertFalse(validator.isValidDni("12345678"));
+        assertFalse(validator.isValidDni(null));
+    }
+}
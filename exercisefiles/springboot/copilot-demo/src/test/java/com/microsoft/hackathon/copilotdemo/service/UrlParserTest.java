@@ -0,0 +1,109 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UrlParserTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UrlParser parser = new UrlParser();
+
+    @Test
+    void components_areSplitLikeRfc3986() {
+        UrlParser.ParsedUrl url = parser.parse("HTTPS://user:pw@Example.com:8443/a/b;c?x=1&y=&z#top");
+
+        assertEquals("https", url.protocol());
+        assertEquals("user:pw", url.userInfo());
+        assertEquals("Example.com", url.host());
+        assertEquals(8443, url.port());
+        assertEquals("/a/b;c", url.path());
+        assertEquals("x=1&y=&z", url.query());
+        assertEquals("top", url.fragment());
+        assertEquals(Map.of("x", List.of("1"), "y", List.of(""), "z", List.of("")), url.parameters());
+    }
+
+    @Test
+    void optionalComponents_canBeMissing() {
+        UrlParser.ParsedUrl ipv6 = parser.parse("http://[::1]:8080");
+        assertEquals("[::1]", ipv6.host());
+        assertEquals(8080, ipv6.port());
+        assertEquals("", ipv6.path());
+        assertNull(ipv6.query());
+        assertNull(ipv6.fragment());
+        assertNull(ipv6.userInfo());
+
+        UrlParser.ParsedUrl mail = parser.parse("mailto:someone@example.com");
+        assertEquals("", mail.host());
+        assertEquals(-1, mail.port());
+        assertEquals("someone@example.com", mail.path());
+
+        assertEquals(-1, parser.parse("http://example.com:/").port());
+        assertEquals("", parser.parse("http://example.com?#").query());
+    }
+
+    @Test
+    void invalidUrls_areRejected() {
+        for (String url : new String[]{"invalid-url", "", "1http://example.com", "://example.com", "http://exa mple.com",
+            "http://example.com:80a/", "http://example.com:65536/", "http://[::1/", "http://[::1]x/",
+            "http://example.com/%zz", "http://example.com/%2"}) {
+            assertNull(parser.parse(url), url);
+        }
+        assertNull(parser.parse(null));
+    }
+
+    @Test
+    void parameters_areDecodedAndGroupedByName() throws IOException {
+        UrlParser.ParsedUrl url = parser.parse("http://example.com/?a=1&b=x%26y&a=2&a+b=c&a%20b=d%C3%A9&&c");
+
+        assertEquals(Map.of("a", List.of("1", "2"), "b", List.of("x&y"), "a b", List.of("c", "dé"), "c", List.of("")),
+            url.parameters());
+
+        JsonNode json = objectMapper.readTree(write(url));
+        assertEquals("a=1&b=x%26y&a=2&a+b=c&a%20b=d%C3%A9&&c", json.get("query").asText());
+        assertEquals(objectMapper.valueToTree(url.parameters()), json.get("parameters"));
+        List<String> names = new ArrayList<>();
+        json.get("parameters").fieldNames().forEachRemaining(names::add);
+        assertEquals(List.of("a", "b", "a b", "c"), names);
+    }
+
+    @Test
+    void parseAll_reusesTheParserBufferAndKeepsPositions() throws IOException {
+        String urls = "[\"http://a.example/x?q=1\", \"not a url\", null, \"ftp://b.example:21/\\u0066ile\"]";
+        StringWriter out = new StringWriter();
+        try (JsonParser input = objectMapper.getFactory().createParser(urls);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            input.nextToken();
+            parser.parseAll(input, generator);
+        }
+
+        JsonNode results = objectMapper.readTree(out.toString());
+        assertEquals(4, results.size());
+        assertEquals("a.example", results.get(0).get("host").asText());
+        assertEquals("1", results.get(0).get("parameters").get("q").get(0).asText());
+        assertTrue(results.get(1).isNull());
+        assertTrue(results.get(2).isNull());
+        assertEquals(21, results.get(3).get("port").asInt());
+        assertEquals("/file", results.get(3).get("path").asText());
+    }
+
+    private String write(UrlParser.ParsedUrl url) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            url.writeJson(generator);
+        }
+        return out.toString();
+    }
+}
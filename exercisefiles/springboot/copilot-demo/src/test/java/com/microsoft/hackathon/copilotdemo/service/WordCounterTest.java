@@ -0,0 +1,87 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WordCounterTest {
+
+    @TempDir
+    Path tempDir;
+
+    // tiny chunks force many chunk boundaries and the parallel path
+    private final WordCounter wordCounter = new WordCounter(7, 4);
+
+    @AfterEach
+    void tearDown() {
+        wordCounter.shutdown();
+    }
+
+    @Test
+    void substringMode_countsNonOverlappingOccurrencesPerLine() throws IOException {
+        Path file = write("aaaa aa\nbanana\r\nana ana\n");
+
+        assertEquals(3, wordCounter.count(file, "aa", WordCounter.MatchMode.SUBSTRING));
+        assertEquals(3, wordCounter.count(file, "ana", WordCounter.MatchMode.SUBSTRING));
+        assertEquals(1, wordCounter.count(file, "ana ana", WordCounter.MatchMode.SUBSTRING));
+        assertEquals(0, wordCounter.count(file, "a\nb", WordCounter.MatchMode.SUBSTRING));
+    }
+
+    @Test
+    void tokenMode_countsWhitespaceSeparatedTokens() throws IOException {
+        Path file = write("ana\tbanana ana\n\nana, ana");
+
+        assertEquals(3, wordCounter.count(file, "ana", WordCounter.MatchMode.TOKEN));
+        assertEquals(1, wordCounter.count(file, "ana,", WordCounter.MatchMode.TOKEN));
+        assertEquals(0, wordCounter.count(file, "an", WordCounter.MatchMode.TOKEN));
+    }
+
+    @Test
+    void emptyFileAndEmptyWord_countZero() throws IOException {
+        assertEquals(0, wordCounter.count(write(""), "ana", WordCounter.MatchMode.SUBSTRING));
+        assertEquals(0, wordCounter.count(write("ana"), "", WordCounter.MatchMode.TOKEN));
+    }
+
+    @Test
+    void randomContent_matchesStringBasedCounting() throws IOException {
+        Random random = new Random(42);
+        String alphabet = "ab \n\t";
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            content.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        Path file = write(content.toString());
+
+        for (String word : new String[] {"a", "ab", "aba", "bb"}) {
+            long substrings = content.toString().lines().mapToLong(line -> countSubstrings(line, word)).sum();
+            long tokens = Arrays.stream(content.toString().split("\\s+")).filter(word::equals).count();
+
+            assertEquals(substrings, wordCounter.count(file, word, WordCounter.MatchMode.SUBSTRING), word);
+            assertEquals(tokens, wordCounter.count(file, word, WordCounter.MatchMode.TOKEN), word);
+        }
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = Files.createTempFile(tempDir, "words", ".txt");
+        Files.writeString(file, content);
+        return file;
+    }
+
+    private static long countSubstrings(String line, String word) {
+        long count = 0;
+        int index = 0;
+        while ((index = line.indexOf(word, index)) != -1) {
+            count++;
+            index += word.length();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,99 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WordIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final List<WordIndex> indexes = new ArrayList<>();
+    private final WordCounter wordCounter = new WordCounter(1024, 2);
+
+    @AfterEach
+    void tearDown() {
+        indexes.forEach(WordIndex::shutdown);
+        wordCounter.shutdown();
+    }
+
+    @Test
+    void indexedCounts_matchTokenScans() throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("root/nested"));
+        Path file = Files.writeString(root.resolve("text.txt"),
+            "the cat\tsat on the\r\nmat, the caté the\n" + "x".repeat(300) + " the");
+        WordIndex wordIndex = index(tempDir.resolve("root"));
+
+        for (String word : List.of("the", "cat", "caté", "mat,", "on", "missing", "x", "the cat")) {
+            assertEquals(OptionalLong.of(wordCounter.count(file, word, WordCounter.MatchMode.TOKEN)),
+                wordIndex.count(file, word), word);
+        }
+        assertEquals(OptionalLong.empty(), wordIndex.count(file, "x".repeat(300)));
+    }
+
+    @Test
+    void changedFiles_fallBackUntilReindexed() throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        Path file = Files.writeString(root.resolve("a.txt"), "one two two");
+        Path removed = Files.writeString(root.resolve("b.txt"), "two");
+        WordIndex wordIndex = index(root);
+        assertEquals(OptionalLong.of(2), wordIndex.count(file, "two"));
+
+        Files.writeString(file, "two two two");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_000));
+        Files.delete(removed);
+        assertEquals(OptionalLong.empty(), wordIndex.count(file, "two"));
+
+        wordIndex.refresh();
+        assertEquals(OptionalLong.of(3), wordIndex.count(file, "two"));
+        assertEquals(OptionalLong.of(0), wordIndex.count(file, "one"));
+        assertEquals(OptionalLong.empty(), wordIndex.count(removed, "two"));
+    }
+
+    @Test
+    void savedIndex_isLoadedAtStartup() throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        Path file = Files.writeString(root.resolve("a.txt"), "one two two");
+        index(root);
+
+        WordIndex reloaded = new WordIndex(root.toString(), tempDir.resolve("index").toString(),
+            Duration.ofHours(1), DataSize.ofMegabytes(1));
+        indexes.add(reloaded);
+        reloaded.shutdown();
+
+        assertEquals(OptionalLong.of(2), reloaded.count(file, "two"));
+        assertTrue(Files.exists(tempDir.resolve("index/word-index.bin")));
+    }
+
+    @Test
+    void filesOutsideTheRoot_orWithoutRoot_areNotAnswered() throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("root"));
+        Path outside = Files.writeString(tempDir.resolve("outside.txt"), "one");
+        WordIndex disabled = new WordIndex("", tempDir.resolve("index").toString(), Duration.ofHours(1), DataSize.ofMegabytes(1));
+
+        assertEquals(OptionalLong.empty(), index(root).count(outside, "one"));
+        assertEquals(OptionalLong.empty(), disabled.count(outside, "one"));
+    }
+
+    private WordIndex index(Path root) throws IOException {
+        WordIndex wordIndex = new WordIndex(root.toString(), tempDir.resolve("index").toString(),
+            Duration.ofHours(1), DataSize.ofMegabytes(1));
+        indexes.add(wordIndex);
+        wordIndex.refresh();
+        return wordIndex;
+    }
+}
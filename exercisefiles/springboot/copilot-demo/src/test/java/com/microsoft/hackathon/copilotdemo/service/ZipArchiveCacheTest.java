@@ -0,0 +1,101 @@
+package com.microsoft.hackathon.copilotdemo.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZipArchiveCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void fingerprint_changesWithTheTreeAndTheLevel() throws IOException {
+        Path folder = Files.createDirectories(tempDir.resolve("folder/nested"));
+        Path file = Files.writeString(folder.resolve("a.txt"), "hello");
+        ZipArchiveCache cache = new ZipArchiveCache(tempDir.resolve("cache").toString(), DataSize.ofMegabytes(1));
+
+        String fingerprint = cache.fingerprint(tempDir.resolve("folder"), 6);
+        assertEquals(fingerprint, cache.fingerprint(tempDir.resolve("folder"), 6));
+        assertNotEquals(fingerprint, cache.fingerprint(tempDir.resolve("folder"), 1));
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+        String touched = cache.fingerprint(tempDir.resolve("folder"), 6);
+        assertNotEquals(fingerprint, touched);
+
+        Files.writeString(folder.resolve("b.txt"), "");
+        assertNotEquals(touched, cache.fingerprint(tempDir.resolve("folder"), 6));
+    }
+
+    @Test
+    void writeThrough_streamsAndCachesTheArchive() throws IOException {
+        ZipArchiveCache cache = new ZipArchiveCache(tempDir.toString(), DataSize.ofMegabytes(1));
+        byte[] archive = "archive content".getBytes();
+
+        assertNull(cache.open("abc"));
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        cache.writeThrough("abc", streamed, out -> out.write(archive));
+        assertArrayEquals(archive, streamed.toByteArray());
+
+        FileChannel cached = cache.open("abc");
+        assertNotNull(cached);
+        ByteArrayOutputStream served = new ByteArrayOutputStream();
+        ZipArchiveCache.transfer(cached, served);
+        assertArrayEquals(archive, served.toByteArray());
+
+        // archives left by a previous run are picked up
+        assertTrue(new ZipArchiveCache(tempDir.toString(), DataSize.ofMegabytes(1)).contains("abc"));
+    }
+
+    @Test
+    void writeThrough_withFailingWriter_cachesNothing() throws IOException {
+        ZipArchiveCache cache = new ZipArchiveCache(tempDir.toString(), DataSize.ofMegabytes(1));
+
+        assertThrows(IOException.class, () -> cache.writeThrough("abc", new ByteArrayOutputStream(), out -> {
+            out.write(1);
+            throw new IOException("folder vanished");
+        }));
+
+        assertFalse(cache.contains("abc"));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void archivesOverTheBudget_areEvictedLeastRecentlyUsedFirst() throws IOException {
+        ZipArchiveCache cache = new ZipArchiveCache(tempDir.toString(), DataSize.ofBytes(250));
+        byte[] archive = new byte[100];
+
+        cache.writeThrough("first", new ByteArrayOutputStream(), out -> out.write(archive));
+        cache.writeThrough("second", new ByteArrayOutputStream(), out -> out.write(archive));
+        cache.open("first").close();
+        cache.writeThrough("third", new ByteArrayOutputStream(), out -> out.write(archive));
+
+        assertTrue(cache.contains("first"));
+        assertFalse(cache.contains("second"));
+        assertTrue(cache.contains("third"));
+        assertEquals(200, cache.totalBytes());
+        assertFalse(Files.exists(tempDir.resolve("second.zip")));
+
+        cache.writeThrough("huge", new ByteArrayOutputStream(), out -> out.write(new byte[300]));
+        assertFalse(cache.contains("huge"));
+        assertTrue(cache.contains("first"));
+    }
+}
@@ -0,0 +1,97 @@
+package com.microsoft.hackathon.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An application under test: where its packaged jar is, how to give it a port and a jokes upstream, and the request
+ * of every endpoint. The file endpoints read {@code words.txt} and {@code data} from the working directory the
+ * application is started in.
+ */
+enum Application {
+
+    SPRING(Path.of("../exercisefiles/springboot/copilot-demo/target/copilot-demo-0.0.1-SNAPSHOT.jar"), "server.port",
+        Map.of(
+            Endpoint.HELLO, "/hello?key=load",
+            Endpoint.DIFFDATES, "/diffdates?date1=01-01-2020&date2=15-06-2023",
+            Endpoint.PHONE, "/validate-spanish-phone?phone=%2B34612345678",
+            Endpoint.DNI, "/validate-spanish-dni?dni=12345678Z",
+            Endpoint.COLOR, "/color/blue",
+            Endpoint.JOKE, "/chuck-norris-joke",
+            Endpoint.PARSEURL, "/parse-url?url=https%3A%2F%2Fwww.example.com%3A8443%2Fsearch%3Fq%3Dcopilot%26page%3D2",
+            Endpoint.LISTFILES, "/list-files?path=data",
+            Endpoint.COUNTWORD, "/count-word?path=words.txt&word=copilot&mode=token",
+            Endpoint.ZIPFOLDER, "/zip-folder?path=data")),
+
+    QUARKUS(Path.of("../completesolution/quarkus/copilot-demo/target/quarkus-app/quarkus-run.jar"), "quarkus.http.port",
+        Map.of(
+            Endpoint.HELLO, "/hello?key=load",
+            Endpoint.DIFFDATES, "/diffdates?date1=01-01-2020&date2=15-06-2023",
+            Endpoint.PHONE, "/validatephone?phone=%2B34612345678",
+            Endpoint.DNI, "/validatedni?dni=12345678Z",
+            Endpoint.COLOR, "/hexcolor?name=blue",
+            Endpoint.JOKE, "/chucknorris",
+            Endpoint.PARSEURL, "/parseurl?url=https%3A%2F%2Fwww.example.com%3A8443%2Fsearch%3Fq%3Dcopilot%26page%3D2",
+            Endpoint.LISTFILES, "/listfiles?path=data",
+            Endpoint.COUNTWORD, "/countword?path=words.txt&word=copilot",
+            Endpoint.ZIPFOLDER, "/zipfolder?path=data"));
+
+    private final Path defaultJar;
+    private final String portProperty;
+    private final Map<Endpoint, String> requests;
+
+    Application(Path defaultJar, String portProperty, Map<Endpoint, String> requests) {
+        this.defaultJar = defaultJar;
+        this.portProperty = portProperty;
+        this.requests = requests;
+    }
+
+    String id() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    Path defaultJar() {
+        return defaultJar;
+    }
+
+    /**
+     * Returns the path and query of the request of {@code endpoint}.
+     */
+    String request(Endpoint endpoint) {
+        return requests.get(endpoint);
+    }
+
+    /**
+     * Starts the application from {@code jar} in its own JVM, in {@code workDirectory}, listening on {@code port} and
+     * calling {@code upstream} for jokes. Its output goes to {@code log}.
+     */
+    Process start(Path jar, Path workDirectory, int port, URI upstream, Path log) throws IOException {
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("No " + id() + " application at " + jar.toAbsolutePath()
+                + ", package it first with mvn package, or pass --" + id() + "-jar=<path>");
+        }
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = List.of(java,
+            "-D" + portProperty + "=" + port,
+            "-Djoke.upstream.url=" + upstream,
+            "-jar", jar.toAbsolutePath().toString());
+        return new ProcessBuilder(command)
+            .directory(workDirectory.toFile())
+            .redirectErrorStream(true)
+            .redirectOutput(log.toFile())
+            .start();
+    }
+
+    static Application fromId(String id) {
+        try {
+            return valueOf(id.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown application: " + id);
+        }
+    }
+}
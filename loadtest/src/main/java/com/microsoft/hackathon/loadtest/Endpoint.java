@@ -0,0 +1,32 @@
+package com.microsoft.hackathon.loadtest;
+
+import java.util.Locale;
+
+/**
+ * The demo endpoints, under the names used in mixes. {@link Application} maps each to the request of an application.
+ */
+enum Endpoint {
+
+    HELLO,
+    DIFFDATES,
+    PHONE,
+    DNI,
+    COLOR,
+    JOKE,
+    PARSEURL,
+    LISTFILES,
+    COUNTWORD,
+    ZIPFOLDER;
+
+    String id() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    static Endpoint fromId(String id) {
+        try {
+            return valueOf(id.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown endpoint: " + id);
+        }
+    }
+}
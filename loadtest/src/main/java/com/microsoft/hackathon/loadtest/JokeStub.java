@@ -0,0 +1,59 @@
+package com.microsoft.hackathon.loadtest;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for the jokes API, answering every request with the same joke after a fixed delay, so that runs do
+ * not depend on, nor load, the real one.
+ */
+final class JokeStub implements AutoCloseable {
+
+    private static final byte[] JOKE = "{\"value\":\"Chuck Norris can load test with a single request.\"}"
+        .getBytes(StandardCharsets.US_ASCII);
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "joke-stub");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    JokeStub(long delayMillis) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 1000);
+        server.createContext("/jokes/random", exchange -> {
+            try {
+                if (delayMillis > 0) {
+                    Thread.sleep(delayMillis);
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, JOKE.length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(JOKE);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                exchange.close();
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    URI uri() {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + "/jokes/random");
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,139 @@
+package com.microsoft.hackathon.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load: requests are sent at their scheduled arrival times whether or not the previous ones were answered,
+ * like independent users would, so a slow server faces a growing queue rather than a slower client.
+ * <p>
+ * The latency of a request is measured from its scheduled arrival time, not from when it was actually sent, so that
+ * delays of the generator itself are counted rather than hidden (coordinated omission). Arrivals past the in-flight
+ * limit are dropped and counted, instead of being queued by the generator.
+ */
+final class LoadGenerator {
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final int maxInFlight;
+    private final boolean poisson;
+
+    LoadGenerator(Duration requestTimeout, int maxInFlight, boolean poisson) {
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "load-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(requestTimeout)
+            .executor(executor)
+            .build();
+        this.requestTimeout = requestTimeout;
+        this.maxInFlight = maxInFlight;
+        this.poisson = poisson;
+    }
+
+    /**
+     * Sends {@code rate} requests per second of {@code mix} to {@code application} at {@code base}, for
+     * {@code warmUp} and then {@code duration}, and returns the statistics of the requests scheduled during
+     * {@code duration}.
+     */
+    Result run(Application application, URI base, Mix mix, double rate, Duration warmUp, Duration duration, long seed)
+        throws InterruptedException {
+        Map<Endpoint, HttpRequest> requests = new EnumMap<>(Endpoint.class);
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : mix.endpoints()) {
+            requests.put(endpoint, HttpRequest.newBuilder(base.resolve(application.request(endpoint)))
+                .timeout(requestTimeout)
+                .build());
+            stats.put(endpoint, new EndpointStats());
+        }
+        LongAdder dropped = new LongAdder();
+        AtomicInteger inFlight = new AtomicInteger();
+        Random random = new Random(seed);
+        double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+
+        long start = System.nanoTime();
+        long measureStart = start + warmUp.toNanos();
+        long end = measureStart + duration.toNanos();
+        long scheduled = start;
+        while (scheduled < end) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            long arrival = scheduled;
+            boolean measured = arrival >= measureStart;
+            Endpoint endpoint = mix.next(random);
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                if (measured) {
+                    dropped.increment();
+                }
+            } else {
+                EndpointStats endpointStats = stats.get(endpoint);
+                client.sendAsync(requests.get(endpoint), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        long latencyNanos = System.nanoTime() - arrival;
+                        inFlight.decrementAndGet();
+                        if (measured) {
+                            endpointStats.record(latencyNanos, failure == null && response.statusCode() < 400);
+                        }
+                    });
+            }
+            scheduled += poisson ? (long) (-Math.log(1 - random.nextDouble()) * meanIntervalNanos) : (long) meanIntervalNanos;
+        }
+
+        // every request still in flight times out at the latest after the request timeout
+        long drainDeadline = System.nanoTime() + requestTimeout.toNanos() + TimeUnit.SECONDS.toNanos(5);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        return new Result(stats, dropped.sum(), duration);
+    }
+
+    /**
+     * Latencies, in microseconds, of the successful requests to an endpoint, and the number of failed ones.
+     */
+    static final class EndpointStats {
+
+        private final Histogram latencies = new ConcurrentHistogram(3);
+        private final LongAdder errors = new LongAdder();
+
+        void record(long latencyNanos, boolean success) {
+            if (success) {
+                latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+            } else {
+                errors.increment();
+            }
+        }
+
+        Histogram latencies() {
+            return latencies;
+        }
+
+        long errors() {
+            return errors.sum();
+        }
+    }
+
+    record Result(Map<Endpoint, EndpointStats> endpoints, long dropped, Duration duration) {
+    }
+}
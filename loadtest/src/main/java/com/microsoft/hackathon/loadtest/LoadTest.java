@@ -0,0 +1,159 @@
+package com.microsoft.hackathon.loadtest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the Spring Boot and Quarkus demo applications, one after the other, under the same open-model traffic.
+ * <p>
+ * Every application is started from its packaged jar in its own JVM, on a free port, in a working directory holding
+ * the files of the file endpoints, and with a local stub as jokes upstream. After a warm-up, a mix of endpoints is
+ * requested at a fixed mean arrival rate, and the latency distribution of every endpoint is recorded. The report is
+ * printed and written to the output directory.
+ * <pre>
+ * java -jar target/loadtest.jar [--apps=spring,quarkus] [--rate=200] [--duration=30] [--warmup=10] [--mix=all]
+ *     [--arrivals=poisson|uniform] [--upstream-delay=50] [--timeout=30] [--max-in-flight=10000]
+ *     [--file-size=1048576] [--seed=42] [--out=target/loadtest] [--spring-jar=...] [--quarkus-jar=...]
+ * </pre>
+ * Durations are in seconds, except the delay of the jokes upstream, in milliseconds.
+ */
+public final class LoadTest {
+
+    private static final String[] WORDS = {"the", "quick", "brown", "fox", "jumps", "over", "lazy", "dog", "copilot",
+        "hackathon", "spring", "quarkus", "lorem", "ipsum", "dolor", "sit", "amet", "load", "java", "zip"};
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        Application[] applications = Arrays.stream(options.getOrDefault("apps", "spring,quarkus").split(","))
+            .map(Application::fromId)
+            .toArray(Application[]::new);
+        double rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        Duration warmUp = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Mix mix = Mix.parse(options.getOrDefault("mix", "all"));
+        boolean poisson = !options.getOrDefault("arrivals", "poisson").equalsIgnoreCase("uniform");
+        long upstreamDelayMillis = Long.parseLong(options.getOrDefault("upstream-delay", "50"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout", "30")));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "10000"));
+        long fileSize = Long.parseLong(options.getOrDefault("file-size", "1048576"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        Path out = Files.createDirectories(Path.of(options.getOrDefault("out", "target/loadtest")));
+
+        System.out.printf("%s at %.0f requests/s for %ds after %ds of warm-up, mix %s%n", String.join(" and ",
+                Arrays.stream(applications).map(Application::id).toArray(String[]::new)), rate, duration.toSeconds(),
+            warmUp.toSeconds(), options.getOrDefault("mix", "all"));
+
+        Path workDirectory = Files.createDirectories(out.resolve("work"));
+        writeFixtures(workDirectory, fileSize, seed);
+        LoadGenerator generator = new LoadGenerator(timeout, maxInFlight, poisson);
+        Map<Application, LoadGenerator.Result> results = new LinkedHashMap<>();
+        try (JokeStub upstream = new JokeStub(upstreamDelayMillis)) {
+            for (Application application : applications) {
+                Path jar = Path.of(options.getOrDefault(application.id() + "-jar", application.defaultJar().toString()));
+                int port = freePort();
+                Path log = out.resolve(application.id() + ".log");
+                Process process = application.start(jar, workDirectory, port, upstream.uri(), log);
+                try {
+                    URI base = URI.create("http://localhost:" + port);
+                    awaitReady(process, base, log);
+                    System.out.printf("%s started on port %d, running...%n", application.id(), port);
+                    results.put(application, generator.run(application, base, mix, rate, warmUp, duration, seed));
+                } finally {
+                    stop(process);
+                }
+            }
+        }
+
+        Report report = new Report(results, mix.endpoints());
+        System.out.println();
+        report.print(System.out);
+        report.write(out);
+        System.out.println("Report and latency distributions written to " + out.toAbsolutePath());
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    // words.txt for the word count, and a data folder of a hundred small files for the listing and the zip
+    private static void writeFixtures(Path directory, long fileSize, long seed) throws IOException {
+        Random random = new Random(seed);
+        writeText(directory.resolve("words.txt"), fileSize, random);
+        Path data = Files.createDirectories(directory.resolve("data"));
+        for (int i = 0; i < 100; i++) {
+            writeText(data.resolve("file-" + i + ".txt"), 4096, random);
+        }
+    }
+
+    private static void writeText(Path file, long size, Random random) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            long written = 0;
+            int wordsOnLine = 0;
+            while (written < size) {
+                String word = WORDS[random.nextInt(WORDS.length)] + (++wordsOnLine % 12 == 0 ? "\n" : " ");
+                int length = (int) Math.min(word.length(), size - written);
+                writer.write(word, 0, length);
+                written += length;
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void awaitReady(Process process, URI base, Path log) throws InterruptedException {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("The application exited with " + process.exitValue() + ", see " + log);
+            }
+            try {
+                HttpURLConnection connection = (HttpURLConnection) base.resolve("/hello?key=ready").toURL().openConnection();
+                connection.setConnectTimeout(1000);
+                connection.setReadTimeout(1000);
+                if (connection.getResponseCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException("The application did not start within " + STARTUP_TIMEOUT + ", see " + log);
+    }
+
+    private static void stop(Process process) throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+}
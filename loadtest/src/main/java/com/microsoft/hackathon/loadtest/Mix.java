@@ -0,0 +1,61 @@
+package com.microsoft.hackathon.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Relative weights of the endpoints in the generated traffic, such as {@code hello=4,color=2,zipfolder=1}.
+ */
+final class Mix {
+
+    private final Endpoint[] endpoints;
+    private final double[] cumulativeWeights;
+
+    private Mix(Map<Endpoint, Double> weights) {
+        endpoints = weights.keySet().toArray(new Endpoint[0]);
+        cumulativeWeights = new double[endpoints.length];
+        double total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += weights.get(endpoints[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * Parses a comma-separated list of {@code endpoint=weight}, or {@code all} for every endpoint with the same weight.
+     */
+    static Mix parse(String value) {
+        Map<Endpoint, Double> weights = new EnumMap<>(Endpoint.class);
+        if (value.trim().equalsIgnoreCase("all")) {
+            for (Endpoint endpoint : Endpoint.values()) {
+                weights.put(endpoint, 1.0);
+            }
+            return new Mix(weights);
+        }
+        for (String entry : value.split(",")) {
+            int separator = entry.indexOf('=');
+            Endpoint endpoint = Endpoint.fromId(separator < 0 ? entry : entry.substring(0, separator));
+            double weight = separator < 0 ? 1 : Double.parseDouble(entry.substring(separator + 1));
+            if (!(weight > 0)) {
+                throw new IllegalArgumentException("Invalid weight of " + endpoint.id() + ": " + weight);
+            }
+            weights.merge(endpoint, weight, Double::sum);
+        }
+        return new Mix(weights);
+    }
+
+    Endpoint[] endpoints() {
+        return endpoints.clone();
+    }
+
+    Endpoint next(Random random) {
+        double point = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        for (int i = 0; i < cumulativeWeights.length - 1; i++) {
+            if (point < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        return endpoints[endpoints.length - 1];
+    }
+}
@@ -0,0 +1,107 @@
+package com.microsoft.hackathon.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tables of the results of every application, then of their latencies side by side, as Markdown. The full latency
+ * distribution of every application and endpoint is written next to it, as an HdrHistogram percentile file
+ * ({@code <application>-<endpoint>.hgrm}, in milliseconds) that can be plotted with the HdrHistogram plotter.
+ */
+final class Report {
+
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+
+    private final Map<Application, LoadGenerator.Result> results;
+    private final Endpoint[] endpoints;
+
+    Report(Map<Application, LoadGenerator.Result> results, Endpoint[] endpoints) {
+        this.results = results;
+        this.endpoints = endpoints;
+    }
+
+    void print(PrintStream out) {
+        for (Map.Entry<Application, LoadGenerator.Result> entry : results.entrySet()) {
+            printResult(out, entry.getKey(), entry.getValue());
+        }
+        if (results.size() > 1) {
+            printComparison(out);
+        }
+    }
+
+    /**
+     * Writes {@code report.md} and the percentile files to {@code directory}.
+     */
+    void write(Path directory) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve("report.md")), false, "UTF-8")) {
+            print(out);
+        }
+        for (Map.Entry<Application, LoadGenerator.Result> entry : results.entrySet()) {
+            for (Map.Entry<Endpoint, LoadGenerator.EndpointStats> stats : entry.getValue().endpoints().entrySet()) {
+                Path file = directory.resolve(entry.getKey().id() + "-" + stats.getKey().id() + ".hgrm");
+                try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+                    stats.getValue().latencies().outputPercentileDistribution(out, 1000.0);
+                }
+            }
+        }
+    }
+
+    private void printResult(PrintStream out, Application application, LoadGenerator.Result result) {
+        double seconds = result.duration().toNanos() / 1e9;
+        out.printf(Locale.ROOT, "## %s%n%n", application.id());
+        out.println("| endpoint | requests | errors | req/s | p50 ms | p99 ms | p99.9 ms | max ms |");
+        out.println("|----------|---------:|-------:|------:|-------:|-------:|---------:|-------:|");
+        for (Endpoint endpoint : endpoints) {
+            LoadGenerator.EndpointStats stats = result.endpoints().get(endpoint);
+            Histogram latencies = stats.latencies();
+            out.printf(Locale.ROOT, "| %s | %d | %d | %.1f | %s | %s | %s | %s |%n", endpoint.id(),
+                latencies.getTotalCount(), stats.errors(), latencies.getTotalCount() / seconds,
+                millis(latencies, 50), millis(latencies, 99), millis(latencies, 99.9), maxMillis(latencies));
+        }
+        out.printf(Locale.ROOT, "%n%d arrivals dropped over the in-flight limit.%n%n", result.dropped());
+    }
+
+    private void printComparison(PrintStream out) {
+        out.println("## comparison");
+        out.println();
+        StringBuilder header = new StringBuilder("| endpoint |");
+        StringBuilder separator = new StringBuilder("|----------|");
+        for (double percentile : PERCENTILES) {
+            for (Application application : results.keySet()) {
+                header.append(' ').append(application.id()).append(" p").append(format(percentile)).append(" ms |");
+                separator.append("------:|");
+            }
+        }
+        out.println(header);
+        out.println(separator);
+        for (Endpoint endpoint : endpoints) {
+            StringBuilder row = new StringBuilder("| ").append(endpoint.id()).append(" |");
+            for (double percentile : PERCENTILES) {
+                for (LoadGenerator.Result result : results.values()) {
+                    row.append(' ').append(millis(result.endpoints().get(endpoint).latencies(), percentile)).append(" |");
+                }
+            }
+            out.println(row);
+        }
+        out.println();
+    }
+
+    private static String millis(Histogram latencies, double percentile) {
+        return latencies.getTotalCount() == 0 ? "-"
+            : String.format(Locale.ROOT, "%.2f", latencies.getValueAtPercentile(percentile) / 1000.0);
+    }
+
+    private static String maxMillis(Histogram latencies) {
+        return latencies.getTotalCount() == 0 ? "-" : String.format(Locale.ROOT, "%.2f", latencies.getMaxValue() / 1000.0);
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+}